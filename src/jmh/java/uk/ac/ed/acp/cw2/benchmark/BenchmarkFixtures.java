@@ -0,0 +1,190 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import uk.ac.ed.acp.cw2.clients.IlpDataSource;
+import uk.ac.ed.acp.cw2.clients.ReferenceDataCache;
+import uk.ac.ed.acp.cw2.dtos.*;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Canned reference data for the benchmarks: the Edinburgh no-fly zones and service points served
+// by the ILP service, plus a deterministic drone fleet and dispatch records around Appleton Tower.
+final class BenchmarkFixtures {
+  static final PositionDto APPLETON_TOWER = new PositionDto(-3.18635807889864, 55.9446806670849);
+  static final PositionDto OCEAN_TERMINAL = new PositionDto(-3.17732, 55.981634);
+
+  private BenchmarkFixtures() {}
+
+  static List<RestrictedRegionDto> restrictedRegions() {
+    return List.of(
+        region(
+            "George Square Area",
+            1,
+            -3.190578818321228, 55.94402412577528,
+            -3.1899887323379517, 55.94284650540911,
+            -3.187097311019897, 55.94328811724263,
+            -3.187682032585144, 55.944477740393744,
+            -3.190578818321228, 55.94402412577528),
+        region(
+            "Dr Elsie Inglis Quadrangle",
+            2,
+            -3.1907182931900024, 55.94519570234043,
+            -3.1906163692474365, 55.94498241796357,
+            -3.1900262832641597, 55.94507554227258,
+            -3.190133571624756, 55.94529783810495,
+            -3.1907182931900024, 55.94519570234043),
+        region(
+            "Bristo Square Open Area",
+            3,
+            -3.189543485641479, 55.94552313663306,
+            -3.189382553100586, 55.94553214854692,
+            -3.189259171485901, 55.94544803726933,
+            -3.1892001628875732, 55.94533688994374,
+            -3.189194798469543, 55.94519570234043,
+            -3.189135789871216, 55.94511759833873,
+            -3.188138008117676, 55.9452738061846,
+            -3.1885510683059692, 55.946105902745614,
+            -3.1895381212234497, 55.94555918427592,
+            -3.189543485641479, 55.94552313663306),
+        region(
+            "Bayes Central Area",
+            4,
+            -3.1876927614212036, 55.94520696732767,
+            -3.187555968761444, 55.9449621408666,
+            -3.186981976032257, 55.94505676722831,
+            -3.1872327625751495, 55.94536993377657,
+            -3.1874459981918335, 55.9453361389472,
+            -3.1873735785484314, 55.94519093008345,
+            -3.1875935196876526, 55.94515713504474,
+            -3.187682032585144, 55.94521847972683,
+            -3.1876927614212036, 55.94520696732767));
+  }
+
+  static List<ServicePointDto> servicePoints() {
+    return List.of(
+        new ServicePointDto("Appleton Tower", 1, location(APPLETON_TOWER)),
+        new ServicePointDto("Ocean Terminal", 2, location(OCEAN_TERMINAL)));
+  }
+
+  // Ten drones with varied capabilities, alternating between the two service points
+  static List<DroneDto> drones() {
+    List<DroneDto> drones = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      drones.add(
+          new DroneDto(
+              "Drone " + i,
+              String.valueOf(i),
+              new CapabilityDto(
+                  i % 3 == 0, i % 4 == 0, 4.0 + 2 * i, 1500 + 250 * i, 0.01 + 0.005 * (i % 4),
+                  1.0 + i % 3, 1.0 + i % 2)));
+    }
+    return drones;
+  }
+
+  // Every drone is available all week
+  static List<ServicePointDronesDto> dronesForServicePoints() {
+    List<DroneAvailabilityDto> appleton = new ArrayList<>();
+    List<DroneAvailabilityDto> ocean = new ArrayList<>();
+    for (DroneDto drone : drones()) {
+      List<AvailabilityDto> availability = new ArrayList<>();
+      for (DayOfWeek day : DayOfWeek.values()) {
+        availability.add(new AvailabilityDto(day.name(), "00:00:00", "23:59:59"));
+      }
+      DroneAvailabilityDto entry = new DroneAvailabilityDto(drone.getId(), availability);
+      (Integer.parseInt(drone.getId()) % 2 == 1 ? appleton : ocean).add(entry);
+    }
+    return List.of(new ServicePointDronesDto(1, appleton), new ServicePointDronesDto(2, ocean));
+  }
+
+  // Dispatch records scattered around Appleton Tower, none inside a restricted region
+  static List<MedDispatchRecDto> dispatchRecords(int count, long seed) {
+    Random random = new Random(seed);
+    List<RestrictedRegionDto> regions = restrictedRegions();
+    List<MedDispatchRecDto> records = new ArrayList<>();
+    LocalDate date = LocalDate.of(2025, 12, 22);
+    while (records.size() < count) {
+      PositionDto delivery =
+          new PositionDto(
+              APPLETON_TOWER.getLng() + (random.nextDouble() - 0.5) * 0.012,
+              APPLETON_TOWER.getLat() + (random.nextDouble() - 0.5) * 0.008);
+      if (inAnyRegion(delivery, regions)) {
+        continue;
+      }
+      int id = records.size() + 1;
+      records.add(
+          new MedDispatchRecDto(
+              id,
+              date,
+              LocalTime.of(9, 0).plusMinutes(5L * id),
+              new RequirementsDto(0.5 + random.nextInt(4) * 0.5, false, false, null),
+              delivery));
+    }
+    return records;
+  }
+
+  // A ReferenceDataCache backed by the canned data source
+  static ReferenceDataCache referenceData(List<RestrictedRegionDto> restrictedRegions) {
+    return new ReferenceDataCache(
+        new CannedIlpDataSource(restrictedRegions), new SimpleMeterRegistry());
+  }
+
+  static RegionDto asRegion(RestrictedRegionDto region) {
+    return new RegionDto(
+        region.getName(),
+        region.getVertices().stream()
+            .map(vertex -> new PositionDto(vertex.getLng(), vertex.getLat()))
+            .toList());
+  }
+
+  private static boolean inAnyRegion(PositionDto position, List<RestrictedRegionDto> regions) {
+    for (RestrictedRegionDto region : regions) {
+      if (CalculatePositioning.isInRegion(new RegionCheckDto(position, asRegion(region)))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static RestrictedRegionDto region(String name, int id, double... coordinates) {
+    List<LocationDto> vertices = new ArrayList<>();
+    for (int i = 0; i < coordinates.length; i += 2) {
+      vertices.add(new LocationDto(coordinates[i], coordinates[i + 1], null));
+    }
+    return new RestrictedRegionDto(name, id, new LimitsDto(0, -1), vertices);
+  }
+
+  private static LocationDto location(PositionDto position) {
+    return new LocationDto(position.getLng(), position.getLat(), null);
+  }
+
+  // Serves the fixtures above instead of calling the ILP service
+  private record CannedIlpDataSource(List<RestrictedRegionDto> restrictedRegions)
+      implements IlpDataSource {
+
+    @Override
+    public List<DroneDto> getAllDrones() {
+      return drones();
+    }
+
+    @Override
+    public List<ServicePointDronesDto> getDronesForServicePoints() {
+      return dronesForServicePoints();
+    }
+
+    @Override
+    public List<ServicePointDto> getServicePoints() {
+      return servicePoints();
+    }
+
+    @Override
+    public List<RestrictedRegionDto> getRestrictedRegions() {
+      return restrictedRegions;
+    }
+  }
+}
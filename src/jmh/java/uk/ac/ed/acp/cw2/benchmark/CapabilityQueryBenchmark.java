@@ -0,0 +1,47 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.clients.SyntheticIlpDataSource;
+import uk.ac.ed.acp.cw2.dtos.attributeQueryDto;
+import uk.ac.ed.acp.cw2.service.query.CapabilityIndex;
+import uk.ac.ed.acp.cw2.service.query.CapabilityQuery;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// /query and /queryAsPath evaluation against the capability index for synthetic fleets
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CapabilityQueryBenchmark {
+
+  @Param({"100", "5000"})
+  public int fleetSize;
+
+  private CapabilityIndex index;
+  private List<attributeQueryDto> query;
+
+  @Setup
+  public void setUp() {
+    index = CapabilityIndex.build(new SyntheticIlpDataSource(fleetSize, 5, 0, 42).getAllDrones());
+    query =
+        List.of(
+            new attributeQueryDto("cooling", "=", "true"),
+            new attributeQueryDto("capacity", ">", "8"),
+            new attributeQueryDto("maxMoves", "<", "3000"),
+            new attributeQueryDto("costPerMove", "!=", "0.02"));
+  }
+
+  @Benchmark
+  public List<String> query() {
+    return index.droneIds(CapabilityQuery.compile(query).evaluate(index));
+  }
+
+  @Benchmark
+  public int queryAsPath() {
+    return index.drones(CapabilityQuery.compilePath("heating", "true").evaluate(index)).size();
+  }
+}
@@ -0,0 +1,80 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.clients.ReferenceDataCache;
+import uk.ac.ed.acp.cw2.dtos.MedDispatchRecDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.OverallRouteDto;
+import uk.ac.ed.acp.cw2.service.DynamicQueries;
+import uk.ac.ed.acp.cw2.service.StaticQueries;
+import uk.ac.ed.acp.cw2.service.Astar.AStarService;
+import uk.ac.ed.acp.cw2.service.Astar.LegPathCache;
+import uk.ac.ed.acp.cw2.service.Astar.SearchMode;
+import uk.ac.ed.acp.cw2.service.query.CapabilityQueryCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end calcDeliveryPath against the canned reference data, wired without Spring. With the
+// leg cache enabled, repeated invocations measure the steady state of a service answering the
+// same batch again; with it disabled every invocation plans from scratch.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeliveryPathBenchmark {
+
+  @Param({"5", "20"})
+  public int records;
+
+  @Param({"0", "10000"})
+  public int legCacheEntries;
+
+  @Param({"false", "true"})
+  public boolean parallel;
+
+  private ForkJoinPool planningExecutor;
+  private DynamicQueries dynamicQueries;
+  private List<MedDispatchRecDto> dispatchRecords;
+
+  @Setup
+  public void setUp() {
+    ReferenceDataCache referenceData =
+        BenchmarkFixtures.referenceData(BenchmarkFixtures.restrictedRegions());
+    StaticQueries staticQueries = new StaticQueries(referenceData);
+    AStarService aStarService =
+        new AStarService(
+            referenceData,
+            new LegPathCache(legCacheEntries, new SimpleMeterRegistry()),
+            new SimpleMeterRegistry(),
+            true,
+            SearchMode.UNIDIRECTIONAL,
+            true);
+    planningExecutor = new ForkJoinPool();
+    dynamicQueries =
+        new DynamicQueries(
+            referenceData,
+            staticQueries,
+            aStarService,
+            new CapabilityQueryCache(0, new SimpleMeterRegistry()),
+            planningExecutor,
+            new SimpleMeterRegistry(),
+            parallel,
+            3);
+    dispatchRecords = BenchmarkFixtures.dispatchRecords(records, 7);
+  }
+
+  @TearDown
+  public void tearDown() {
+    planningExecutor.shutdown();
+  }
+
+  @Benchmark
+  public OverallRouteDto calcDeliveryPath() {
+    return dynamicQueries.calcDeliveryPath(new ArrayList<>(dispatchRecords), false);
+  }
+}
@@ -0,0 +1,89 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dtos.DistanceDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+import uk.ac.ed.acp.cw2.service.geometry.DistanceKernels;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Record-to-service-point distance matrices. DTO builds a PositionDto pair and a DistanceDto per
+// distance and calls calculateDistance, as the planning code used to; SCALAR and VECTOR are the
+// DistanceKernels implementations on primitive arrays. VECTOR needs -Pbenchmark,vector.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceKernelsBenchmark {
+
+  public enum Implementation {
+    DTO,
+    SCALAR,
+    VECTOR
+  }
+
+  @Param({"10000"})
+  public int records;
+
+  @Param({"100"})
+  public int servicePoints;
+
+  @Param({"DTO", "SCALAR", "VECTOR"})
+  public Implementation implementation;
+
+  private double[] recordXs;
+  private double[] recordYs;
+  private double[] servicePointXs;
+  private double[] servicePointYs;
+  private double[] matrix;
+  private DistanceKernels kernels;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(17);
+    recordXs = scatter(random, BenchmarkFixtures.APPLETON_TOWER.getLng(), records);
+    recordYs = scatter(random, BenchmarkFixtures.APPLETON_TOWER.getLat(), records);
+    servicePointXs = scatter(random, BenchmarkFixtures.APPLETON_TOWER.getLng(), servicePoints);
+    servicePointYs = scatter(random, BenchmarkFixtures.APPLETON_TOWER.getLat(), servicePoints);
+    matrix = new double[records * servicePoints];
+    kernels =
+        switch (implementation) {
+          case DTO -> null;
+          case SCALAR -> DistanceKernels.SCALAR;
+          case VECTOR -> DistanceKernels.VECTOR;
+        };
+    if (implementation == Implementation.VECTOR && kernels == null) {
+      throw new IllegalStateException("Build and run with -Pvector for the Vector API kernels");
+    }
+  }
+
+  private static double[] scatter(Random random, double centre, int count) {
+    double[] values = new double[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = centre + (random.nextDouble() - 0.5) * 0.05;
+    }
+    return values;
+  }
+
+  @Benchmark
+  public double[] distanceMatrix() {
+    for (int r = 0; r < records; r++) {
+      if (kernels != null) {
+        kernels.oneToMany(
+            recordXs[r], recordYs[r], servicePointXs, servicePointYs, matrix, r * servicePoints);
+        continue;
+      }
+      PositionDto record = new PositionDto(recordXs[r], recordYs[r]);
+      for (int s = 0; s < servicePoints; s++) {
+        PositionDto servicePoint = new PositionDto(servicePointXs[s], servicePointYs[s]);
+        matrix[r * servicePoints + s] =
+            CalculatePositioning.calculateDistance(new DistanceDto(servicePoint, record));
+      }
+    }
+    return matrix;
+  }
+}
@@ -0,0 +1,108 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DeliveryPathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DronePathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.OverallRouteDto;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+import uk.ac.ed.acp.cw2.service.GeoJsonConverter;
+import uk.ac.ed.acp.cw2.service.GeoJsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Serialising a large OverallRouteDto as GeoJSON: the ObjectNode tree built by GeoJsonConverter
+// and then written by Jackson, against GeoJsonWriter streaming to the generator directly, at full
+// and at 6 decimal place precision. Output goes to a byte-counting sink so the cost measured is
+// serialisation only; run with -prof gc to compare allocation rates.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeoJsonBenchmark {
+
+  @Param({"20", "200"})
+  public int deliveries;
+
+  @Param({"1000", "5000"})
+  public int pointsPerPath;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private OverallRouteDto route;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    List<DronePathDto> dronePaths = new ArrayList<>();
+    for (int drone = 0; drone < 10; drone++) {
+      List<DeliveryPathDto> paths = new ArrayList<>();
+      for (int delivery = drone; delivery < deliveries; delivery += 10) {
+        paths.add(new DeliveryPathDto(delivery, randomWalk(random)));
+      }
+      dronePaths.add(new DronePathDto(drone + 1, paths));
+    }
+    route = new OverallRouteDto(1234.5, deliveries * pointsPerPath, dronePaths);
+  }
+
+  // A path of compass moves from Appleton Tower, like the ones A* produces
+  private List<PositionDto> randomWalk(Random random) {
+    List<PositionDto> path = new ArrayList<>(pointsPerPath);
+    double lng = BenchmarkFixtures.APPLETON_TOWER.getLng();
+    double lat = BenchmarkFixtures.APPLETON_TOWER.getLat();
+    for (int i = 0; i < pointsPerPath; i++) {
+      path.add(new PositionDto(lng, lat));
+      double angle = Math.toRadians(22.5 * random.nextInt(16));
+      lng += CalculatePositioning.MOVE_DISTANCE * Math.cos(angle);
+      lat += CalculatePositioning.MOVE_DISTANCE * Math.sin(angle);
+    }
+    return path;
+  }
+
+  @Benchmark
+  public long treeConverter() throws IOException {
+    CountingOutputStream out = new CountingOutputStream();
+    objectMapper.writeValue(out, new GeoJsonConverter().toGeoJson(route));
+    return out.count;
+  }
+
+  @Benchmark
+  public long streamingWriter() throws IOException {
+    return stream(GeoJsonWriter.FULL_PRECISION);
+  }
+
+  @Benchmark
+  public long streamingWriterSixDecimals() throws IOException {
+    return stream(6);
+  }
+
+  private long stream(int precision) throws IOException {
+    CountingOutputStream out = new CountingOutputStream();
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      new GeoJsonWriter(precision).write(route, generator);
+    }
+    return out.count;
+  }
+
+  private static final class CountingOutputStream extends OutputStream {
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
+}
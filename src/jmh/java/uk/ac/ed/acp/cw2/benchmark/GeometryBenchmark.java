@@ -0,0 +1,97 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.acp.cw2.dtos.DistanceDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.RegionCheckDto;
+import uk.ac.ed.acp.cw2.dtos.RegionDto;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+import uk.ac.ed.acp.cw2.service.geometry.RestrictedRegionIndex;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Per-call cost of the geometry primitives used by the endpoints and the A* inner loop. Each
+// invocation runs over a fixed batch of probe points around the central restricted regions.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+  private static final int PROBES = 1024;
+
+  private DistanceDto[] distancePairs;
+  private PositionDto[] probes;
+  private double[] moves;
+  private List<RegionDto> regions;
+  private RestrictedRegionIndex index;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    PositionDto centre = BenchmarkFixtures.APPLETON_TOWER;
+    distancePairs = new DistanceDto[PROBES];
+    probes = new PositionDto[PROBES];
+    moves = new double[4 * PROBES];
+    for (int i = 0; i < PROBES; i++) {
+      PositionDto probe =
+          new PositionDto(
+              centre.getLng() - 0.002 + (random.nextDouble() - 0.5) * 0.006,
+              centre.getLat() + (random.nextDouble() - 0.5) * 0.004);
+      probes[i] = probe;
+      distancePairs[i] = new DistanceDto(centre, probe);
+      double angle = Math.toRadians(22.5 * random.nextInt(16));
+      moves[4 * i] = probe.getLng();
+      moves[4 * i + 1] = probe.getLat();
+      moves[4 * i + 2] = probe.getLng() + CalculatePositioning.MOVE_DISTANCE * Math.cos(angle);
+      moves[4 * i + 3] = probe.getLat() + CalculatePositioning.MOVE_DISTANCE * Math.sin(angle);
+    }
+    regions =
+        BenchmarkFixtures.restrictedRegions().stream().map(BenchmarkFixtures::asRegion).toList();
+    index = RestrictedRegionIndex.build(BenchmarkFixtures.restrictedRegions());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PROBES)
+  public void calculateDistance(Blackhole blackhole) {
+    for (DistanceDto pair : distancePairs) {
+      blackhole.consume(CalculatePositioning.calculateDistance(pair));
+    }
+  }
+
+  // The per-point check A* used before regions were compiled: isInRegion against every region
+  @Benchmark
+  @OperationsPerInvocation(PROBES)
+  public void isInRegionAllRegions(Blackhole blackhole) {
+    for (PositionDto probe : probes) {
+      boolean restricted = false;
+      for (RegionDto region : regions) {
+        if (CalculatePositioning.isInRegion(new RegionCheckDto(probe, region))) {
+          restricted = true;
+          break;
+        }
+      }
+      blackhole.consume(restricted);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PROBES)
+  public void indexContains(Blackhole blackhole) {
+    for (PositionDto probe : probes) {
+      blackhole.consume(index.contains(probe.getLng(), probe.getLat()));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PROBES)
+  public void indexCrossesSegment(Blackhole blackhole) {
+    for (int i = 0; i < moves.length; i += 4) {
+      blackhole.consume(index.crossesSegment(moves[i], moves[i + 1], moves[i + 2], moves[i + 3]));
+    }
+  }
+}
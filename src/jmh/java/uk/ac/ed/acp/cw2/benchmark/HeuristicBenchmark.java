@@ -0,0 +1,76 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.service.Astar.AStarResult;
+import uk.ac.ed.acp.cw2.service.Astar.LatticeAStar;
+import uk.ac.ed.acp.cw2.service.geometry.RestrictedRegionIndex;
+
+import java.util.concurrent.TimeUnit;
+
+// LatticeAStar on legs that have to go around the central no-fly zones, guided by straight-line
+// distance or by the visibility graph's obstacle-aware lower bound. Searches are deterministic, so
+// the nodes each one expands are printed once from setUp; the distance field is built per search,
+// so its cost is included in the timings.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeuristicBenchmark {
+  private static final int MAX_MOVES = 2000;
+  private static final double COST_PER_MOVE = 0.01;
+
+  // GEORGE_SQUARE: from west of George Square to Appleton Tower
+  // BRISTO: north of Bristo Square to south of George Square, behind both
+  // BAYES: east to west along the front of the Bayes Centre
+  public enum Leg {
+    GEORGE_SQUARE(new PositionDto(-3.1925, 55.9437), BenchmarkFixtures.APPLETON_TOWER),
+    BRISTO(new PositionDto(-3.1888, 55.9470), new PositionDto(-3.1888, 55.9420)),
+    BAYES(new PositionDto(-3.1866, 55.9452), new PositionDto(-3.1882, 55.9452));
+
+    private final PositionDto start;
+    private final PositionDto goal;
+
+    Leg(PositionDto start, PositionDto goal) {
+      this.start = start;
+      this.goal = goal;
+    }
+  }
+
+  @Param({"GEORGE_SQUARE", "BRISTO", "BAYES"})
+  public Leg leg;
+
+  @Param({"false", "true"})
+  public boolean visibilityHeuristic;
+
+  @Param({"false", "true"})
+  public boolean bidirectional;
+
+  private RestrictedRegionIndex regions;
+
+  @Setup
+  public void setUp() {
+    regions = RestrictedRegionIndex.build(BenchmarkFixtures.restrictedRegions());
+    LatticeAStar search = new LatticeAStar(regions, true, visibilityHeuristic);
+    AStarResult result = search(search);
+    if (!result.isReachedGoal()) {
+      throw new IllegalStateException("No path for " + leg);
+    }
+    System.out.printf(
+        "%n%s: %d nodes expanded, %d moves%n",
+        leg, search.expandedNodes(), result.getMovesUsed());
+  }
+
+  @Benchmark
+  public AStarResult search() {
+    return search(new LatticeAStar(regions, true, visibilityHeuristic));
+  }
+
+  private AStarResult search(LatticeAStar search) {
+    return bidirectional
+        ? search.searchBidirectional(leg.start, leg.goal, MAX_MOVES, COST_PER_MOVE)
+        : search.search(leg.start, leg.goal, MAX_MOVES, COST_PER_MOVE);
+  }
+}
@@ -0,0 +1,86 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.service.Astar.AStarResult;
+import uk.ac.ed.acp.cw2.service.Astar.AStarService;
+import uk.ac.ed.acp.cw2.service.Astar.LegPathCache;
+import uk.ac.ed.acp.cw2.service.Astar.SearchMode;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Single-leg A* through AStarService with the leg cache disabled, so every invocation is a full
+// search. Legs are measured with and without the Edinburgh no-fly zones, with endpoint-only and
+// segment region checks, with the straight-line and visibility-graph heuristics, and in both
+// search modes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathPlanningBenchmark {
+  private static final int MAX_MOVES = 2000;
+
+  // SHORT: a few dozen moves in open space next to Appleton Tower
+  // MEDIUM: from west of George Square to Appleton Tower, across the central no-fly zones
+  // LONG: Appleton Tower to Ocean Terminal
+  public enum Leg {
+    SHORT(
+        BenchmarkFixtures.APPLETON_TOWER,
+        new PositionDto(-3.18435807889864, 55.9456806670849)),
+    MEDIUM(new PositionDto(-3.1925, 55.9437), BenchmarkFixtures.APPLETON_TOWER),
+    LONG(BenchmarkFixtures.APPLETON_TOWER, BenchmarkFixtures.OCEAN_TERMINAL);
+
+    private final PositionDto start;
+    private final PositionDto goal;
+
+    Leg(PositionDto start, PositionDto goal) {
+      this.start = start;
+      this.goal = goal;
+    }
+  }
+
+  @Param({"SHORT", "MEDIUM", "LONG"})
+  public Leg leg;
+
+  @Param({"true", "false"})
+  public boolean obstacles;
+
+  @Param({"true", "false"})
+  public boolean segmentChecks;
+
+  @Param({"true", "false"})
+  public boolean visibilityHeuristic;
+
+  @Param({"UNIDIRECTIONAL", "BIDIRECTIONAL"})
+  public SearchMode mode;
+
+  private AStarService aStarService;
+  private DroneDto drone;
+
+  @Setup
+  public void setUp() {
+    aStarService =
+        new AStarService(
+            BenchmarkFixtures.referenceData(
+                obstacles ? BenchmarkFixtures.restrictedRegions() : List.of()),
+            new LegPathCache(0, new SimpleMeterRegistry()),
+            new SimpleMeterRegistry(),
+            segmentChecks,
+            mode,
+            visibilityHeuristic);
+    drone = BenchmarkFixtures.drones().getFirst();
+    if (!findPathForLeg().isReachedGoal()) {
+      throw new IllegalStateException("No path for " + leg);
+    }
+  }
+
+  @Benchmark
+  public AStarResult findPathForLeg() {
+    return aStarService.findPathForLeg(leg.start, leg.goal, MAX_MOVES, drone);
+  }
+}
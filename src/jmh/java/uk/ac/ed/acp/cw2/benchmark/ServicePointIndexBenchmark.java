@@ -0,0 +1,132 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+import uk.ac.ed.acp.cw2.service.geometry.DistanceKernels;
+import uk.ac.ed.acp.cw2.service.geometry.ServicePointIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Nearest service point for every record in a batch. SCAN is a linear pass over every service
+// point comparing squared distances; INDEX queries the per-snapshot 2-d tree. nearestThree is the
+// k-nearest query the assignment planner makes per record, against a distance row and a
+// three-slot selection for SCAN.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServicePointIndexBenchmark {
+
+  public enum Implementation {
+    SCAN,
+    INDEX
+  }
+
+  @Param({"10000"})
+  public int records;
+
+  @Param({"100", "1000"})
+  public int servicePoints;
+
+  @Param({"SCAN", "INDEX"})
+  public Implementation implementation;
+
+  private double[] recordXs;
+  private double[] recordYs;
+  private double[] servicePointXs;
+  private double[] servicePointYs;
+  private ServicePointIndex index;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(23);
+    recordXs = scatter(random, BenchmarkFixtures.APPLETON_TOWER.getLng(), records);
+    recordYs = scatter(random, BenchmarkFixtures.APPLETON_TOWER.getLat(), records);
+    servicePointXs = scatter(random, BenchmarkFixtures.APPLETON_TOWER.getLng(), servicePoints);
+    servicePointYs = scatter(random, BenchmarkFixtures.APPLETON_TOWER.getLat(), servicePoints);
+    List<ServicePointDto> dtos = new ArrayList<>(servicePoints);
+    for (int s = 0; s < servicePoints; s++) {
+      dtos.add(
+          new ServicePointDto(
+              "SP " + s, s, new LocationDto(servicePointXs[s], servicePointYs[s], 50.0)));
+    }
+    index = ServicePointIndex.build(dtos);
+  }
+
+  private static double[] scatter(Random random, double centre, int count) {
+    double[] values = new double[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = centre + (random.nextDouble() - 0.5) * 0.05;
+    }
+    return values;
+  }
+
+  @Benchmark
+  public void nearest(Blackhole blackhole) {
+    for (int r = 0; r < records; r++) {
+      blackhole.consume(
+          implementation == Implementation.INDEX
+              ? index.nearest(recordXs[r], recordYs[r])
+              : scan(recordXs[r], recordYs[r]));
+    }
+  }
+
+  @Benchmark
+  public void nearestThree(Blackhole blackhole) {
+    double[] distances = new double[servicePoints];
+    for (int r = 0; r < records; r++) {
+      if (implementation == Implementation.INDEX) {
+        blackhole.consume(index.nearest(recordXs[r], recordYs[r], 3));
+        continue;
+      }
+      DistanceKernels.best()
+          .oneToMany(recordXs[r], recordYs[r], servicePointXs, servicePointYs, distances, 0);
+      blackhole.consume(threeSmallest(distances));
+    }
+  }
+
+  private int scan(double x, double y) {
+    int best = -1;
+    double bestSquared = Double.POSITIVE_INFINITY;
+    for (int s = 0; s < servicePointXs.length; s++) {
+      double dx = servicePointXs[s] - x;
+      double dy = servicePointYs[s] - y;
+      double squared = dx * dx + dy * dy;
+      if (squared < bestSquared) {
+        best = s;
+        bestSquared = squared;
+      }
+    }
+    return best;
+  }
+
+  // The scan's k-nearest: one insertion pass keeping the three smallest distances
+  private static int[] threeSmallest(double[] distances) {
+    int[] best = {-1, -1, -1};
+    double[] bestDistances = {
+      Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY
+    };
+    for (int s = 0; s < distances.length; s++) {
+      double distance = distances[s];
+      if (distance >= bestDistances[2]) {
+        continue;
+      }
+      int position = 2;
+      while (position > 0 && bestDistances[position - 1] > distance) {
+        bestDistances[position] = bestDistances[position - 1];
+        best[position] = best[position - 1];
+        position--;
+      }
+      bestDistances[position] = distance;
+      best[position] = s;
+    }
+    return best;
+  }
+}
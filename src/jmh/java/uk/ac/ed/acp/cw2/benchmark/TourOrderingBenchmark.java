@@ -0,0 +1,71 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.acp.cw2.service.planning.TourOrdering;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// TourOrdering on synthetic baskets of stops scattered around Appleton Tower, as they arrive in
+// dispatch order. Each invocation orders BASKETS baskets; the scores are per basket. setUp prints
+// the average estimated moves per basket before and after ordering.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TourOrderingBenchmark {
+  private static final int BASKETS = 100;
+  private static final int MAX_MOVES = 100_000;
+
+  @Param({"2", "5", "10", "20"})
+  public int stops;
+
+  private double[][] xs;
+  private double[][] ys;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(11);
+    xs = new double[BASKETS][stops];
+    ys = new double[BASKETS][stops];
+    for (int basket = 0; basket < BASKETS; basket++) {
+      for (int stop = 0; stop < stops; stop++) {
+        xs[basket][stop] =
+            BenchmarkFixtures.APPLETON_TOWER.getLng() + (random.nextDouble() - 0.5) * 0.012;
+        ys[basket][stop] =
+            BenchmarkFixtures.APPLETON_TOWER.getLat() + (random.nextDouble() - 0.5) * 0.008;
+      }
+    }
+
+    int[] given = new int[stops];
+    for (int stop = 0; stop < stops; stop++) {
+      given[stop] = stop;
+    }
+    long givenMoves = 0;
+    long orderedMoves = 0;
+    for (int basket = 0; basket < BASKETS; basket++) {
+      givenMoves += TourOrdering.moves(
+          BenchmarkFixtures.APPLETON_TOWER, xs[basket], ys[basket], given);
+      int[] order = TourOrdering.order(
+          BenchmarkFixtures.APPLETON_TOWER, xs[basket], ys[basket], MAX_MOVES);
+      orderedMoves += TourOrdering.moves(
+          BenchmarkFixtures.APPLETON_TOWER, xs[basket], ys[basket], order);
+    }
+    System.out.printf(
+        "%n%d stops: %.1f moves per basket in dispatch order, %.1f ordered%n",
+        stops, givenMoves / (double) BASKETS, orderedMoves / (double) BASKETS);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BASKETS)
+  public void order(Blackhole blackhole) {
+    for (int basket = 0; basket < BASKETS; basket++) {
+      blackhole.consume(
+          TourOrdering.order(
+              BenchmarkFixtures.APPLETON_TOWER, xs[basket], ys[basket], MAX_MOVES));
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package uk.ac.ed.acp.cw2.clients;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.RestrictedRegionDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDronesDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+// Serves the ILP reference data from JSON files in the same format as the ILP REST endpoints
+// (drones.json, drones-for-service-points.json, service-points.json, restricted-areas.json).
+// Files are re-read on every call, so edits are picked up by the next reference data refresh.
+@Component
+@Profile("local")
+public class FixtureIlpDataSource implements IlpDataSource {
+  private final ObjectMapper objectMapper;
+  private final ResourceLoader resourceLoader;
+  private final Validator validator;
+  private final String location;
+
+  public FixtureIlpDataSource(
+      ObjectMapper objectMapper,
+      ResourceLoader resourceLoader,
+      Validator validator,
+      @Value("${ilp.local.fixtures:classpath:ilp-fixtures/}") String location) {
+    this.objectMapper = objectMapper;
+    this.resourceLoader = resourceLoader;
+    this.validator = validator;
+    this.location = location.endsWith("/") ? location : location + "/";
+  }
+
+  @Override
+  public List<DroneDto> getAllDrones() {
+    return read("drones.json", new TypeReference<>() {});
+  }
+
+  @Override
+  public List<ServicePointDronesDto> getDronesForServicePoints() {
+    return read("drones-for-service-points.json", new TypeReference<>() {});
+  }
+
+  @Override
+  public List<ServicePointDto> getServicePoints() {
+    return read("service-points.json", new TypeReference<>() {});
+  }
+
+  @Override
+  public List<RestrictedRegionDto> getRestrictedRegions() {
+    return read("restricted-areas.json", new TypeReference<>() {});
+  }
+
+  // Reads and validates one fixture file; a missing or invalid file fails the (re)load
+  private <T> List<T> read(String fileName, TypeReference<List<T>> type) {
+    Resource resource = resourceLoader.getResource(location + fileName);
+    List<T> dtos;
+    try (InputStream input = resource.getInputStream()) {
+      dtos = objectMapper.readValue(input, type);
+    } catch (IOException error) {
+      throw new IllegalStateException(
+          "Cannot read ILP fixture " + resource.getDescription(), error);
+    }
+    if (dtos == null) {
+      throw new IllegalStateException("Empty ILP fixture " + resource.getDescription());
+    }
+    for (T dto : dtos) {
+      if (!validator.validate(dto).isEmpty()) {
+        throw new IllegalStateException(
+            "Invalid entry in ILP fixture " + resource.getDescription());
+      }
+    }
+    return dtos;
+  }
+}
@@ -0,0 +1,29 @@
+package uk.ac.ed.acp.cw2.clients;
+
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.RestrictedRegionDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDronesDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+
+import java.util.List;
+
+// Source of the ILP reference data. The active implementation is chosen by Spring profile:
+//   (default)  MedSupplyDronesClient, the remote ILP REST service
+//   local      FixtureIlpDataSource, JSON fixtures in the ILP response format
+//   synthetic  SyntheticIlpDataSource, a generated data set of configurable size
+public interface IlpDataSource {
+
+  List<DroneDto> getAllDrones();
+
+  List<ServicePointDronesDto> getDronesForServicePoints();
+
+  List<ServicePointDto> getServicePoints();
+
+  List<RestrictedRegionDto> getRestrictedRegions();
+
+  // All four data sets at once; remote sources override this to fetch them concurrently
+  default IlpReferenceData fetchAll() {
+    return new IlpReferenceData(
+        getAllDrones(), getDronesForServicePoints(), getServicePoints(), getRestrictedRegions());
+  }
+}
@@ -0,0 +1,15 @@
+package uk.ac.ed.acp.cw2.clients;
+
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.RestrictedRegionDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDronesDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+
+import java.util.List;
+
+// The four ILP reference data sets, fetched together
+public record IlpReferenceData(
+    List<DroneDto> drones,
+    List<ServicePointDronesDto> dronesForServicePoints,
+    List<ServicePointDto> servicePoints,
+    List<RestrictedRegionDto> restrictedRegions) {}
@@ -1,32 +1,49 @@
 package uk.ac.ed.acp.cw2.clients;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
 import uk.ac.ed.acp.cw2.dtos.DroneDto;
 import uk.ac.ed.acp.cw2.dtos.RestrictedRegionDto;
 import uk.ac.ed.acp.cw2.dtos.ServicePointDronesDto;
 import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 // Registering this class as a Spring bean for easier instance lifecycle management
+// Remote IlpDataSource, used unless a local data source profile is active
 @Component
+@Profile("!local & !synthetic")
 @Validated
-public class MedSupplyDronesClient {
+public class MedSupplyDronesClient implements IlpDataSource {
   private final WebClient medSupplyDronesClient;
   private final Validator
       validator; // Inject validator bean to validate deserialisation of response to dtos
+  private final Duration timeout; // Upper bound on each individual ILP fetch
+  private final MeterRegistry registry;
 
   // Construct web client class and inject bean dependencies
   public MedSupplyDronesClient(
-      WebClient.Builder medSupplyDronesClientBuilder, String getEndpointIlp, Validator validator) {
+      WebClient.Builder medSupplyDronesClientBuilder,
+      String getEndpointIlp,
+      Validator validator,
+      MeterRegistry registry,
+      @Value("${ilp.client.timeout-ms:10000}") long timeoutMs) {
     this.validator = validator;
+    this.registry = registry;
     this.medSupplyDronesClient = medSupplyDronesClientBuilder.baseUrl(getEndpointIlp).build();
+    this.timeout = Duration.ofMillis(timeoutMs);
   }
 
   // Generic function to validate a range of Dtos - generic type T
@@ -44,43 +61,93 @@ public class MedSupplyDronesClient {
     throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
   }
 
+  // Non-blocking fetch of one ILP list endpoint, validated and bounded by the per-call timeout.
+  // An empty body is rejected like a null one. Each fetch is timed under ilp.fetch, tagged with
+  // the endpoint and whether it succeeded, failed or was cancelled.
+  private <T> Mono<List<T>> fetch(String uri, ParameterizedTypeReference<List<T>> type) {
+    return Mono.defer(
+        () -> {
+          long started = System.nanoTime();
+          return request(uri, type)
+              .doOnSuccess(list -> recordFetch(uri, "success", started))
+              .doOnError(error -> recordFetch(uri, "error", started))
+              .doOnCancel(() -> recordFetch(uri, "cancelled", started));
+        });
+  }
+
+  private void recordFetch(String uri, String outcome, long started) {
+    registry
+        .timer("ilp.fetch", "endpoint", uri, "outcome", outcome)
+        .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+  }
+
+  private <T> Mono<List<T>> request(String uri, ParameterizedTypeReference<List<T>> type) {
+    return medSupplyDronesClient
+        .get()
+        .uri(uri)
+        .retrieve()
+        .bodyToMono(type)
+        .timeout(timeout)
+        .onErrorMap(
+            TimeoutException.class,
+            error ->
+                new ResponseStatusException(
+                    HttpStatus.GATEWAY_TIMEOUT, "ILP request timed out: " + uri, error))
+        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST)))
+        .map(this::validateResponse);
+  }
+
+  public Mono<List<DroneDto>> fetchAllDrones() {
+    return fetch("/drones", new ParameterizedTypeReference<>() {});
+  }
+
+  public Mono<List<ServicePointDronesDto>> fetchDronesForServicePoints() {
+    return fetch("/drones-for-service-points", new ParameterizedTypeReference<>() {});
+  }
+
+  public Mono<List<ServicePointDto>> fetchServicePoints() {
+    return fetch("/service-points", new ParameterizedTypeReference<>() {});
+  }
+
+  public Mono<List<RestrictedRegionDto>> fetchRestrictedRegions() {
+    return fetch("/restricted-areas", new ParameterizedTypeReference<>() {});
+  }
+
+  // Issues the four fetches concurrently, so loading takes as long as the slowest one rather than
+  // the sum. The first failure cancels the others.
+  public Mono<IlpReferenceData> fetchAllAsync() {
+    return Mono.zip(
+            fetchAllDrones(),
+            fetchDronesForServicePoints(),
+            fetchServicePoints(),
+            fetchRestrictedRegions())
+        .map(
+            lists ->
+                new IlpReferenceData(lists.getT1(), lists.getT2(), lists.getT3(), lists.getT4()));
+  }
+
+  @Override
+  public IlpReferenceData fetchAll() {
+    return fetchAllAsync().block();
+  }
+
+  @Override
   public List<DroneDto> getAllDrones() {
-    return validateResponse(
-        medSupplyDronesClient
-            .get()
-            .uri("/drones")
-            .retrieve()
-            .bodyToMono(new ParameterizedTypeReference<List<DroneDto>>() {})
-            .block());
+    return fetchAllDrones().block();
   }
 
+  @Override
   public List<ServicePointDronesDto> getDronesForServicePoints() {
-    return validateResponse(
-        medSupplyDronesClient
-            .get()
-            .uri("/drones-for-service-points")
-            .retrieve()
-            .bodyToMono(new ParameterizedTypeReference<List<ServicePointDronesDto>>() {})
-            .block());
+    return fetchDronesForServicePoints().block();
   }
 
+  @Override
   public List<ServicePointDto> getServicePoints() {
-    return validateResponse(
-        medSupplyDronesClient
-            .get()
-            .uri("/service-points")
-            .retrieve()
-            .bodyToMono(new ParameterizedTypeReference<List<ServicePointDto>>() {})
-            .block());
+    return fetchServicePoints().block();
   }
 
+  @Override
   public List<RestrictedRegionDto> getRestrictedRegions() {
-    return validateResponse(
-        medSupplyDronesClient
-            .get()
-            .uri("/restricted-areas")
-            .retrieve()
-            .bodyToMono(new ParameterizedTypeReference<List<RestrictedRegionDto>>() {})
-            .block());
+    return fetchRestrictedRegions().block();
   }
 }
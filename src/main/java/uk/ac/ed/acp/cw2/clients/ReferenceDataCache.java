@@ -0,0 +1,120 @@
+package uk.ac.ed.acp.cw2.clients;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Holds the current ReferenceDataSnapshot. The snapshot is loaded once (on first use or by the
+// first scheduled run) and refreshed in the background, so request threads never wait on the ILP
+// data source after warm-up. A failed refresh keeps serving the previous snapshot.
+@Component
+public class ReferenceDataCache {
+  private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+  private final IlpDataSource dataSource;
+  private final AtomicReference<ReferenceDataSnapshot> current = new AtomicReference<>();
+  private final AtomicLong nextVersion = new AtomicLong(1);
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter refreshSuccesses;
+  private final Counter refreshFailures;
+  private final Timer loadTimer;
+
+  public ReferenceDataCache(IlpDataSource dataSource, MeterRegistry registry) {
+    this.dataSource = dataSource;
+    this.hits = registry.counter("ilp.reference-data.requests", "result", "hit");
+    this.misses = registry.counter("ilp.reference-data.requests", "result", "miss");
+    this.refreshSuccesses = registry.counter("ilp.reference-data.refreshes", "outcome", "success");
+    this.refreshFailures = registry.counter("ilp.reference-data.refreshes", "outcome", "failure");
+    this.loadTimer =
+        Timer.builder("ilp.reference-data.load")
+            .description("Time to fetch the ILP data and build a reference data snapshot")
+            .register(registry);
+    Gauge.builder("ilp.reference-data.version", this, cache -> cache.currentVersion())
+        .description("Version of the reference data snapshot being served")
+        .register(registry);
+    Gauge.builder("ilp.reference-data.age", this, cache -> cache.currentAgeSeconds())
+        .description("Seconds since the served reference data snapshot was loaded")
+        .baseUnit("seconds")
+        .register(registry);
+  }
+
+  // Returns the current snapshot, loading it synchronously only if nothing has been loaded yet
+  public ReferenceDataSnapshot current() {
+    ReferenceDataSnapshot snapshot = current.get();
+    if (snapshot != null) {
+      hits.increment();
+      return snapshot;
+    }
+    misses.increment();
+    return loadIfAbsent();
+  }
+
+  @Scheduled(
+      initialDelayString = "${ilp.reference-data.initial-delay-ms:0}",
+      fixedDelayString = "${ilp.reference-data.refresh-interval-ms:300000}")
+  public synchronized void refresh() {
+    try {
+      current.set(load());
+      refreshSuccesses.increment();
+    } catch (RuntimeException error) {
+      refreshFailures.increment();
+      logger.warn("Reference data refresh failed, keeping previous snapshot: {}", error.toString());
+    }
+  }
+
+  private synchronized ReferenceDataSnapshot loadIfAbsent() {
+    ReferenceDataSnapshot snapshot = current.get();
+    if (snapshot == null) {
+      snapshot = load();
+      current.set(snapshot);
+    }
+    return snapshot;
+  }
+
+  private ReferenceDataSnapshot load() {
+    return loadTimer.record(this::fetchSnapshot);
+  }
+
+  private ReferenceDataSnapshot fetchSnapshot() {
+    IlpReferenceData data = dataSource.fetchAll();
+    ReferenceDataSnapshot previous = current.get();
+    // Unchanged data keeps its version; the snapshot is still renewed so its age tracks the last
+    // successful refresh
+    long version =
+        previous != null && previous.holds(data)
+            ? previous.getVersion()
+            : nextVersion.getAndIncrement();
+    ReferenceDataSnapshot snapshot =
+        new ReferenceDataSnapshot(
+            version,
+            Instant.now(),
+            data.drones(),
+            data.dronesForServicePoints(),
+            data.servicePoints(),
+            data.restrictedRegions(),
+            previous);
+    logger.info("Loaded reference data snapshot version {}", snapshot.getVersion());
+    return snapshot;
+  }
+
+  private double currentVersion() {
+    ReferenceDataSnapshot snapshot = current.get();
+    return snapshot != null ? snapshot.getVersion() : 0;
+  }
+
+  private double currentAgeSeconds() {
+    ReferenceDataSnapshot snapshot = current.get();
+    return snapshot != null ? snapshot.age().toMillis() / 1000.0 : Double.NaN;
+  }
+}
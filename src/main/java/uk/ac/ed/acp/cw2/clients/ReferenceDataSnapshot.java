@@ -0,0 +1,77 @@
+package uk.ac.ed.acp.cw2.clients;
+
+import lombok.Getter;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.RestrictedRegionDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDronesDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+import uk.ac.ed.acp.cw2.service.fleet.AvailabilityIndex;
+import uk.ac.ed.acp.cw2.service.fleet.DroneLookup;
+import uk.ac.ed.acp.cw2.service.geometry.RestrictedRegionIndex;
+import uk.ac.ed.acp.cw2.service.geometry.ServicePointIndex;
+import uk.ac.ed.acp.cw2.service.query.CapabilityIndex;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Immutable, versioned copy of the ILP reference data. A new snapshot is built on every refresh
+// and swapped in atomically by ReferenceDataCache, so readers always see a consistent set of
+// drones, service points and restricted regions.
+@Getter
+public class ReferenceDataSnapshot {
+  private final long version;
+  private final Instant loadedAt;
+  private final List<DroneDto> allDrones;
+  private final List<ServicePointDronesDto> dronesForServicePoints;
+  private final List<ServicePointDto> servicePoints;
+  private final List<RestrictedRegionDto> restrictedRegions;
+
+  // Derived structures, built once per snapshot
+  private final RestrictedRegionIndex restrictedRegionIndex;
+  private final CapabilityIndex capabilityIndex;
+  private final DroneLookup droneLookup;
+  private final AvailabilityIndex availabilityIndex;
+  private final ServicePointIndex servicePointIndex;
+
+  public ReferenceDataSnapshot(
+      long version,
+      Instant loadedAt,
+      List<DroneDto> allDrones,
+      List<ServicePointDronesDto> dronesForServicePoints,
+      List<ServicePointDto> servicePoints,
+      List<RestrictedRegionDto> restrictedRegions,
+      ReferenceDataSnapshot previous) {
+    this.version = version;
+    this.loadedAt = loadedAt;
+    this.allDrones = List.copyOf(allDrones);
+    this.dronesForServicePoints = List.copyOf(dronesForServicePoints);
+    this.servicePoints = List.copyOf(servicePoints);
+    this.restrictedRegions = List.copyOf(restrictedRegions);
+    // Keep the previous indexes when their inputs are unchanged so caches keyed on them stay valid
+    this.restrictedRegionIndex =
+        previous != null && previous.restrictedRegions.equals(this.restrictedRegions)
+            ? previous.restrictedRegionIndex
+            : RestrictedRegionIndex.build(this.restrictedRegions);
+    this.capabilityIndex =
+        previous != null && previous.allDrones.equals(this.allDrones)
+            ? previous.capabilityIndex
+            : CapabilityIndex.build(this.allDrones);
+    this.droneLookup =
+        DroneLookup.build(this.allDrones, this.dronesForServicePoints, this.servicePoints);
+    this.availabilityIndex = AvailabilityIndex.build(this.allDrones, this.droneLookup);
+    this.servicePointIndex = ServicePointIndex.build(this.servicePoints);
+  }
+
+  // True if this snapshot was built from exactly the given data
+  boolean holds(IlpReferenceData data) {
+    return allDrones.equals(data.drones())
+        && dronesForServicePoints.equals(data.dronesForServicePoints())
+        && servicePoints.equals(data.servicePoints())
+        && restrictedRegions.equals(data.restrictedRegions());
+  }
+
+  public Duration age() {
+    return Duration.between(loadedAt, Instant.now());
+  }
+}
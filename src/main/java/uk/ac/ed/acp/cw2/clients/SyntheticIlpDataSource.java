@@ -0,0 +1,193 @@
+package uk.ac.ed.acp.cw2.clients;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.acp.cw2.dtos.*;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Generates a deterministic ILP data set of configurable size around central Edinburgh, for load
+// testing without the remote service. Restricted areas are star-shaped polygons placed clear of
+// every service point; drones are spread round-robin over the service points with daytime
+// availability on most days of the week. The data set is generated once and never changes.
+@Component
+@Profile("synthetic")
+public class SyntheticIlpDataSource implements IlpDataSource {
+  private static final double CENTRE_LNG = -3.19;
+  private static final double CENTRE_LAT = 55.945;
+  private static final double HALF_WIDTH = 0.03;
+  private static final double HALF_HEIGHT = 0.02;
+
+  private static final double MIN_REGION_RADIUS = 0.0005;
+  private static final double MAX_REGION_RADIUS = 0.002;
+
+  // Attempts at placing each restricted area before giving up on it
+  private static final int PLACEMENT_ATTEMPTS = 100;
+
+  private final List<DroneDto> drones;
+  private final List<ServicePointDronesDto> dronesForServicePoints;
+  private final List<ServicePointDto> servicePoints;
+  private final List<RestrictedRegionDto> restrictedRegions;
+
+  public SyntheticIlpDataSource(
+      @Value("${ilp.synthetic.drones:50}") int droneCount,
+      @Value("${ilp.synthetic.service-points:5}") int servicePointCount,
+      @Value("${ilp.synthetic.restricted-areas:20}") int restrictedAreaCount,
+      @Value("${ilp.synthetic.seed:42}") long seed) {
+    if (servicePointCount < 1 || droneCount < 0 || restrictedAreaCount < 0) {
+      throw new IllegalArgumentException(
+          "Synthetic ILP data needs a service point and non-negative counts");
+    }
+    Random random = new Random(seed);
+    this.servicePoints = List.copyOf(generateServicePoints(servicePointCount, random));
+    this.restrictedRegions =
+        List.copyOf(generateRestrictedRegions(restrictedAreaCount, servicePoints, random));
+    this.drones = List.copyOf(generateDrones(droneCount, random));
+    this.dronesForServicePoints =
+        List.copyOf(generateAvailability(drones, servicePoints, random));
+  }
+
+  @Override
+  public List<DroneDto> getAllDrones() {
+    return drones;
+  }
+
+  @Override
+  public List<ServicePointDronesDto> getDronesForServicePoints() {
+    return dronesForServicePoints;
+  }
+
+  @Override
+  public List<ServicePointDto> getServicePoints() {
+    return servicePoints;
+  }
+
+  @Override
+  public List<RestrictedRegionDto> getRestrictedRegions() {
+    return restrictedRegions;
+  }
+
+  private static List<ServicePointDto> generateServicePoints(int count, Random random) {
+    List<ServicePointDto> generated = new ArrayList<>();
+    for (int id = 1; id <= count; id++) {
+      LocationDto location =
+          new LocationDto(
+              CENTRE_LNG + (random.nextDouble() * 2 - 1) * HALF_WIDTH,
+              CENTRE_LAT + (random.nextDouble() * 2 - 1) * HALF_HEIGHT,
+              null);
+      generated.add(new ServicePointDto("Service Point " + id, id, location));
+    }
+    return generated;
+  }
+
+  private static List<RestrictedRegionDto> generateRestrictedRegions(
+      int count, List<ServicePointDto> servicePoints, Random random) {
+    List<RestrictedRegionDto> generated = new ArrayList<>();
+    for (int id = 1; id <= count; id++) {
+      for (int attempt = 0; attempt < PLACEMENT_ATTEMPTS; attempt++) {
+        double centreLng = CENTRE_LNG + (random.nextDouble() * 2 - 1) * HALF_WIDTH;
+        double centreLat = CENTRE_LAT + (random.nextDouble() * 2 - 1) * HALF_HEIGHT;
+        double radius =
+            MIN_REGION_RADIUS + random.nextDouble() * (MAX_REGION_RADIUS - MIN_REGION_RADIUS);
+        if (nearServicePoint(centreLng, centreLat, 2 * radius, servicePoints)) {
+          continue;
+        }
+        generated.add(
+            new RestrictedRegionDto(
+                "Restricted Area " + id,
+                id,
+                new LimitsDto(0, -1),
+                starPolygon(centreLng, centreLat, radius, random)));
+        break;
+      }
+    }
+    return generated;
+  }
+
+  // Vertices at evenly spaced, jittered angles and radii, so the polygon is always simple.
+  // The ring is closed by repeating the first vertex, as the ILP service does.
+  private static List<LocationDto> starPolygon(
+      double centreLng, double centreLat, double radius, Random random) {
+    int vertexCount = 4 + random.nextInt(5);
+    double step = 2 * Math.PI / vertexCount;
+    List<LocationDto> vertices = new ArrayList<>();
+    for (int i = 0; i < vertexCount; i++) {
+      double angle = i * step + random.nextDouble() * step * 0.5;
+      double r = radius * (0.6 + random.nextDouble() * 0.4);
+      vertices.add(
+          new LocationDto(
+              centreLng + r * Math.cos(angle), centreLat + r * Math.sin(angle), null));
+    }
+    vertices.add(vertices.getFirst());
+    return vertices;
+  }
+
+  private static boolean nearServicePoint(
+      double lng, double lat, double clearance, List<ServicePointDto> servicePoints) {
+    for (ServicePointDto servicePoint : servicePoints) {
+      double dx = servicePoint.getLocation().getLng() - lng;
+      double dy = servicePoint.getLocation().getLat() - lat;
+      if (Math.sqrt(dx * dx + dy * dy) < clearance) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Drone ids are numeric strings, like the ILP service's
+  private static List<DroneDto> generateDrones(int count, Random random) {
+    List<DroneDto> generated = new ArrayList<>();
+    for (int id = 1; id <= count; id++) {
+      CapabilityDto capability =
+          new CapabilityDto(
+              random.nextDouble() < 0.3,
+              random.nextDouble() < 0.3,
+              round(4 + random.nextDouble() * 16),
+              1000 + random.nextInt(3001),
+              round(0.01 + random.nextDouble() * 0.04),
+              round(0.5 + random.nextDouble() * 3.5),
+              round(0.5 + random.nextDouble() * 3.5));
+      generated.add(new DroneDto("Drone " + id, String.valueOf(id), capability));
+    }
+    return generated;
+  }
+
+  private static List<ServicePointDronesDto> generateAvailability(
+      List<DroneDto> drones, List<ServicePointDto> servicePoints, Random random) {
+    List<List<DroneAvailabilityDto>> perServicePoint = new ArrayList<>();
+    for (int i = 0; i < servicePoints.size(); i++) {
+      perServicePoint.add(new ArrayList<>());
+    }
+    for (int i = 0; i < drones.size(); i++) {
+      List<AvailabilityDto> availability = new ArrayList<>();
+      for (DayOfWeek day : DayOfWeek.values()) {
+        if (random.nextDouble() < 0.8) {
+          int from = random.nextInt(12);
+          int until = from + 8 + random.nextInt(5);
+          availability.add(new AvailabilityDto(day.name(), hour(from), hour(until)));
+        }
+      }
+      perServicePoint
+          .get(i % servicePoints.size())
+          .add(new DroneAvailabilityDto(drones.get(i).getId(), availability));
+    }
+    List<ServicePointDronesDto> generated = new ArrayList<>();
+    for (int i = 0; i < servicePoints.size(); i++) {
+      generated.add(
+          new ServicePointDronesDto(servicePoints.get(i).getId(), perServicePoint.get(i)));
+    }
+    return generated;
+  }
+
+  private static String hour(int hour) {
+    return String.format("%02d:00:00", hour);
+  }
+
+  private static double round(double value) {
+    return Math.round(value * 100) / 100.0;
+  }
+}
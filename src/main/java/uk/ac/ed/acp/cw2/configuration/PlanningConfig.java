@@ -0,0 +1,20 @@
+package uk.ac.ed.acp.cw2.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class PlanningConfig {
+
+  // Bounded pool for CPU-bound route planning, shared by all requests
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService planningExecutor(
+      @Value("${ilp.planning.parallelism:0}") int parallelism) {
+    int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    return new ForkJoinPool(threads);
+  }
+}
@@ -0,0 +1,24 @@
+package uk.ac.ed.acp.cw2.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import uk.ac.ed.acp.cw2.controller.PolylineRouteMessageConverter;
+
+import java.util.List;
+
+@Configuration
+public class RouteEncodingConfig implements WebMvcConfigurer {
+  private final ObjectMapper objectMapper;
+
+  public RouteEncodingConfig(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  // Appended after the default converters so requests accepting */* still get plain JSON
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new PolylineRouteMessageConverter(objectMapper.getFactory()));
+  }
+}
@@ -0,0 +1,50 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import uk.ac.ed.acp.cw2.dtos.MedDispatchRecDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+// Reads MedDispatchRecDtos one at a time from an NDJSON request body, validating each as it is
+// read, so the request is never materialised as a whole. Malformed or invalid records surface as
+// 400 ResponseStatusExceptions from hasNext or next.
+class DispatchRecordStream implements Iterator<MedDispatchRecDto> {
+  private final MappingIterator<MedDispatchRecDto> records;
+  private final Validator validator;
+
+  DispatchRecordStream(InputStream body, ObjectMapper objectMapper, Validator validator)
+      throws IOException {
+    this.records = objectMapper.readerFor(MedDispatchRecDto.class).readValues(body);
+    this.validator = validator;
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      return records.hasNext();
+    } catch (RuntimeException error) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed dispatch record");
+    }
+  }
+
+  @Override
+  public MedDispatchRecDto next() {
+    MedDispatchRecDto record;
+    try {
+      record = records.next();
+    } catch (RuntimeException error) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed dispatch record");
+    }
+    if (!validator.validate(record).isEmpty()) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "Invalid dispatch record " + record.getId());
+    }
+    return record;
+  }
+}
@@ -0,0 +1,75 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DeliveryPathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DronePathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.OverallRouteDto;
+import uk.ac.ed.acp.cw2.service.Polyline;
+
+import java.io.IOException;
+
+// Compact encoding of OverallRouteDto, chosen by requesting it in the Accept header. The JSON has
+// the usual shape except that each flightPath is a polyline6 string (see Polyline) instead of an
+// array of position objects, which makes route responses roughly ten times smaller. Clients that
+// do not ask for it keep getting plain JSON. The media type deliberately has no +json suffix, as
+// Jackson's converter claims every application/*+json type.
+public class PolylineRouteMessageConverter extends AbstractHttpMessageConverter<OverallRouteDto> {
+  public static final MediaType POLYLINE_ROUTE =
+      MediaType.parseMediaType("application/vnd.ilp.route.polyline6");
+
+  private final JsonFactory jsonFactory;
+
+  public PolylineRouteMessageConverter(JsonFactory jsonFactory) {
+    super(POLYLINE_ROUTE);
+    this.jsonFactory = jsonFactory;
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return OverallRouteDto.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  protected boolean canRead(MediaType mediaType) {
+    return false; // response encoding only
+  }
+
+  @Override
+  protected OverallRouteDto readInternal(
+      Class<? extends OverallRouteDto> clazz, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("Polyline routes cannot be read", inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(OverallRouteDto route, HttpOutputMessage outputMessage)
+      throws IOException {
+    try (JsonGenerator generator = jsonFactory.createGenerator(outputMessage.getBody())) {
+      generator.writeStartObject();
+      generator.writeNumberField("totalCost", route.getTotalCost());
+      generator.writeNumberField("totalMoves", route.getTotalMoves());
+      generator.writeArrayFieldStart("dronePaths");
+      for (DronePathDto dronePath : route.getDronePaths()) {
+        generator.writeStartObject();
+        generator.writeNumberField("droneId", dronePath.getDroneId());
+        generator.writeArrayFieldStart("deliveries");
+        for (DeliveryPathDto delivery : dronePath.getDeliveries()) {
+          generator.writeStartObject();
+          generator.writeNumberField("deliveryId", delivery.getDeliveryId());
+          generator.writeStringField(
+              "flightPath", Polyline.encode(delivery.getFlightPath(), Polyline.DEFAULT_PRECISION));
+          generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+  }
+}
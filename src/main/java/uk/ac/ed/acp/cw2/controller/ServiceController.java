@@ -1,9 +1,14 @@
 package uk.ac.ed.acp.cw2.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Validator;
 import uk.ac.ed.acp.cw2.dtos.*;
 import uk.ac.ed.acp.cw2.dtos.deliveries.OverallRouteDto;
 import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+import uk.ac.ed.acp.cw2.service.GeoJsonWriter;
+import uk.ac.ed.acp.cw2.service.Astar.Waypoints;
 
 import jakarta.validation.Valid;
 
@@ -11,12 +16,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import uk.ac.ed.acp.cw2.service.DynamicQueries;
 import uk.ac.ed.acp.cw2.service.StaticQueries;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller class that handles various HTTP endpoints for the application. Provides functionality
@@ -33,13 +45,25 @@ public class ServiceController {
   @Value("${ilp.service.url}")
   public URL serviceUrl;
 
+  // Dispatch records planned together per chunk by the streaming calcDeliveryPath endpoint
+  @Value("${ilp.planning.stream-chunk-size:500}")
+  public int streamChunkSize;
+
   // Inject StaticQueries & DynamicQueries Service beans
   private final StaticQueries staticQueries;
   private final DynamicQueries dynamicQueries;
-
-  public ServiceController(StaticQueries staticQueries, DynamicQueries dynamicQueries) {
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+
+  public ServiceController(
+      StaticQueries staticQueries,
+      DynamicQueries dynamicQueries,
+      ObjectMapper objectMapper,
+      Validator validator) {
     this.staticQueries = staticQueries;
     this.dynamicQueries = dynamicQueries;
+    this.objectMapper = objectMapper;
+    this.validator = validator;
   }
 
   @GetMapping("/")
@@ -111,15 +135,85 @@ public class ServiceController {
     return dynamicQueries.findAvailableDrones(medDispatchRecDtos, false);
   }
 
+  // ?waypoints=true replaces each full-step flight path with its waypoints (see Waypoints)
   @PostMapping("/calcDeliveryPath")
   public OverallRouteDto calcDeliveryPath(
-      @RequestBody List<@Valid MedDispatchRecDto> medDispatchRecDtos) {
-    return dynamicQueries.calcDeliveryPath(medDispatchRecDtos, false);
+      @RequestBody List<@Valid MedDispatchRecDto> medDispatchRecDtos,
+      @RequestParam(defaultValue = "false") boolean waypoints) {
+    OverallRouteDto overallRoute = dynamicQueries.calcDeliveryPath(medDispatchRecDtos, false);
+    return waypoints ? Waypoints.compress(overallRoute) : overallRoute;
+  }
+
+  // NDJSON variant of calcDeliveryPath for very large batches: one MedDispatchRecDto per request
+  // line is read incrementally, and one StreamedDeliveryDto per response line is written and
+  // flushed as soon as its flight is planned. Errors before the first line is written are
+  // reported with the usual status; later ones end the stream with an {"error": ...} line.
+  @PostMapping(
+      path = "/calcDeliveryPath/stream",
+      consumes = MediaType.APPLICATION_NDJSON_VALUE,
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public void calcDeliveryPathStream(
+      InputStream body,
+      @RequestParam(defaultValue = "false") boolean waypoints,
+      HttpServletResponse response)
+      throws IOException {
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    OutputStream out = response.getOutputStream();
+    try {
+      dynamicQueries.streamDeliveryPaths(
+          new DispatchRecordStream(body, objectMapper, validator),
+          streamChunkSize,
+          delivery -> {
+            if (waypoints) {
+              delivery.setFlightPath(Waypoints.compress(delivery.getFlightPath()));
+            }
+            writeLine(out, delivery);
+          });
+    } catch (UncheckedIOException error) {
+      throw error.getCause(); // client went away
+    } catch (RuntimeException error) {
+      if (!response.isCommitted()) {
+        response.reset(); // drop the NDJSON content type so the error body can be rendered
+        throw error;
+      }
+      logger.warn("calcDeliveryPath stream aborted", error);
+      String reason =
+          error instanceof ResponseStatusException statusError && statusError.getReason() != null
+              ? statusError.getReason()
+              : "Delivery planning failed";
+      writeLine(out, Map.of("error", reason));
+    }
+  }
+
+  private void writeLine(OutputStream out, Object value) {
+    try {
+      out.write(objectMapper.writeValueAsBytes(value));
+      out.write('\n');
+      out.flush();
+    } catch (IOException error) {
+      throw new UncheckedIOException(error);
+    }
   }
 
+  // The GeoJSON is written straight to the response as it is generated. Coordinates keep full
+  // precision unless ?precision=n asks for them to be rounded to n decimal places, and
+  // ?waypoints=true draws each LineString through its waypoints only.
   @PostMapping("/calcDeliveryPathAsGeoJson")
-  public JsonNode calcDeliveryPathAsGeoJson(
-      @RequestBody List<@Valid MedDispatchRecDto> medDispatchRecDtos) {
-    return dynamicQueries.calcDeliveryPathAsGeoJson(medDispatchRecDtos);
+  public void calcDeliveryPathAsGeoJson(
+      @RequestBody List<@Valid MedDispatchRecDto> medDispatchRecDtos,
+      @RequestParam(defaultValue = "-1") int precision,
+      @RequestParam(defaultValue = "false") boolean waypoints,
+      HttpServletResponse response)
+      throws IOException {
+    GeoJsonWriter writer = new GeoJsonWriter(precision);
+    OverallRouteDto overallRoute = dynamicQueries.calcDeliveryPath(medDispatchRecDtos, true);
+    if (waypoints) {
+      Waypoints.compress(overallRoute);
+    }
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    try (JsonGenerator generator =
+        objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+      writer.write(overallRoute, generator);
+    }
   }
 }
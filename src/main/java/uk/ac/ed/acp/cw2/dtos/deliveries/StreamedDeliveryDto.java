@@ -0,0 +1,27 @@
+package uk.ac.ed.acp.cw2.dtos.deliveries;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import jakarta.validation.constraints.NotNull;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+
+import java.util.List;
+
+// One line of the NDJSON calcDeliveryPath stream: a single planned delivery flight together with
+// the drone flying it and its share of the totals OverallRouteDto would report
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamedDeliveryDto {
+
+  @NotNull Integer droneId;
+
+  @NotNull Integer deliveryId;
+
+  @NotNull Double cost;
+
+  @NotNull Integer moves;
+
+  @NotNull List<PositionDto> flightPath;
+}
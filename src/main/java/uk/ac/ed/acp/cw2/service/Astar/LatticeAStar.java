@@ -0,0 +1,350 @@
+package uk.ac.ed.acp.cw2.service.Astar;
+
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+import uk.ac.ed.acp.cw2.service.geometry.RestrictedRegionIndex;
+import uk.ac.ed.acp.cw2.service.geometry.VisibilityGraph;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Allocation-light A* over the 16-direction move lattice. Every move has the same length, so a
+// position is identified by its quantised offset from the search root (see LatticeFrontier) and all
+// search state is kept in primitive arrays. PositionDtos are only created for the final path.
+//
+// The heuristic is the straight-line distance to the target, or with visibilityHeuristic the
+// obstacle-aware lower bound from the restricted regions' VisibilityGraph, which stops the search
+// flooding the area in front of a no-fly zone that lies between start and goal. That bound assumes
+// no move cuts through a region, so it is only used together with segmentChecks. It costs a
+// visibility test per corner, so nodes are pushed with the straight-line estimate and get their
+// bound, cached per node, when they first reach the top of the open set (see deferForBound).
+//
+// Instances hold per-search scratch state and are not thread-safe; create one per leg.
+public final class LatticeAStar {
+  private static final double MOVE_DISTANCE = CalculatePositioning.MOVE_DISTANCE;
+
+  private static final double HEURISTIC_WEIGHT = 1.2;
+
+  private static final int DIRECTIONS = CalculatePositioning.DIRECTION_COUNT;
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final RestrictedRegionIndex restrictedRegions;
+  private final boolean segmentChecks;
+  private final boolean visibilityHeuristic;
+
+  // Work done by this instance's searches, for metrics, benchmarks and tests
+  private int expandedNodes;
+  private int openSetPeak;
+  private int regionChecks;
+  private int boundEvaluations;
+
+  // Neighbour positions of the node being expanded, filled from the direction table
+  private final double[] neighbourBuffer = new double[2 * DIRECTIONS];
+
+  public LatticeAStar(RestrictedRegionIndex restrictedRegions, boolean segmentChecks) {
+    this(restrictedRegions, segmentChecks, false);
+  }
+
+  public LatticeAStar(
+      RestrictedRegionIndex restrictedRegions,
+      boolean segmentChecks,
+      boolean visibilityHeuristic) {
+    this.restrictedRegions = restrictedRegions;
+    this.segmentChecks = segmentChecks;
+    this.visibilityHeuristic = visibilityHeuristic;
+  }
+
+  public int expandedNodes() {
+    return expandedNodes;
+  }
+
+  // Largest number of entries the open set(s) held at once, stale entries included
+  public int openSetPeak() {
+    return openSetPeak;
+  }
+
+  // Moves tested against the restricted regions
+  public int regionChecks() {
+    return regionChecks;
+  }
+
+  // Obstacle-aware lower bounds computed, at most one per node
+  public int boundEvaluations() {
+    return boundEvaluations;
+  }
+
+  // Searches from start until a node within the isCloseTo tolerance of goal is expanded
+  public AStarResult search(
+      PositionDto start, PositionDto goal, int maxMovesAvailable, double costPerMove) {
+    double goalX = goal.getLng();
+    double goalY = goal.getLat();
+    VisibilityGraph.DistanceField toGoal = distanceField(goalX, goalY);
+    LatticeFrontier forward =
+        new LatticeFrontier(start.getLng(), start.getLat(), INITIAL_CAPACITY);
+    forward.addRoot(
+        HEURISTIC_WEIGHT * heuristic(start.getLng(), start.getLat(), goalX, goalY, costPerMove));
+
+    while (forward.heapSize > 0) {
+      int current = forward.popLive();
+      if (current < 0) {
+        continue;
+      }
+      if (distance(forward.xs[current], forward.ys[current], goalX, goalY) < MOVE_DISTANCE) {
+        return new AStarResult(
+            reconstructPath(forward, current, goal),
+            forward.movesUsed[current],
+            forward.gCosts[current],
+            true);
+      }
+      if (deferForBound(forward, current, toGoal, costPerMove)) {
+        continue;
+      }
+      expand(forward, current, goalX, goalY, toGoal, maxMovesAvailable, costPerMove);
+      openSetPeak = Math.max(openSetPeak, forward.heapSize);
+    }
+    return noPath();
+  }
+
+  // Grows one frontier from start and one from goal, alternating expansions, until an expanded
+  // node lies within one move of a node discovered by the other side. The goal-side chain is then
+  // replayed from the meeting node (shifted by less than one move, and re-checked against the
+  // restricted regions), so every move in the result is still a lattice move and the path ends
+  // within the isCloseTo tolerance of goal, exactly like search.
+  public AStarResult searchBidirectional(
+      PositionDto start, PositionDto goal, int maxMovesAvailable, double costPerMove) {
+    double startX = start.getLng();
+    double startY = start.getLat();
+    double goalX = goal.getLng();
+    double goalY = goal.getLat();
+    LatticeFrontier forward =
+        new LatticeFrontier(
+            startX, startY, INITIAL_CAPACITY, true, startX, startY, MOVE_DISTANCE);
+    LatticeFrontier backward =
+        new LatticeFrontier(goalX, goalY, INITIAL_CAPACITY, true, startX, startY, MOVE_DISTANCE);
+    VisibilityGraph.DistanceField toGoal = distanceField(goalX, goalY);
+    VisibilityGraph.DistanceField toStart = distanceField(startX, startY);
+    forward.addRoot(HEURISTIC_WEIGHT * heuristic(startX, startY, goalX, goalY, costPerMove));
+    backward.addRoot(HEURISTIC_WEIGHT * heuristic(goalX, goalY, startX, startY, costPerMove));
+
+    boolean forwardTurn = true;
+    while (forward.heapSize > 0 || backward.heapSize > 0) {
+      boolean expandForward = backward.heapSize == 0 || (forwardTurn && forward.heapSize > 0);
+      forwardTurn = !forwardTurn;
+      LatticeFrontier active = expandForward ? forward : backward;
+      LatticeFrontier other = expandForward ? backward : forward;
+
+      int current = active.popLive();
+      if (current < 0
+          || deferForBound(active, current, expandForward ? toGoal : toStart, costPerMove)) {
+        continue;
+      }
+      double x = active.xs[current];
+      double y = active.ys[current];
+
+      // Look for a node of the other frontier within one move of the expanded node
+      long cx = other.cellX(x);
+      long cy = other.cellY(y);
+      for (long i = cx - 1; i <= cx + 1; i++) {
+        for (long j = cy - 1; j <= cy + 1; j++) {
+          for (int candidate = other.cellHead(i, j);
+              candidate >= 0;
+              candidate = other.nextInCell(candidate)) {
+            if (distance(x, y, other.xs[candidate], other.ys[candidate]) >= MOVE_DISTANCE
+                || active.movesUsed[current] + other.movesUsed[candidate] > maxMovesAvailable) {
+              continue;
+            }
+            List<PositionDto> path =
+                expandForward
+                    ? joinPaths(forward, current, backward, candidate, goal)
+                    : joinPaths(forward, candidate, backward, current, goal);
+            if (path != null) {
+              return new AStarResult(
+                  path,
+                  path.size() - 1,
+                  active.gCosts[current] + other.gCosts[candidate],
+                  true);
+            }
+          }
+        }
+      }
+
+      if (expandForward) {
+        expand(forward, current, goalX, goalY, toGoal, maxMovesAvailable, costPerMove);
+      } else {
+        expand(backward, current, startX, startY, toStart, maxMovesAvailable, costPerMove);
+      }
+      openSetPeak = Math.max(openSetPeak, forward.heapSize + backward.heapSize);
+    }
+    return noPath();
+  }
+
+  // Pushes the unrestricted, improved neighbours of node onto the frontier's open set
+  private void expand(
+      LatticeFrontier frontier,
+      int node,
+      double targetX,
+      double targetY,
+      VisibilityGraph.DistanceField toTarget,
+      int maxMovesAvailable,
+      double costPerMove) {
+    expandedNodes++;
+    double x = frontier.xs[node];
+    double y = frontier.ys[node];
+    // The obstacle-aware bound also prunes the far side of a no-fly zone the budget cannot get
+    // round, so a leg that does not fit fails without flooding the lattice in front of it. Nodes
+    // are only expanded after deferForBound, so the bound is already cached.
+    double distanceToTarget =
+        toTarget != null ? frontier.bounds[node] : distance(x, y, targetX, targetY);
+    int optimisticRemainingMoves = (int) Math.ceil(distanceToTarget / MOVE_DISTANCE);
+    int tentativeMovesUsed = frontier.movesUsed[node] + 1;
+    if (frontier.movesUsed[node] + optimisticRemainingMoves > maxMovesAvailable
+        || tentativeMovesUsed > maxMovesAvailable) {
+      return;
+    }
+    double tentativeG = frontier.gCosts[node] + costPerMove;
+
+    // Every neighbour is one move away, so a node clear of all regions needs no per-move checks
+    boolean nearRegion = restrictedRegions.near(x, y, MOVE_DISTANCE);
+    CalculatePositioning.neighbours(x, y, false, neighbourBuffer);
+    for (int d = 0; d < DIRECTIONS; d++) {
+      double nx = neighbourBuffer[2 * d];
+      double ny = neighbourBuffer[2 * d + 1];
+
+      if (nearRegion && isRestricted(x, y, nx, ny)) {
+        continue;
+      }
+
+      long key = frontier.latticeKey(nx, ny);
+      int neighbour = frontier.find(key);
+      if (neighbour >= 0 && frontier.gCosts[neighbour] <= tentativeG) {
+        continue;
+      }
+      if (neighbour < 0) {
+        neighbour = frontier.addNode(key, nx, ny);
+      } else {
+        frontier.xs[neighbour] = nx;
+        frontier.ys[neighbour] = ny;
+      }
+      frontier.gCosts[neighbour] = tentativeG;
+      frontier.parents[neighbour] = node;
+      frontier.movesUsed[neighbour] = tentativeMovesUsed;
+      double bound = frontier.bounds[neighbour];
+      double estimate =
+          Double.isNaN(bound)
+              ? heuristic(nx, ny, targetX, targetY, costPerMove)
+              : bound / MOVE_DISTANCE * costPerMove;
+      frontier.fCosts[neighbour] = tentativeG + HEURISTIC_WEIGHT * estimate;
+      frontier.push(neighbour, frontier.fCosts[neighbour]);
+    }
+  }
+
+  // Computes and caches the obstacle-aware bound of a node popped for the first time. The bound is
+  // never below the straight-line distance it was pushed with; if it raises the node's f-cost the
+  // node goes back on the open set and true is returned. Only nodes that reach the top of the open
+  // set pay for a bound, instead of every neighbour discovered, and none pays twice.
+  private boolean deferForBound(
+      LatticeFrontier frontier,
+      int node,
+      VisibilityGraph.DistanceField toTarget,
+      double costPerMove) {
+    if (toTarget == null || !Double.isNaN(frontier.bounds[node])) {
+      return false;
+    }
+    boundEvaluations++;
+    double bound = toTarget.lowerBound(frontier.xs[node], frontier.ys[node]);
+    frontier.bounds[node] = bound;
+    double fCost =
+        frontier.gCosts[node] + HEURISTIC_WEIGHT * bound / MOVE_DISTANCE * costPerMove;
+    if (fCost <= frontier.fCosts[node]) {
+      return false;
+    }
+    frontier.fCosts[node] = fCost;
+    frontier.push(node, fCost);
+    return true;
+  }
+
+  private boolean isRestricted(double x, double y, double nx, double ny) {
+    regionChecks++;
+    return segmentChecks
+        ? restrictedRegions.crossesSegment(x, y, nx, ny)
+        : restrictedRegions.contains(nx, ny);
+  }
+
+  // Walks parent links once, filling the path from the back; the final point snaps to the goal
+  private static List<PositionDto> reconstructPath(
+      LatticeFrontier frontier, int goalNode, PositionDto goal) {
+    PositionDto[] path = new PositionDto[frontier.movesUsed[goalNode] + 1];
+    int node = goalNode;
+    for (int i = path.length - 1; i >= 0; i--) {
+      path[i] = new PositionDto(frontier.xs[node], frontier.ys[node]);
+      node = frontier.parents[node];
+    }
+    path[path.length - 1] = goal;
+    return Arrays.asList(path);
+  }
+
+  // Forward path to meet, followed by the goal-side chain from meetBackward replayed from meet.
+  // Returns null if a replayed move would enter a restricted region.
+  private List<PositionDto> joinPaths(
+      LatticeFrontier forward,
+      int meet,
+      LatticeFrontier backward,
+      int meetBackward,
+      PositionDto goal) {
+    int forwardMoves = forward.movesUsed[meet];
+    int backwardMoves = backward.movesUsed[meetBackward];
+    PositionDto[] path = new PositionDto[forwardMoves + backwardMoves + 1];
+
+    int node = meet;
+    for (int i = forwardMoves; i >= 0; i--) {
+      path[i] = new PositionDto(forward.xs[node], forward.ys[node]);
+      node = forward.parents[node];
+    }
+
+    double offsetX = forward.xs[meet] - backward.xs[meetBackward];
+    double offsetY = forward.ys[meet] - backward.ys[meetBackward];
+    double previousX = forward.xs[meet];
+    double previousY = forward.ys[meet];
+    node = backward.parents[meetBackward];
+    for (int i = forwardMoves + 1; i < path.length; i++) {
+      double x = backward.xs[node] + offsetX;
+      double y = backward.ys[node] + offsetY;
+      if (isRestricted(previousX, previousY, x, y)) {
+        return null;
+      }
+      path[i] = new PositionDto(x, y);
+      previousX = x;
+      previousY = y;
+      node = backward.parents[node];
+    }
+    path[path.length - 1] = goal;
+    return Arrays.asList(path);
+  }
+
+  private static AStarResult noPath() {
+    return new AStarResult(Collections.emptyList(), 0, Double.POSITIVE_INFINITY, false);
+  }
+
+  // Obstacle-aware distances to the target, or null for the straight-line heuristic. With
+  // point-only checks a move may clip a corner, so paths can be shorter than the bound and pruning
+  // with it would reject legs that fit the budget.
+  private VisibilityGraph.DistanceField distanceField(double targetX, double targetY) {
+    return visibilityHeuristic && segmentChecks && restrictedRegions.size() > 0
+        ? restrictedRegions.visibilityGraph().distancesTo(targetX, targetY)
+        : null;
+  }
+
+  // Straight-line estimate, used until a node's obstacle-aware bound is known
+  private static double heuristic(
+      double x, double y, double goalX, double goalY, double costPerMove) {
+    return distance(x, y, goalX, goalY) / MOVE_DISTANCE * costPerMove;
+  }
+
+  private static double distance(double x1, double y1, double x2, double y2) {
+    double dx = x1 - x2;
+    double dy = y1 - y2;
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+}
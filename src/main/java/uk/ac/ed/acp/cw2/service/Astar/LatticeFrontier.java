@@ -0,0 +1,293 @@
+package uk.ac.ed.acp.cw2.service.Astar;
+
+import java.util.Arrays;
+
+// Primitive search state for one direction of a LatticeAStar search. Positions are identified by
+// their offset from the frontier's root, quantised to QUANTUM degrees and packed into a long key.
+// Node state lives in parallel arrays indexed by node id, visited positions in an open-addressing
+// long -> int table and the open set in a binary heap of node ids.
+//
+// Bidirectional searches additionally bucket nodes into MOVE_DISTANCE sized cells anchored at a
+// shared origin, so the opposite frontier can find nodes within one move of a position.
+final class LatticeFrontier {
+  private static final double QUANTUM = 1e-6;
+
+  private final double rootX;
+  private final double rootY;
+
+  // Node storage, indexed by node id
+  double[] xs;
+  double[] ys;
+  double[] gCosts;
+  double[] fCosts;
+  int[] parents;
+  int[] movesUsed;
+  // Obstacle-aware distance to the target, NaN until LatticeAStar first needs it
+  double[] bounds;
+  int nodeCount;
+
+  // Open-addressing table from packed lattice key to node id (-1 marks an empty slot)
+  private long[] tableKeys;
+  private int[] tableNodes;
+  private int tableMask;
+
+  // Binary min-heap of node ids keyed by the f-cost they were pushed with
+  private int[] heapNodes;
+  private double[] heapPriorities;
+  int heapSize;
+
+  // Optional proximity cells: cell key -> first node id, chained through nextInCell
+  private final boolean trackCells;
+  private final double cellOriginX;
+  private final double cellOriginY;
+  private final double cellSize;
+  private long[] cellKeys;
+  private int[] cellHeads;
+  private int cellMask;
+  private int cellCount;
+  private int[] nextInCell;
+
+  LatticeFrontier(double rootX, double rootY, int capacity) {
+    this(rootX, rootY, capacity, false, 0, 0, 0);
+  }
+
+  LatticeFrontier(
+      double rootX,
+      double rootY,
+      int capacity,
+      boolean trackCells,
+      double cellOriginX,
+      double cellOriginY,
+      double cellSize) {
+    this.rootX = rootX;
+    this.rootY = rootY;
+    xs = new double[capacity];
+    ys = new double[capacity];
+    gCosts = new double[capacity];
+    fCosts = new double[capacity];
+    parents = new int[capacity];
+    movesUsed = new int[capacity];
+    bounds = new double[capacity];
+
+    tableKeys = new long[capacity * 2];
+    tableNodes = new int[capacity * 2];
+    Arrays.fill(tableNodes, -1);
+    tableMask = capacity * 2 - 1;
+
+    heapNodes = new int[capacity];
+    heapPriorities = new double[capacity];
+
+    this.trackCells = trackCells;
+    this.cellOriginX = cellOriginX;
+    this.cellOriginY = cellOriginY;
+    this.cellSize = cellSize;
+    if (trackCells) {
+      cellKeys = new long[capacity * 2];
+      cellHeads = new int[capacity * 2];
+      Arrays.fill(cellHeads, -1);
+      cellMask = capacity * 2 - 1;
+      nextInCell = new int[capacity];
+    }
+  }
+
+  long latticeKey(double x, double y) {
+    long qx = Math.round((x - rootX) / QUANTUM);
+    long qy = Math.round((y - rootY) / QUANTUM);
+    return (qx << 32) | (qy & 0xffffffffL);
+  }
+
+  // Adds the root node and seeds the open set with it
+  int addRoot(double priority) {
+    int root = addNode(0L, rootX, rootY);
+    gCosts[root] = 0.0;
+    fCosts[root] = priority;
+    parents[root] = -1;
+    movesUsed[root] = 0;
+    push(root, priority);
+    return root;
+  }
+
+  int addNode(long key, double x, double y) {
+    if (nodeCount == xs.length) {
+      growNodes();
+    }
+    int node = nodeCount++;
+    xs[node] = x;
+    ys[node] = y;
+    bounds[node] = Double.NaN;
+    insert(key, node);
+    if (trackCells) {
+      addToCell(node, x, y);
+    }
+    return node;
+  }
+
+  // Pops the best open node, or returns -1 for a stale entry left behind when a cheaper route to
+  // the node was found after it had been pushed
+  int popLive() {
+    double priority = heapPriorities[0];
+    int node = pop();
+    return priority > fCosts[node] ? -1 : node;
+  }
+
+  private void growNodes() {
+    int capacity = xs.length * 2;
+    xs = Arrays.copyOf(xs, capacity);
+    ys = Arrays.copyOf(ys, capacity);
+    gCosts = Arrays.copyOf(gCosts, capacity);
+    fCosts = Arrays.copyOf(fCosts, capacity);
+    parents = Arrays.copyOf(parents, capacity);
+    movesUsed = Arrays.copyOf(movesUsed, capacity);
+    bounds = Arrays.copyOf(bounds, capacity);
+    if (trackCells) {
+      nextInCell = Arrays.copyOf(nextInCell, capacity);
+    }
+  }
+
+  /* Open-addressing key table, kept at most half full */
+
+  int find(long key) {
+    int slot = slotFor(key, tableMask);
+    while (tableNodes[slot] >= 0) {
+      if (tableKeys[slot] == key) {
+        return tableNodes[slot];
+      }
+      slot = (slot + 1) & tableMask;
+    }
+    return -1;
+  }
+
+  private void insert(long key, int node) {
+    if (nodeCount * 2 > tableMask) {
+      long[] oldKeys = tableKeys;
+      int[] oldNodes = tableNodes;
+      tableKeys = new long[oldKeys.length * 2];
+      tableNodes = new int[oldNodes.length * 2];
+      Arrays.fill(tableNodes, -1);
+      tableMask = tableKeys.length - 1;
+      for (int i = 0; i < oldNodes.length; i++) {
+        if (oldNodes[i] >= 0) {
+          place(tableKeys, tableNodes, tableMask, oldKeys[i], oldNodes[i]);
+        }
+      }
+    }
+    place(tableKeys, tableNodes, tableMask, key, node);
+  }
+
+  private static void place(long[] keys, int[] values, int mask, long key, int value) {
+    int slot = slotFor(key, mask);
+    while (values[slot] >= 0) {
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+  }
+
+  private static int slotFor(long key, int mask) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  /* Proximity cells */
+
+  private long cellKey(long cx, long cy) {
+    return (cx << 32) | (cy & 0xffffffffL);
+  }
+
+  private void addToCell(int node, double x, double y) {
+    long key = cellKey(cellX(x), cellY(y));
+    int slot = slotFor(key, cellMask);
+    while (cellHeads[slot] >= 0) {
+      if (cellKeys[slot] == key) {
+        nextInCell[node] = cellHeads[slot];
+        cellHeads[slot] = node;
+        return;
+      }
+      slot = (slot + 1) & cellMask;
+    }
+    if (++cellCount * 2 > cellMask) {
+      long[] oldKeys = cellKeys;
+      int[] oldHeads = cellHeads;
+      cellKeys = new long[oldKeys.length * 2];
+      cellHeads = new int[oldHeads.length * 2];
+      Arrays.fill(cellHeads, -1);
+      cellMask = cellKeys.length - 1;
+      for (int i = 0; i < oldHeads.length; i++) {
+        if (oldHeads[i] >= 0) {
+          place(cellKeys, cellHeads, cellMask, oldKeys[i], oldHeads[i]);
+        }
+      }
+    }
+    nextInCell[node] = -1;
+    place(cellKeys, cellHeads, cellMask, key, node);
+  }
+
+  // First node in the cell with the given coordinates, or -1; continue with nextInCell
+  int cellHead(long cx, long cy) {
+    long key = cellKey(cx, cy);
+    int slot = slotFor(key, cellMask);
+    while (cellHeads[slot] >= 0) {
+      if (cellKeys[slot] == key) {
+        return cellHeads[slot];
+      }
+      slot = (slot + 1) & cellMask;
+    }
+    return -1;
+  }
+
+  int nextInCell(int node) {
+    return nextInCell[node];
+  }
+
+  long cellX(double x) {
+    return (long) Math.floor((x - cellOriginX) / cellSize);
+  }
+
+  long cellY(double y) {
+    return (long) Math.floor((y - cellOriginY) / cellSize);
+  }
+
+  /* Binary heap */
+
+  void push(int node, double priority) {
+    if (heapSize == heapNodes.length) {
+      heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+      heapPriorities = Arrays.copyOf(heapPriorities, heapSize * 2);
+    }
+    int i = heapSize++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (heapPriorities[parent] <= priority) {
+        break;
+      }
+      heapNodes[i] = heapNodes[parent];
+      heapPriorities[i] = heapPriorities[parent];
+      i = parent;
+    }
+    heapNodes[i] = node;
+    heapPriorities[i] = priority;
+  }
+
+  private int pop() {
+    int top = heapNodes[0];
+    int lastNode = heapNodes[--heapSize];
+    double lastPriority = heapPriorities[heapSize];
+    int i = 0;
+    int half = heapSize >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      if (child + 1 < heapSize && heapPriorities[child + 1] < heapPriorities[child]) {
+        child++;
+      }
+      if (lastPriority <= heapPriorities[child]) {
+        break;
+      }
+      heapNodes[i] = heapNodes[child];
+      heapPriorities[i] = heapPriorities[child];
+      i = child;
+    }
+    heapNodes[i] = lastNode;
+    heapPriorities[i] = lastPriority;
+    return top;
+  }
+}
@@ -0,0 +1,129 @@
+package uk.ac.ed.acp.cw2.service.Astar;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.service.geometry.RestrictedRegionIndex;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Bounded LRU cache of A* leg results. calcDeliveryPath plans the same legs repeatedly (once while
+// building a basket, again when executing it, and once per drone at the same service point), so
+// results are keyed by quantised start/goal, move budget, cost per move and search mode. Entries
+// are only valid for the restricted regions they were planned against; when a different
+// RestrictedRegionIndex is seen the cache is cleared.
+@Component
+public class LegPathCache {
+
+  // Start/goal coordinates are compared at this precision (degrees)
+  private static final double QUANTUM = 1e-9;
+
+  private record LegKey(
+      long startLng,
+      long startLat,
+      long goalLng,
+      long goalLat,
+      int maxMoves,
+      double costPerMove,
+      SearchMode mode) {}
+
+  private final int maxEntries;
+  private final LinkedHashMap<LegKey, AStarResult> entries;
+  private RestrictedRegionIndex regions;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+  private final Counter invalidations;
+
+  public LegPathCache(
+      @Value("${ilp.astar.leg-cache.max-entries:10000}") int maxEntries, MeterRegistry registry) {
+    this.maxEntries = maxEntries;
+    // Access-ordered map: the eldest entry is the least recently used one
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<LegKey, AStarResult> eldest) {
+            if (size() > LegPathCache.this.maxEntries) {
+              evictions.increment();
+              return true;
+            }
+            return false;
+          }
+        };
+    this.hits = registry.counter("astar.leg-cache.requests", "result", "hit");
+    this.misses = registry.counter("astar.leg-cache.requests", "result", "miss");
+    this.evictions = registry.counter("astar.leg-cache.evictions");
+    this.invalidations = registry.counter("astar.leg-cache.invalidations");
+    Gauge.builder("astar.leg-cache.size", this, cache -> cache.size())
+        .description("Number of cached A* legs")
+        .register(registry);
+    Gauge.builder("astar.leg-cache.hit-ratio", this, cache -> cache.hitRatio())
+        .description("Fraction of leg lookups answered from the cache")
+        .register(registry);
+  }
+
+  // Returns the cached leg for these parameters, planning it with search on a miss
+  public AStarResult get(
+      RestrictedRegionIndex restrictedRegions,
+      PositionDto start,
+      PositionDto goal,
+      int maxMoves,
+      double costPerMove,
+      SearchMode mode,
+      Supplier<AStarResult> search) {
+    if (maxEntries <= 0) {
+      return search.get();
+    }
+    LegKey key =
+        new LegKey(
+            quantise(start.getLng()),
+            quantise(start.getLat()),
+            quantise(goal.getLng()),
+            quantise(goal.getLat()),
+            maxMoves,
+            costPerMove,
+            mode);
+    synchronized (this) {
+      if (regions != restrictedRegions) {
+        if (!entries.isEmpty()) {
+          invalidations.increment();
+        }
+        entries.clear();
+        regions = restrictedRegions;
+      }
+      AStarResult cached = entries.get(key);
+      if (cached != null) {
+        hits.increment();
+        return cached;
+      }
+    }
+    misses.increment();
+    // Plan outside the lock so concurrent legs do not serialise on the cache
+    AStarResult result = search.get();
+    synchronized (this) {
+      if (regions == restrictedRegions) {
+        entries.put(key, result);
+      }
+    }
+    return result;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private double hitRatio() {
+    double total = hits.count() + misses.count();
+    return total == 0 ? 0.0 : hits.count() / total;
+  }
+
+  private static long quantise(double value) {
+    return Math.round(value / QUANTUM);
+  }
+}
@@ -0,0 +1,10 @@
+package uk.ac.ed.acp.cw2.service.Astar;
+
+// How AStarService explores a leg: from the start only, or from both ends meeting in the middle.
+// With the visibility heuristic guiding the start-side search, the second frontier mostly adds
+// work (two open sets, meeting checks, re-checking the replayed half), so UNIDIRECTIONAL is the
+// default and BIDIRECTIONAL is kept for callers that measure a benefit on their own legs.
+public enum SearchMode {
+  UNIDIRECTIONAL,
+  BIDIRECTIONAL
+}
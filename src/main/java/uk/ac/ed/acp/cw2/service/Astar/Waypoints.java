@@ -0,0 +1,63 @@
+package uk.ac.ed.acp.cw2.service.Astar;
+
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DeliveryPathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DronePathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.OverallRouteDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Waypoint compression of A* output. A* paths list every 0.00015 degree move, but most of a leg is
+// long straight runs in one of the 16 compass directions. compress keeps the first and last
+// points, every point where the direction of travel changes and both ends of every hover (a
+// repeated point, e.g. at a delivery), and drops the interior points of straight runs, so the
+// line drawn through the waypoints is the same as the one through the full path.
+public final class Waypoints {
+
+  // Two moves are in the same direction when the sine of the angle between them is below this.
+  // Lattice moves in one direction differ only by rounding (~1e-16); distinct compass directions
+  // are at least 22.5 degrees (sine ~0.38) apart.
+  private static final double COLLINEAR_SINE = 1e-9;
+
+  private Waypoints() {}
+
+  public static List<PositionDto> compress(List<PositionDto> path) {
+    if (path.size() <= 2) {
+      return path;
+    }
+    List<PositionDto> waypoints = new ArrayList<>();
+    waypoints.add(path.get(0));
+    for (int i = 1; i < path.size() - 1; i++) {
+      if (!continuesStraight(path.get(i - 1), path.get(i), path.get(i + 1))) {
+        waypoints.add(path.get(i));
+      }
+    }
+    waypoints.add(path.get(path.size() - 1));
+    return waypoints;
+  }
+
+  // Replaces every flight path in the route with its waypoints
+  public static OverallRouteDto compress(OverallRouteDto route) {
+    for (DronePathDto dronePath : route.getDronePaths()) {
+      for (DeliveryPathDto delivery : dronePath.getDeliveries()) {
+        delivery.setFlightPath(compress(delivery.getFlightPath()));
+      }
+    }
+    return route;
+  }
+
+  private static boolean continuesStraight(PositionDto from, PositionDto via, PositionDto to) {
+    double dx1 = via.getLng() - from.getLng();
+    double dy1 = via.getLat() - from.getLat();
+    double dx2 = to.getLng() - via.getLng();
+    double dy2 = to.getLat() - via.getLat();
+    double lengths = Math.hypot(dx1, dy1) * Math.hypot(dx2, dy2);
+    if (lengths == 0.0) {
+      return false; // hovering on either side
+    }
+    double cross = dx1 * dy2 - dy1 * dx2;
+    double dot = dx1 * dx2 + dy1 * dy2;
+    return dot > 0 && Math.abs(cross) <= COLLINEAR_SINE * lengths;
+  }
+}
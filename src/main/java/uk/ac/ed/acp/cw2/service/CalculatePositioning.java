@@ -13,15 +13,37 @@ import java.util.*;
 
 public class CalculatePositioning {
   public static final double MOVE_DISTANCE = 0.00015;
+  public static final double MAGNIFIED_MOVE_DISTANCE = 0.001;
   private static final double ERROR_TOLERANCE = 1e-12;
 
+  // Drones may only fly in the 16 compass directions, i.e. multiples of 22.5 degrees
+  public static final int DIRECTION_COUNT = 16;
+  public static final double DIRECTION_STEP_DEGREES = 22.5;
+
+  // Per-direction longitude/latitude change for a normal and a magnified step, computed once with
+  // the same arithmetic nextPosition uses so results are bit-for-bit identical
+  private static final double[] DIRECTION_DX = new double[DIRECTION_COUNT];
+  private static final double[] DIRECTION_DY = new double[DIRECTION_COUNT];
+  private static final double[] MAGNIFIED_DIRECTION_DX = new double[DIRECTION_COUNT];
+  private static final double[] MAGNIFIED_DIRECTION_DY = new double[DIRECTION_COUNT];
+
+  static {
+    for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+      double angle = Math.toRadians(direction * DIRECTION_STEP_DEGREES);
+      DIRECTION_DX[direction] = Math.cos(angle) * MOVE_DISTANCE;
+      DIRECTION_DY[direction] = Math.sin(angle) * MOVE_DISTANCE;
+      MAGNIFIED_DIRECTION_DX[direction] = Math.cos(angle) * MAGNIFIED_MOVE_DISTANCE;
+      MAGNIFIED_DIRECTION_DY[direction] = Math.sin(angle) * MAGNIFIED_MOVE_DISTANCE;
+    }
+  }
+
   // Calculates Euclidean distance between two positions
   public static double calculateDistance(DistanceDto distanceDto) {
     PositionDto p1 = distanceDto.getPosition1();
     PositionDto p2 = distanceDto.getPosition2();
     double dx = p1.getLng() - p2.getLng();
     double dy = p1.getLat() - p2.getLat();
-    return Math.sqrt(Math.pow(dx, 2) + Math.pow(dy, 2));
+    return Math.sqrt(dx * dx + dy * dy);
   }
 
   // Checks if the distance between two points is less than MOVE_DISTANCE=0.00015
@@ -31,24 +53,67 @@ public class CalculatePositioning {
 
   // Uses trigonometry to calculate the next position from a given start point
   // after a move of distance 0.00015 with a specified angle.
+  // Compass angles are served from the direction table, any other angle is computed directly.
   public static PositionDto nextPosition(NextPositionDto nextPositionDto) {
-    double angle = Math.toRadians(nextPositionDto.getAngle());
     double lat = nextPositionDto.getStart().getLat();
     double lng = nextPositionDto.getStart().getLng();
+    int direction = directionIndex(nextPositionDto.getAngle());
+    if (direction >= 0) {
+      return new PositionDto(lng + DIRECTION_DX[direction], lat + DIRECTION_DY[direction]);
+    }
+    double angle = Math.toRadians(nextPositionDto.getAngle());
     double dy = Math.sin(angle) * MOVE_DISTANCE; // Change in latitude from move
     double dx = Math.cos(angle) * MOVE_DISTANCE; // Change in longitude from move
     return new PositionDto(lng + dx, lat + dy);
   }
 
   public static PositionDto nextPositionMagnified(NextPositionDto nextPositionDto) {
-    double angle = Math.toRadians(nextPositionDto.getAngle());
     double lat = nextPositionDto.getStart().getLat();
     double lng = nextPositionDto.getStart().getLng();
-    double dy = Math.sin(angle) * 0.001; // Change in latitude from move
-    double dx = Math.cos(angle) * 0.001; // Change in longitude from move
+    int direction = directionIndex(nextPositionDto.getAngle());
+    if (direction >= 0) {
+      return new PositionDto(
+          lng + MAGNIFIED_DIRECTION_DX[direction], lat + MAGNIFIED_DIRECTION_DY[direction]);
+    }
+    double angle = Math.toRadians(nextPositionDto.getAngle());
+    double dy = Math.sin(angle) * MAGNIFIED_MOVE_DISTANCE; // Change in latitude from move
+    double dx = Math.cos(angle) * MAGNIFIED_MOVE_DISTANCE; // Change in longitude from move
     return new PositionDto(lng + dx, lat + dy);
   }
 
+  // Index into the direction table for an angle in [0, 360) that is an exact multiple of 22.5
+  // degrees, or -1 for any other angle
+  public static int directionIndex(double angle) {
+    if (!(angle >= 0 && angle < 360)) {
+      return -1;
+    }
+    double steps = angle / DIRECTION_STEP_DEGREES;
+    int direction = (int) steps;
+    return direction == steps ? direction : -1;
+  }
+
+  // Change in longitude for one step in the given direction (0 = East, 4 = North, ...)
+  public static double directionDx(int direction, boolean magnified) {
+    return magnified ? MAGNIFIED_DIRECTION_DX[direction] : DIRECTION_DX[direction];
+  }
+
+  // Change in latitude for one step in the given direction (0 = East, 4 = North, ...)
+  public static double directionDy(int direction, boolean magnified) {
+    return magnified ? MAGNIFIED_DIRECTION_DY[direction] : DIRECTION_DY[direction];
+  }
+
+  // Writes all 16 neighbours of (lng, lat) into buffer as interleaved lng/lat pairs, so
+  // buffer[2 * d] and buffer[2 * d + 1] hold the position one step away in direction d. The
+  // buffer must hold at least 2 * DIRECTION_COUNT values; nothing is allocated.
+  public static void neighbours(double lng, double lat, boolean magnified, double[] buffer) {
+    double[] dxs = magnified ? MAGNIFIED_DIRECTION_DX : DIRECTION_DX;
+    double[] dys = magnified ? MAGNIFIED_DIRECTION_DY : DIRECTION_DY;
+    for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+      buffer[2 * direction] = lng + dxs[direction];
+      buffer[2 * direction + 1] = lat + dys[direction];
+    }
+  }
+
   // Checks if a point is inside a polygon region defined by a list of vertices
   public static boolean isInRegion(RegionCheckDto regionCheckDto) {
     List<PositionDto> vertices = regionCheckDto.getRegion().getVertices();
@@ -1,210 +1,135 @@
 package uk.ac.ed.acp.cw2.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import org.springframework.web.server.ResponseStatusException;
-import uk.ac.ed.acp.cw2.clients.MedSupplyDronesClient;
+import uk.ac.ed.acp.cw2.clients.ReferenceDataCache;
+import uk.ac.ed.acp.cw2.clients.ReferenceDataSnapshot;
 import uk.ac.ed.acp.cw2.dtos.*;
 import uk.ac.ed.acp.cw2.dtos.deliveries.DeliveryPathDto;
 import uk.ac.ed.acp.cw2.dtos.deliveries.DronePathDto;
 import uk.ac.ed.acp.cw2.dtos.deliveries.OverallRouteDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.StreamedDeliveryDto;
 import uk.ac.ed.acp.cw2.service.Astar.AStarResult;
 import uk.ac.ed.acp.cw2.service.Astar.AStarService;
-
-import java.time.LocalDate;
-import java.time.LocalTime;
+import uk.ac.ed.acp.cw2.service.fleet.AvailabilityIndex;
+import uk.ac.ed.acp.cw2.service.fleet.DroneLookup;
+import uk.ac.ed.acp.cw2.service.geometry.DistanceKernels;
+import uk.ac.ed.acp.cw2.service.planning.AssignmentPlanner;
+import uk.ac.ed.acp.cw2.service.planning.TourOrdering;
+import uk.ac.ed.acp.cw2.service.query.CapabilityIndex;
+import uk.ac.ed.acp.cw2.service.query.CapabilityQuery;
+import uk.ac.ed.acp.cw2.service.query.CapabilityQueryCache;
+
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Service
 public class DynamicQueries {
-  private final MedSupplyDronesClient medSupplyDronesClient;
+  private static final Logger logger = LoggerFactory.getLogger(DynamicQueries.class);
+
+  private final ReferenceDataCache referenceData;
   private final StaticQueries staticQueries;
   private final AStarService aStarService;
+  private final CapabilityQueryCache capabilityQueryCache;
+  private final ExecutorService planningExecutor;
+  private final boolean parallelPlanning;
+  // Service points, closest first, whose drones are offered each dispatch record; 0 offers every
+  // record to every drone
+  private final int nearestServicePoints;
   private AtomicInteger deliveryId = new AtomicInteger(0);
 
+  private final Timer availableDronesTimer;
+  private final Timer fallbackDronesTimer;
+  private final Timer assignmentTimer;
+  private final Timer orderingTimer;
+  // Dispatch records flown, and records no drone could fly within its shifts and maxMoves
+  private final Counter deliveredRecords;
+  private final Counter unservedRecords;
+
   public DynamicQueries(
-      MedSupplyDronesClient medSupplyDronesClient,
+      ReferenceDataCache referenceData,
       StaticQueries staticQueries,
-      AStarService aStarService) {
-    this.medSupplyDronesClient = medSupplyDronesClient;
+      AStarService aStarService,
+      CapabilityQueryCache capabilityQueryCache,
+      @Qualifier("planningExecutor") ExecutorService planningExecutor,
+      MeterRegistry registry,
+      @Value("${ilp.planning.parallel:false}") boolean parallelPlanning,
+      @Value("${ilp.planning.nearest-service-points:3}") int nearestServicePoints) {
+    this.referenceData = referenceData;
     this.staticQueries = staticQueries;
     this.aStarService = aStarService;
+    this.capabilityQueryCache = capabilityQueryCache;
+    this.planningExecutor = planningExecutor;
+    this.parallelPlanning = parallelPlanning;
+    this.nearestServicePoints = nearestServicePoints;
+    this.availableDronesTimer =
+        Timer.builder("planning.drones")
+            .description("Time to pick the drones for a dispatch batch")
+            .tag("search", "available")
+            .register(registry);
+    this.fallbackDronesTimer =
+        Timer.builder("planning.drones")
+            .description("Time to pick the drones for a dispatch batch")
+            .tag("search", "fallback")
+            .register(registry);
+    this.assignmentTimer =
+        Timer.builder("planning.baskets")
+            .description("Time to build the baskets for a dispatch batch")
+            .tag("stage", "assignment")
+            .register(registry);
+    this.orderingTimer =
+        Timer.builder("planning.baskets")
+            .description("Time to build the baskets for a dispatch batch")
+            .tag("stage", "ordering")
+            .register(registry);
+    this.deliveredRecords = registry.counter("planning.records", "outcome", "delivered");
+    this.unservedRecords = registry.counter("planning.records", "outcome", "unserved");
   }
 
   // Finds drones that match the capability passed in the payload to the
   // queryAsPath/attribute-name/attribute-value endpoint
   public List<DroneDto> findDronesWithCapability(String capabilityName, String capabilityValue) {
-    ObjectMapper objectMapper = new ObjectMapper(); // converts Dto to map object
-    return medSupplyDronesClient.getAllDrones().stream()
-        .filter(
-            drone -> {
-              Object value =
-                  objectMapper
-                      .convertValue(drone.getCapability(), Map.class)
-                      .get(capabilityName); // if the Map object i.e. the mapped drone dto doesn't
-              // have the capability as its key, null is returned
-              if (value instanceof Double) {
-                try {
-                  double capValue = Double.parseDouble(capabilityValue);
-                  return Double.compare((Double) value, capValue) == 0;
-                } catch (NumberFormatException error) {
-                  return false;
-                }
-              } else if (value instanceof Integer) {
-                try {
-                  Integer capValue = Integer.parseInt(capabilityValue);
-                  return capValue.equals(value);
-                } catch (NumberFormatException error) {
-                  return false;
-                }
-              } else if (value instanceof Boolean) {
-                Boolean capValue;
-                if ("true".equalsIgnoreCase(capabilityValue)) {
-                  capValue = Boolean.TRUE;
-                } else if ("false".equalsIgnoreCase(capabilityValue)) {
-                  capValue = Boolean.FALSE;
-                } else {
-                  return false;
-                }
-                return capValue.equals(value);
-              } else {
-                return false;
-              }
-            })
-        .toList();
-  }
-
-  // Value1 <operation> Value2
-  private boolean compareValue(String operator, String value1, String value2, boolean numeric) {
-    if (numeric) {
-      double dblValue1 = Double.parseDouble(value1);
-      double dblValue2 = Double.parseDouble(value2);
-      return switch (operator) {
-        case "<" -> dblValue1 < dblValue2;
-        case ">" -> dblValue1 > dblValue2;
-        case "=" -> dblValue1 == dblValue2;
-        case "!=" -> dblValue1 != dblValue2;
-        default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
-      };
-    } else {
-      boolean boolValue1 = Boolean.parseBoolean(value1);
-      boolean boolValue2 = Boolean.parseBoolean(value2);
-      return switch (operator) {
-        case "=" -> boolValue1 == boolValue2;
-        case "!=" -> boolValue1 != boolValue2;
-        default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
-      };
-    }
+    CapabilityIndex index = referenceData.current().getCapabilityIndex();
+    CapabilityQuery query = CapabilityQuery.compilePath(capabilityName, capabilityValue);
+    return index.drones(query.evaluate(index));
   }
 
   // finds a list of drones that match all the capabilities passed into the query endpoint
   public List<String> findDronesWithCapabilities(List<attributeQueryDto> attributeQueryDtos) {
-    List<DroneDto> drones = medSupplyDronesClient.getAllDrones();
-    List<DroneDto> matchedDrones = new ArrayList<>();
-    for (DroneDto drone : drones) {
-      CapabilityDto droneCapability = drone.getCapability();
-      int attributeMatchCount = 0;
-      for (attributeQueryDto attributeQuery : attributeQueryDtos) {
-        String attribute = attributeQuery.getAttribute();
-        String attributeValue = attributeQuery.getValue();
-        String attributeOperator = attributeQuery.getOperator();
-        switch (attribute) {
-          case "cooling" -> {
-            if (compareValue(
-                attributeOperator,
-                String.valueOf(droneCapability.getCooling()),
-                attributeValue,
-                false)) {
-              attributeMatchCount += 1;
-            }
-          }
-          case "heating" -> {
-            if (compareValue(
-                attributeOperator,
-                String.valueOf(droneCapability.getHeating()),
-                attributeValue,
-                false)) {
-              attributeMatchCount += 1;
-            }
-          }
-          case "capacity" -> {
-            if (compareValue(
-                attributeOperator,
-                String.valueOf(droneCapability.getCapacity()),
-                attributeValue,
-                true)) {
-              attributeMatchCount += 1;
-            }
-          }
-          case "maxMoves" -> {
-            if (compareValue(
-                attributeOperator,
-                String.valueOf(droneCapability.getMaxMoves()),
-                attributeValue,
-                true)) {
-              attributeMatchCount += 1;
-            }
-          }
-          case "costPerMove" -> {
-            if (compareValue(
-                attributeOperator,
-                String.valueOf(droneCapability.getCostPerMove()),
-                attributeValue,
-                true)) {
-              attributeMatchCount += 1;
-            }
-          }
-          case "costInitial" -> {
-            if (compareValue(
-                attributeOperator,
-                String.valueOf(droneCapability.getCostInitial()),
-                attributeValue,
-                true)) {
-              attributeMatchCount += 1;
-            }
-          }
-          case "costFinal" -> {
-            if (compareValue(
-                attributeOperator,
-                String.valueOf(droneCapability.getCostFinal()),
-                attributeValue,
-                true)) {
-              attributeMatchCount += 1;
-            }
-          }
-          case "id" -> {
-            if (compareValue(
-                attributeOperator, String.valueOf(drone.getId()), attributeValue, true)) {
-              attributeMatchCount += 1;
-            }
-          }
-        }
-      }
-      if (attributeMatchCount == attributeQueryDtos.size()) {
-        matchedDrones.add(drone);
-      }
-    }
-    return matchedDrones.stream().map(drone -> drone.getId()).toList();
+    return capabilityQueryCache.findDroneIds(
+        referenceData.current().getCapabilityIndex(), attributeQueryDtos);
   }
 
-  private record Triple<PositionDto, LocalDate, LocalTime>(
-      PositionDto medRecAddress, LocalDate medRecDate, LocalTime medRecTime) {}
-
   public List<String> findAvailableDrones(
       List<MedDispatchRecDto> medDispatchRecDtos, boolean restrictCapacity) {
+    return availableDronesTimer.record(
+        () -> matchAvailableDrones(medDispatchRecDtos, restrictCapacity));
+  }
+
+  private List<String> matchAvailableDrones(
+      List<MedDispatchRecDto> medDispatchRecDtos, boolean restrictCapacity) {
     // Drones that match requirements AND time availability AND distance capability
     List<DroneDto> matchedDrones = new ArrayList<>();
 
-    List<ServicePointDronesDto> servicePointsDrones =
-        medSupplyDronesClient.getDronesForServicePoints();
-    List<ServicePointDto> servicePoints = medSupplyDronesClient.getServicePoints();
+    ReferenceDataSnapshot snapshot = referenceData.current();
+    DroneLookup lookup = snapshot.getDroneLookup();
+    // Drones free at the time of every dispatch, by fleet position
+    BitSet freeForAll = snapshot.getAvailabilityIndex().freeForAll(medDispatchRecDtos);
     double cumulativeMaxCostOfMedRecords =
         medDispatchRecDtos.stream()
             .mapToDouble(
@@ -221,19 +146,24 @@ public class DynamicQueries {
                         ? dto.getRequirements().getCapacity()
                         : 0.0)
             .sum();
-    for (DroneDto drone : medSupplyDronesClient.getAllDrones()) {
+    double[] deliveryXs = new double[medDispatchRecDtos.size()];
+    double[] deliveryYs = new double[medDispatchRecDtos.size()];
+    for (int r = 0; r < medDispatchRecDtos.size(); r++) {
+      deliveryXs[r] = medDispatchRecDtos.get(r).getDelivery().getLng();
+      deliveryYs[r] = medDispatchRecDtos.get(r).getDelivery().getLat();
+    }
+    double[] distances = new double[medDispatchRecDtos.size()];
+    List<DroneDto> allDrones = snapshot.getAllDrones();
+    for (int droneIndex = 0; droneIndex < allDrones.size(); droneIndex++) {
+      DroneDto drone = allDrones.get(droneIndex);
       CapabilityDto droneCapability = drone.getCapability();
-      List<Triple<PositionDto, LocalDate, LocalTime>> medRecords = new ArrayList<>();
       if (restrictCapacity && droneCapability.getCapacity() < cumulativeCapacity) {
         continue;
       }
 
       int satisfiedRequirements = 0;
       for (MedDispatchRecDto medDispatchRecDto : medDispatchRecDtos) {
-        // If drone satisfies specific MedDispatch requirements of this loop, add it to medRecords
-        // as a
-        // Triple record including the corresponding address and time requirements for later
-        // processing
+        // Count the MedDispatch records whose requirements this drone satisfies
 
         // Medical record requirements:
         RequirementsDto medRequirements = medDispatchRecDto.getRequirements();
@@ -242,16 +172,6 @@ public class DynamicQueries {
         boolean medRecCooling = medRequirements.isCooling();
         boolean medRecHeating = medRequirements.isHeating();
 
-        // Medical record delivery address:
-        PositionDto medRecAddress = medDispatchRecDto.getDelivery();
-
-        // Medical record time, date and id:
-        LocalDate medRecDate = medDispatchRecDto.getDate();
-        LocalTime medRecTime = medDispatchRecDto.getTime();
-
-        Triple<PositionDto, LocalDate, LocalTime> droneWithCapability =
-            new Triple<>(medRecAddress, medRecDate, medRecTime);
-
         // check if drone matches requirements:
         boolean matchesCapacity = droneCapability.getCapacity() >= medRecCapacity;
         boolean heatingRequirementsMet = true;
@@ -262,7 +182,6 @@ public class DynamicQueries {
           }
         }
         if (matchesCapacity && heatingRequirementsMet) {
-          medRecords.add(droneWithCapability);
           satisfiedRequirements += 1;
         }
       }
@@ -270,115 +189,50 @@ public class DynamicQueries {
       // it is available and has enough moves within cost to make the trip before adding it to
       // matchedDrones:
       if (satisfiedRequirements != medDispatchRecDtos.size()) {
-        medRecords.clear();
         continue;
       } else {
-        Predicate<DroneAvailabilityDto> hasDrone = dto -> dto.getId().equals(drone.getId());
-        ServicePointDronesDto servicePointWithDrone =
-            servicePointsDrones.stream()
-                .filter(servicePoint -> servicePoint.getDrones().stream().anyMatch(hasDrone))
-                .findFirst()
-                .orElse(null);
-        if (servicePointWithDrone == null) {
-          continue;
-        }
-        List<AvailabilityDto> droneAvailability =
-            Objects.requireNonNull(
-                    servicePointWithDrone.getDrones().stream()
-                        .filter(hasDrone)
-                        .findFirst()
-                        .orElse(null))
-                .getAvailability();
-
-        //  check if drone is available at the specific time of the dispatches
-        List<String> dayOfWeekAvailability =
-            droneAvailability.stream().map(AvailabilityDto::getDayOfWeek).toList();
-        List<LocalDate> matchingDays =
-            medRecords.stream()
-                .map(Triple::medRecDate)
-                .filter(time -> dayOfWeekAvailability.contains(time.getDayOfWeek().toString()))
-                .toList();
-        boolean isAvailableDayOfWeek = matchingDays.size() == medDispatchRecDtos.size();
-        boolean isAvailableTimeOfDay =
-            medRecords.stream()
-                .allMatch(
-                    record ->
-                        droneAvailability.stream()
-                            .filter(
-                                time ->
-                                    time.getDayOfWeek()
-                                        .equalsIgnoreCase(
-                                            record.medRecDate().getDayOfWeek().toString()))
-                            .anyMatch(
-                                time ->
-                                    !record.medRecTime().isBefore(LocalTime.parse(time.getFrom()))
-                                        && !record
-                                            .medRecTime()
-                                            .isAfter(
-                                                LocalTime.parse(time.getUntil())))); // loose bounds
+        //  check if drone is available at the specific time of the dispatches (inclusive bounds)
+        boolean isAvailable = freeForAll.get(droneIndex);
 
         // check if drone can make the distance of the trip under cost and distance constraints
-        if (isAvailableTimeOfDay && isAvailableDayOfWeek) {
-          int servicePointId = servicePointWithDrone.getServicePointId();
-          ServicePointDto servicePoint =
-              servicePoints.stream()
-                  .filter(sp -> sp.getId() == servicePointId)
-                  .findFirst()
-                  .orElse(null);
-          if (servicePoint == null) {
+        if (isAvailable) {
+          PositionDto servicePointPosition = lookup.startPosition(drone.getId());
+          if (servicePointPosition == null) {
             continue;
           }
-          LocationDto servicePointStart = servicePoint.getLocation();
-          PositionDto servicePointPosition =
-              new PositionDto(servicePointStart.getLng(), servicePointStart.getLat());
-          // calculate distance from service point drone is at to delivery address:
-
-          double totalMoves =
-              medDispatchRecDtos.stream()
-                  .mapToDouble(
-                      record -> {
-                        DistanceDto distanceDto =
-                            new DistanceDto(servicePointPosition, record.getDelivery());
-                        double distance = CalculatePositioning.calculateDistance(distanceDto);
-                        double numMoves =
-                            Math.ceil(2 * distance / CalculatePositioning.MOVE_DISTANCE);
-                        return numMoves;
-                      })
-                  .sum();
+          // distances from the service point the drone is at to every delivery address
+          DistanceKernels.best()
+              .oneToMany(
+                  servicePointPosition.getLng(),
+                  servicePointPosition.getLat(),
+                  deliveryXs,
+                  deliveryYs,
+                  distances,
+                  0);
+
+          double totalMoves = 0;
+          for (double distance : distances) {
+            totalMoves += Math.ceil(2 * distance / CalculatePositioning.MOVE_DISTANCE);
+          }
           double totalCost =
               totalMoves * drone.getCapability().getCostPerMove()
                   + droneCapability.getCostInitial()
                   + droneCapability.getCostFinal();
-          Map<Integer, Double> proportionality =
-              medDispatchRecDtos.stream()
-                  .collect(
-                      Collectors.toMap(
-                          MedDispatchRecDto::getId,
-                          dto ->
-                              (2
-                                      * CalculatePositioning.calculateDistance(
-                                          new DistanceDto(servicePointPosition, dto.getDelivery()))
-                                      / CalculatePositioning.MOVE_DISTANCE)
-                                  / totalMoves));
-
-          boolean canDeliver =
-              medDispatchRecDtos.stream()
-                  .allMatch(
-                      record ->
-                          record.getRequirements().getMaxCost() == null
-                              || record.getRequirements().getMaxCost()
-                                  >= proportionality.get(record.getId()) * totalCost);
-          boolean isWithinMaxMoves =
-              medDispatchRecDtos.stream()
-                  .allMatch(
-                      record ->
-                          Math.ceil(
-                                  2
-                                      * CalculatePositioning.calculateDistance(
-                                          new DistanceDto(
-                                              servicePointPosition, record.getDelivery()))
-                                      / CalculatePositioning.MOVE_DISTANCE)
-                              <= drone.getCapability().getMaxMoves());
+
+          boolean canDeliver = true;
+          boolean isWithinMaxMoves = true;
+          for (int r = 0; r < medDispatchRecDtos.size(); r++) {
+            Double maxCost = medDispatchRecDtos.get(r).getRequirements().getMaxCost();
+            double proportionality =
+                (2 * distances[r] / CalculatePositioning.MOVE_DISTANCE) / totalMoves;
+            if (maxCost != null && !(maxCost >= proportionality * totalCost)) {
+              canDeliver = false;
+            }
+            if (Math.ceil(2 * distances[r] / CalculatePositioning.MOVE_DISTANCE)
+                > drone.getCapability().getMaxMoves()) {
+              isWithinMaxMoves = false;
+            }
+          }
           if (canDeliver && isWithinMaxMoves) {
             matchedDrones.add(drone);
           }
@@ -389,58 +243,35 @@ public class DynamicQueries {
   }
 
   public List<String> findFallbackDrones(List<MedDispatchRecDto> medDispatchRecDtos) {
+    return fallbackDronesTimer.record(() -> matchFallbackDrones(medDispatchRecDtos));
+  }
+
+  private List<String> matchFallbackDrones(List<MedDispatchRecDto> medDispatchRecDtos) {
     Set<String> validDroneIds = new HashSet<>();
-    List<DroneDto> allDrones = medSupplyDronesClient.getAllDrones();
-    List<ServicePointDronesDto> spDrones = medSupplyDronesClient.getDronesForServicePoints();
-    List<ServicePointDto> servicePoints = medSupplyDronesClient.getServicePoints();
+    ReferenceDataSnapshot snapshot = referenceData.current();
+    List<DroneDto> allDrones = snapshot.getAllDrones();
+    DroneLookup lookup = snapshot.getDroneLookup();
+
+    AvailabilityIndex availability = snapshot.getAvailabilityIndex();
 
     for (MedDispatchRecDto order : medDispatchRecDtos) {
       boolean droneFoundForThisOrder = false;
+      BitSet freeAtOrderTime = availability.freeAt(order.getDate(), order.getTime());
 
-      for (DroneDto drone : allDrones) {
+      for (int droneIndex = 0; droneIndex < allDrones.size(); droneIndex++) {
+        DroneDto drone = allDrones.get(droneIndex);
         // check capabilities
         if (drone.getCapability().getCapacity() < order.getRequirements().getCapacity()) continue;
         if (order.getRequirements().isCooling() && !drone.getCapability().getCooling()) continue;
         if (order.getRequirements().isHeating() && !drone.getCapability().getHeating()) continue;
 
-        Predicate<DroneAvailabilityDto> hasDrone = dto -> dto.getId().equals(drone.getId());
-        var servicePointWithDrone =
-            spDrones.stream()
-                .filter(sp -> sp.getDrones().stream().anyMatch(hasDrone))
-                .findFirst()
-                .orElse(null);
-
-        if (servicePointWithDrone == null) continue;
-
-        List<AvailabilityDto> schedule =
-            servicePointWithDrone.getDrones().stream()
-                .filter(hasDrone)
-                .findFirst()
-                .get()
-                .getAvailability();
-
-        String orderDay = order.getDate().getDayOfWeek().toString();
-        LocalTime orderTime = order.getTime();
-
-        boolean shiftMatch =
-            schedule.stream()
-                .anyMatch(
-                    s ->
-                        s.getDayOfWeek().equalsIgnoreCase(orderDay)
-                            && !orderTime.isBefore(LocalTime.parse(s.getFrom()))
-                            && !orderTime.isAfter(LocalTime.parse(s.getUntil())));
-
-        if (!shiftMatch) continue;
+        // check the drone is on shift at the order time
+        if (!freeAtOrderTime.get(droneIndex)) continue;
 
         // Check cost and distance
-        var spLocation =
-            servicePoints.stream()
-                .filter(sp -> sp.getId() == servicePointWithDrone.getServicePointId())
-                .findFirst()
-                .orElseThrow()
-                .getLocation();
+        PositionDto basePos = lookup.startPosition(drone.getId());
 
-        PositionDto basePos = new PositionDto(spLocation.getLng(), spLocation.getLat());
+        if (basePos == null) continue;
 
         // Calculate Euclidean distance
         DistanceDto distDto = new DistanceDto(basePos, order.getDelivery());
@@ -467,7 +298,7 @@ public class DynamicQueries {
       }
 
       if (!droneFoundForThisOrder) {
-        System.err.println("Warning: No drone found for order " + order.getId());
+        logger.warn("No fallback drone found for dispatch record {}", order.getId());
       }
     }
 
@@ -475,179 +306,266 @@ public class DynamicQueries {
   }
 
   public PositionDto getStartPoint(String droneId) {
-    List<ServicePointDronesDto> servicePointsDrones =
-        medSupplyDronesClient.getDronesForServicePoints();
-    List<ServicePointDto> servicePoints = medSupplyDronesClient.getServicePoints();
     DroneDto drone = staticQueries.findDrone(droneId);
-    Predicate<DroneAvailabilityDto> hasDrone = dto -> dto.getId().equals(drone.getId());
-    ServicePointDronesDto servicePointWithDrone =
-        servicePointsDrones.stream()
-            .filter(servicePoint -> servicePoint.getDrones().stream().anyMatch(hasDrone))
-            .findFirst()
-            .orElse(null);
-
-    int servicePointId = servicePointWithDrone.getServicePointId();
-    ServicePointDto servicePoint =
-        servicePoints.stream().filter(sp -> sp.getId() == servicePointId).findFirst().orElse(null);
-    LocationDto servicePointStart = servicePoint.getLocation();
-    return new PositionDto(servicePointStart.getLng(), servicePointStart.getLat());
+    PositionDto startPosition =
+        referenceData.current().getDroneLookup().startPosition(drone.getId());
+    if (startPosition == null) {
+      // Drone is not stationed at a known service point
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+    }
+    return startPosition;
   }
 
+  // A delivery flight planned for one drone, before it is given a delivery id
+  private record PlannedFlight(String droneId, List<AStarResult> legs) {}
+
+  // A basket once its legs are searched: the flight, or null if no stop could be flown, and the
+  // stops it could not deliver within the drone's moves
+  private record FlightOutcome(PlannedFlight flight, List<MedDispatchRecDto> undelivered) {}
+
   public OverallRouteDto calcDeliveryPath(
       List<MedDispatchRecDto> medDispatchRecDtos, boolean restrictCapacity) {
-    medDispatchRecDtos.sort(
-        Comparator.comparing(MedDispatchRecDto::getDate).thenComparing(MedDispatchRecDto::getTime));
-    List<String> availableDrones = findAvailableDrones(medDispatchRecDtos, restrictCapacity);
-    if (availableDrones.isEmpty()) {
-      availableDrones = findFallbackDrones(medDispatchRecDtos);
-    }
+    List<PlannedFlight> flights = new ArrayList<>();
+    planBatch(medDispatchRecDtos, restrictCapacity, flights::add);
 
-    List<MedDispatchRecDto> remaining = new ArrayList<>(medDispatchRecDtos);
-    List<PositionDto> completePath = new ArrayList<>();
+    // Merge in planning order so delivery ids, totals and paths are stable between runs
     Map<String, List<DeliveryPathDto>> droneDeliveries = new HashMap<>();
     double totalCost = 0.0;
     int totalMoves = 0;
 
-    while (!remaining.isEmpty()) {
-      boolean deliveryAssigned = false;
-
-      for (String droneId : availableDrones) {
-        List<MedDispatchRecDto> dispatchBasket = new ArrayList<>();
-        Iterator<MedDispatchRecDto> recordIterator = remaining.iterator();
-        double basketCapacity = 0.0;
-
-        int droneServicePointId = getServicePointIdForDrone(droneId);
-        PositionDto startPoint = getStartPoint(droneId);
-        double movesSoFar = 0.0;
-        PositionDto currentPoint = startPoint;
+    for (PlannedFlight flight : flights) {
+      // reconstruct path of the full delivery from individual legs
+      List<PositionDto> path = new ArrayList<>();
+      for (AStarResult result : flight.legs()) {
+        List<PositionDto> legPath = result.getPath();
+        path.addAll(legPath);
+        totalCost += result.getTotalCost();
+        totalMoves += result.getMovesUsed();
+      }
+      int thisDeliveryId = deliveryId.getAndIncrement();
+      DeliveryPathDto deliveryPathDto = new DeliveryPathDto(thisDeliveryId, path);
+      droneDeliveries
+          .computeIfAbsent(flight.droneId(), k -> new ArrayList<>())
+          .add(deliveryPathDto);
+    }
 
-        DroneDto drone = staticQueries.findDrone(droneId);
-        int movesLimit = drone.getCapability().getMaxMoves();
-        Double droneCapacity = drone.getCapability().getCapacity();
+    List<DronePathDto> dronePathDtoList =
+        droneDeliveries.keySet().stream()
+            .map(key -> new DronePathDto(Integer.parseInt(key), droneDeliveries.get(key)))
+            .toList();
 
-        while (recordIterator.hasNext()) {
-          MedDispatchRecDto record = recordIterator.next();
+    return new OverallRouteDto(totalCost, totalMoves, dronePathDtoList);
+  }
 
-          int closestServicePointId = findClosestServicePointId(record.getDelivery());
-          if (closestServicePointId != droneServicePointId) {
-            continue; // let the closest drone handle it
-          }
+  // Plans a dispatch stream in consecutive chunks of at most chunkSize records, handing each
+  // delivery to the sink as soon as its flight is planned. Only one chunk is held at a time, and
+  // each chunk is planned as calcDeliveryPath would plan it on its own, so baskets never combine
+  // records from different chunks.
+  public void streamDeliveryPaths(
+      Iterator<MedDispatchRecDto> records, int chunkSize, Consumer<StreamedDeliveryDto> sink) {
+    int limit = Math.max(1, chunkSize);
+    List<MedDispatchRecDto> chunk = new ArrayList<>(limit);
+    while (records.hasNext()) {
+      chunk.add(records.next());
+      if (chunk.size() == limit || !records.hasNext()) {
+        planBatch(chunk, false, flight -> sink.accept(toStreamedDelivery(flight)));
+        chunk = new ArrayList<>(limit);
+      }
+    }
+  }
 
-          Double dispatchWeight = record.getRequirements().getCapacity();
-          AStarResult toPointResult =
-              aStarService.findPathForLeg(currentPoint, record.getDelivery(), movesLimit, drone);
-          int movesToPoint = toPointResult.getMovesUsed();
-
-          AStarResult toSpResult =
-              aStarService.findPathForLeg(record.getDelivery(), startPoint, movesLimit, drone);
-          int movesToSp = toSpResult.getMovesUsed();
-
-          if ((basketCapacity + dispatchWeight <= droneCapacity)
-              && movesSoFar + movesToPoint <= movesLimit) {
-            currentPoint = record.getDelivery();
-            movesSoFar += movesToPoint;
-            basketCapacity += dispatchWeight;
-            dispatchBasket.add(record);
-            recordIterator.remove();
-          } else {
-            continue;
-          }
+  // Sorts the batch by dispatch time, picks the drones for it, assigns the records to baskets,
+  // orders each basket's stops and then searches its legs. Sequential planning hands each flight
+  // over as soon as its legs are searched; parallel planning hands them over once every basket
+  // of the round has been searched.
+  //
+  // Assignment works from straight-line estimates, so a flight can turn out longer than its
+  // drone's maxMoves once A* routes around restricted regions. Stops that do not fit are planned
+  // again in a further round, without the drone that failed them, until every record is flown or
+  // has no drone left to try. Records no drone can take are reported.
+  private void planBatch(
+      List<MedDispatchRecDto> medDispatchRecDtos,
+      boolean restrictCapacity,
+      Consumer<PlannedFlight> sink) {
+    medDispatchRecDtos.sort(
+        Comparator.comparing(MedDispatchRecDto::getDate).thenComparing(MedDispatchRecDto::getTime));
+    List<String> matchedDrones = findAvailableDrones(medDispatchRecDtos, restrictCapacity);
+    List<String> droneIds =
+        matchedDrones.isEmpty() ? findFallbackDrones(medDispatchRecDtos) : matchedDrones;
+
+    // Records each drone could not fly, by drone id
+    Map<String, Set<MedDispatchRecDto>> failed = new HashMap<>();
+    List<MedDispatchRecDto> pending = medDispatchRecDtos;
+    while (!pending.isEmpty()) {
+      List<MedDispatchRecDto> round = pending;
+      List<AssignmentPlanner.Basket> assigned =
+          assignmentTimer.record(
+              () ->
+                  AssignmentPlanner.plan(
+                      candidates(droneIds, round, failed),
+                      round,
+                      referenceData.current().getServicePointIndex(),
+                      nearestServicePoints));
+      List<AssignmentPlanner.Basket> baskets =
+          orderingTimer.record(() -> assigned.stream().map(TourOrdering::order).toList());
+
+      Set<MedDispatchRecDto> basketed = Collections.newSetFromMap(new IdentityHashMap<>());
+      baskets.forEach(basket -> basketed.addAll(basket.stops()));
+      round.stream().filter(record -> !basketed.contains(record)).forEach(this::reportUnserved);
+
+      Set<MedDispatchRecDto> retry = Collections.newSetFromMap(new IdentityHashMap<>());
+      List<FlightOutcome> outcomes = parallelPlanning ? flyInParallel(baskets) : null;
+      for (int b = 0; b < baskets.size(); b++) {
+        FlightOutcome outcome = outcomes != null ? outcomes.get(b) : fly(baskets.get(b));
+        if (outcome.flight() != null) {
+          deliveredRecords.increment(
+              baskets.get(b).stops().size() - outcome.undelivered().size());
+          sink.accept(outcome.flight());
         }
+        String droneId = baskets.get(b).drone().getId();
+        for (MedDispatchRecDto record : outcome.undelivered()) {
+          failed
+              .computeIfAbsent(droneId, id -> Collections.newSetFromMap(new IdentityHashMap<>()))
+              .add(record);
+          retry.add(record);
+        }
+      }
+      pending = round.stream().filter(retry::contains).toList();
+    }
+  }
 
-        if (!dispatchBasket.isEmpty()) {
-          // execute A* here
-          PositionDto currentPosition = startPoint;
-          List<AStarResult> legs = new ArrayList<>();
-
-          for (MedDispatchRecDto record : dispatchBasket) {
-            PositionDto goal = record.getDelivery();
-            int maxMoves = (int) Math.ceil(drone.getCapability().getMaxMoves());
-            AStarResult leg = aStarService.findPathForLeg(currentPosition, goal, maxMoves, drone);
-            if (leg.isReachedGoal()) {
-              deliveryAssigned = true;
-              legs.add(leg);
-              currentPosition = record.getDelivery();
-            } else {
-              remaining.add(record);
-              continue;
-            }
-
-            if (dispatchBasket.indexOf(record) == dispatchBasket.size() - 1) {
-              leg = aStarService.findPathForLeg(record.getDelivery(), startPoint, maxMoves, drone);
-              if (leg.isReachedGoal()) {
-                legs.add(leg);
-              } else {
-                remaining.add(record);
-              }
-            }
-          }
+  private void reportUnserved(MedDispatchRecDto record) {
+    unservedRecords.increment();
+    logger.warn("No drone can deliver dispatch record {}", record.getId());
+  }
 
-          // reconstruct path of the full delivery from individual legs
-          List<PositionDto> path = new ArrayList<>();
-          for (AStarResult result : legs) {
-            List<PositionDto> legPath = result.getPath();
-            path.addAll(legPath);
-            totalCost += result.getTotalCost();
-            totalMoves += result.getMovesUsed();
-          }
-          int thisDeliveryId = deliveryId.getAndIncrement();
-          DeliveryPathDto deliveryPathDto = new DeliveryPathDto(thisDeliveryId, path);
-          droneDeliveries.computeIfAbsent(droneId, k -> new ArrayList<>()).add(deliveryPathDto);
+  // The drones as assignment candidates, each with the records whose dispatch time falls in one
+  // of its shifts and that it has not already failed to fly. Drones not stationed at a known
+  // service point cannot fly and are left out.
+  private List<AssignmentPlanner.Candidate> candidates(
+      List<String> droneIds,
+      List<MedDispatchRecDto> records,
+      Map<String, Set<MedDispatchRecDto>> failed) {
+    ReferenceDataSnapshot snapshot = referenceData.current();
+    DroneLookup lookup = snapshot.getDroneLookup();
+    AvailabilityIndex availability = snapshot.getAvailabilityIndex();
+    List<BitSet> freeAtRecord = new ArrayList<>(records.size());
+    Map<LocalDateTime, BitSet> freeAtTime = new HashMap<>();
+    for (MedDispatchRecDto record : records) {
+      freeAtRecord.add(
+          freeAtTime.computeIfAbsent(
+              LocalDateTime.of(record.getDate(), record.getTime()),
+              key -> availability.freeAt(record.getDate(), record.getTime())));
+    }
 
-          completePath.addAll(path);
-        }
+    List<AssignmentPlanner.Candidate> candidates = new ArrayList<>();
+    for (String droneId : droneIds) {
+      DroneDto drone = lookup.drone(droneId);
+      PositionDto start = lookup.startPosition(droneId);
+      if (drone == null || start == null) {
+        continue;
       }
-
-      if (!deliveryAssigned) {
-        break;
+      int fleetIndex = lookup.fleetIndex(droneId);
+      Set<MedDispatchRecDto> failedByDrone = failed.getOrDefault(droneId, Set.of());
+      BitSet onShift = new BitSet(records.size());
+      for (int r = 0; r < records.size(); r++) {
+        onShift.set(
+            r,
+            freeAtRecord.get(r).get(fleetIndex) && !failedByDrone.contains(records.get(r)));
       }
+      candidates.add(
+          new AssignmentPlanner.Candidate(
+              drone, lookup.servicePointId(droneId), start, onShift));
     }
-
-    List<DronePathDto> dronePathDtoList =
-        droneDeliveries.keySet().stream()
-            .map(key -> new DronePathDto(Integer.parseInt(key), droneDeliveries.get(key)))
-            .toList();
-
-    return new OverallRouteDto(totalCost, totalMoves, dronePathDtoList);
+    return candidates;
   }
 
-  private int getServicePointIdForDrone(String droneId) {
-    List<ServicePointDronesDto> servicePointsDrones =
-        medSupplyDronesClient.getDronesForServicePoints();
-    DroneDto drone = staticQueries.findDrone(droneId);
+  private StreamedDeliveryDto toStreamedDelivery(PlannedFlight flight) {
+    List<PositionDto> path = new ArrayList<>();
+    double cost = 0.0;
+    int moves = 0;
+    for (AStarResult result : flight.legs()) {
+      path.addAll(result.getPath());
+      cost += result.getTotalCost();
+      moves += result.getMovesUsed();
+    }
+    return new StreamedDeliveryDto(
+        Integer.parseInt(flight.droneId()), deliveryId.getAndIncrement(), cost, moves, path);
+  }
 
-    Predicate<DroneAvailabilityDto> hasDrone = dto -> dto.getId().equals(drone.getId());
-    ServicePointDronesDto servicePointWithDrone =
-        servicePointsDrones.stream()
-            .filter(sp -> sp.getDrones().stream().anyMatch(hasDrone))
-            .findFirst()
-            .orElse(null);
+  // Baskets are independent once assigned, so their legs are searched as separate tasks on the
+  // planning executor. Outcomes come back in basket order.
+  private List<FlightOutcome> flyInParallel(List<AssignmentPlanner.Basket> baskets) {
+    List<Callable<FlightOutcome>> tasks = new ArrayList<>();
+    for (AssignmentPlanner.Basket basket : baskets) {
+      tasks.add(() -> fly(basket));
+    }
 
-    return servicePointWithDrone != null ? servicePointWithDrone.getServicePointId() : -1;
+    List<FlightOutcome> outcomes = new ArrayList<>();
+    try {
+      for (Future<FlightOutcome> result : planningExecutor.invokeAll(tasks)) {
+        outcomes.add(result.get());
+      }
+    } catch (InterruptedException error) {
+      Thread.currentThread().interrupt();
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+    } catch (ExecutionException error) {
+      if (error.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+    return outcomes;
   }
 
-  private int findClosestServicePointId(PositionDto deliveryPosition) {
-    List<ServicePointDto> servicePoints = medSupplyDronesClient.getServicePoints();
-
-    double bestDistance = Double.MAX_VALUE;
-    int bestId = -1;
+  // Searches a basket's legs out through its stops and back to the service point within the
+  // drone's maxMoves. Each outbound leg may only use the moves left after keeping back the
+  // shortest possible flight home from its stop; a stop whose leg does not fit is skipped and the
+  // next leg starts from where the drone is. If the flight home still does not fit, stops are
+  // given up from the end of the tour until it does.
+  private FlightOutcome fly(AssignmentPlanner.Basket basket) {
+    DroneDto drone = basket.drone();
+    int maxMoves = drone.getCapability().getMaxMoves();
+    PositionDto start = basket.start();
+    List<AStarResult> legs = new ArrayList<>();
+    List<MedDispatchRecDto> delivered = new ArrayList<>();
+    List<MedDispatchRecDto> undelivered = new ArrayList<>();
+    PositionDto currentPosition = start;
+    int movesUsed = 0;
+
+    for (MedDispatchRecDto record : basket.stops()) {
+      int available = maxMoves - movesUsed - movesAtLeast(record.getDelivery(), start);
+      AStarResult leg =
+          available > 0
+              ? aStarService.findPathForLeg(currentPosition, record.getDelivery(), available, drone)
+              : null;
+      if (leg == null || !leg.isReachedGoal()) {
+        undelivered.add(record);
+        continue;
+      }
+      legs.add(leg);
+      delivered.add(record);
+      movesUsed += leg.getMovesUsed();
+      currentPosition = record.getDelivery();
+    }
 
-    for (ServicePointDto sp : servicePoints) {
-      LocationDto loc = sp.getLocation();
-      PositionDto spPos = new PositionDto(loc.getLng(), loc.getLat());
-      double distance =
-          CalculatePositioning.calculateDistance(new DistanceDto(spPos, deliveryPosition));
-      if (distance < bestDistance) {
-        bestDistance = distance;
-        bestId = sp.getId();
+    while (!delivered.isEmpty()) {
+      AStarResult returnLeg =
+          aStarService.findPathForLeg(currentPosition, start, maxMoves - movesUsed, drone);
+      if (returnLeg.isReachedGoal()) {
+        legs.add(returnLeg);
+        return new FlightOutcome(new PlannedFlight(drone.getId(), legs), undelivered);
       }
+      movesUsed -= legs.removeLast().getMovesUsed();
+      undelivered.add(delivered.removeLast());
+      currentPosition = delivered.isEmpty() ? start : delivered.getLast().getDelivery();
     }
-    return bestId;
+    return new FlightOutcome(null, undelivered);
   }
 
-  public JsonNode calcDeliveryPathAsGeoJson(List<MedDispatchRecDto> medDispatchRecDtos) {
-    OverallRouteDto overallRoute = calcDeliveryPath(medDispatchRecDtos, true);
-    GeoJsonConverter converter = new GeoJsonConverter();
-    return converter.toGeoJson(overallRoute);
+  // Fewest moves that can take a drone from a to within the isCloseTo tolerance of b
+  private static int movesAtLeast(PositionDto a, PositionDto b) {
+    double distance = CalculatePositioning.calculateDistance(new DistanceDto(a, b));
+    return (int) Math.floor(distance / CalculatePositioning.MOVE_DISTANCE);
   }
 }
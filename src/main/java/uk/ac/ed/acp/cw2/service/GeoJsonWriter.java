@@ -0,0 +1,108 @@
+package uk.ac.ed.acp.cw2.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DeliveryPathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DronePathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.OverallRouteDto;
+
+import java.io.IOException;
+import java.util.List;
+
+// Streaming counterpart of GeoJsonConverter: writes the same FeatureCollection straight to a
+// JsonGenerator instead of building an ObjectNode tree (with an ArrayNode per coordinate pair)
+// that is then serialised a second time. With full precision the output is identical to the
+// converter's; otherwise coordinates are rounded to the given number of decimal places (6 is
+// about 0.1m at Edinburgh's latitude, well below the 0.00015 degree move length).
+public class GeoJsonWriter {
+  public static final int FULL_PRECISION = -1;
+  private static final int MAX_PRECISION = 15;
+
+  private final int precision;
+  private final double scale;
+
+  public GeoJsonWriter(int precision) {
+    if (precision != FULL_PRECISION && (precision < 0 || precision > MAX_PRECISION)) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "precision must be between 0 and " + MAX_PRECISION);
+    }
+    this.precision = precision;
+    this.scale = Math.pow(10, Math.max(precision, 0));
+  }
+
+  public void write(OverallRouteDto overall, JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("type", "FeatureCollection");
+    generator.writeArrayFieldStart("features");
+
+    for (DronePathDto dronePath : overall.getDronePaths()) {
+      int droneId = dronePath.getDroneId();
+
+      for (DeliveryPathDto delivery : dronePath.getDeliveries()) {
+        int deliveryId = delivery.getDeliveryId();
+        List<PositionDto> flightPath = delivery.getFlightPath();
+
+        generator.writeStartObject();
+        generator.writeStringField("type", "Feature");
+        generator.writeObjectFieldStart("properties");
+        generator.writeStringField("featureType", "flightPath");
+        generator.writeNumberField("droneId", droneId);
+        generator.writeNumberField("deliveryId", deliveryId);
+        generator.writeNumberField("totalCost", overall.getTotalCost());
+        generator.writeNumberField("totalMoves", overall.getTotalMoves());
+        generator.writeEndObject();
+
+        generator.writeObjectFieldStart("geometry");
+        generator.writeStringField("type", "LineString");
+        generator.writeArrayFieldStart("coordinates");
+        for (PositionDto pos : flightPath) {
+          writeCoordinate(generator, pos);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndObject();
+
+        if (!flightPath.isEmpty()) {
+          writePointFeature(generator, "start", droneId, deliveryId, flightPath.get(0));
+          writePointFeature(
+              generator, "end", droneId, deliveryId, flightPath.get(flightPath.size() - 1));
+        }
+      }
+    }
+
+    generator.writeEndArray();
+    generator.writeEndObject();
+  }
+
+  private void writePointFeature(
+      JsonGenerator generator, String type, int droneId, int deliveryId, PositionDto pos)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("type", "Feature");
+    generator.writeObjectFieldStart("properties");
+    generator.writeStringField("featureType", type);
+    generator.writeNumberField("droneId", droneId);
+    generator.writeNumberField("deliveryId", deliveryId);
+    generator.writeEndObject();
+
+    generator.writeObjectFieldStart("geometry");
+    generator.writeStringField("type", "Point");
+    generator.writeFieldName("coordinates");
+    writeCoordinate(generator, pos);
+    generator.writeEndObject();
+    generator.writeEndObject();
+  }
+
+  private void writeCoordinate(JsonGenerator generator, PositionDto pos) throws IOException {
+    generator.writeStartArray();
+    generator.writeNumber(round(pos.getLng()));
+    generator.writeNumber(round(pos.getLat()));
+    generator.writeEndArray();
+  }
+
+  private double round(double value) {
+    return precision == FULL_PRECISION ? value : Math.round(value * scale) / scale;
+  }
+}
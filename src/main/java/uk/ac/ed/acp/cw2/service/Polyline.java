@@ -0,0 +1,71 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Google encoded polyline algorithm: each point is stored as the difference from the previous
+// one, in (lat, lng) order, as integers at the given number of decimal places, written in
+// base64-like 5 bit chunks. A drone move is 0.00015 degrees, so at 6 places ("polyline6") a move
+// costs about 4 characters instead of the ~40 a JSON position object takes, and points are kept
+// to within 0.5e-6 degrees (about 5cm).
+public final class Polyline {
+  public static final int DEFAULT_PRECISION = 6;
+
+  private Polyline() {}
+
+  public static String encode(List<PositionDto> path, int precision) {
+    double factor = Math.pow(10, precision);
+    StringBuilder encoded = new StringBuilder(path.size() * 4);
+    long previousLat = 0;
+    long previousLng = 0;
+    for (PositionDto position : path) {
+      long lat = Math.round(position.getLat() * factor);
+      long lng = Math.round(position.getLng() * factor);
+      encodeValue(lat - previousLat, encoded);
+      encodeValue(lng - previousLng, encoded);
+      previousLat = lat;
+      previousLng = lng;
+    }
+    return encoded.toString();
+  }
+
+  public static List<PositionDto> decode(String encoded, int precision) {
+    double factor = Math.pow(10, precision);
+    List<PositionDto> path = new ArrayList<>();
+    int[] index = {0};
+    long lat = 0;
+    long lng = 0;
+    while (index[0] < encoded.length()) {
+      lat += decodeValue(encoded, index);
+      lng += decodeValue(encoded, index);
+      path.add(new PositionDto(lng / factor, lat / factor));
+    }
+    return path;
+  }
+
+  private static void encodeValue(long delta, StringBuilder encoded) {
+    long value = delta < 0 ? ~(delta << 1) : delta << 1;
+    while (value >= 0x20) {
+      encoded.append((char) ((0x20 | (value & 0x1f)) + 63));
+      value >>= 5;
+    }
+    encoded.append((char) (value + 63));
+  }
+
+  private static long decodeValue(String encoded, int[] index) {
+    long value = 0;
+    int shift = 0;
+    int chunk;
+    do {
+      if (index[0] >= encoded.length()) {
+        throw new IllegalArgumentException("Truncated polyline");
+      }
+      chunk = encoded.charAt(index[0]++) - 63;
+      value |= (long) (chunk & 0x1f) << shift;
+      shift += 5;
+    } while (chunk >= 0x20);
+    return (value & 1) != 0 ? ~(value >> 1) : value >> 1;
+  }
+}
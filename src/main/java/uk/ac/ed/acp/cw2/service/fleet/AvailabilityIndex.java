@@ -0,0 +1,187 @@
+package uk.ac.ed.acp.cw2.service.fleet;
+
+import uk.ac.ed.acp.cw2.dtos.AvailabilityDto;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.MedDispatchRecDto;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// Fleet-wide index of drone availability, built once per reference data snapshot. Every
+// AvailabilityDto is parsed up front into an interval on a week-long time axis (nanoseconds
+// since Monday 00:00, so the inclusive from/until bounds keep their full LocalTime precision).
+// A drone's intervals are merged where they overlap and all of them go into one static interval
+// tree, so "which drones are free at this moment" is a single stabbing query instead of a scan
+// that re-parses every drone's schedule. Results are bitsets over fleet positions, the same
+// indexing CapabilityIndex uses.
+public final class AvailabilityIndex {
+  private static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+  private final int size;
+  // Drones stationed at a service point, i.e. that have a schedule at all
+  private final BitSet stationed;
+  // Intervals sorted by start. The tree is implicit: the root of the subtree over [lo, hi] is
+  // the middle element, and maxEnd holds the latest end anywhere in that subtree.
+  private final long[] starts;
+  private final long[] ends;
+  private final int[] droneIndices;
+  private final long[] maxEnd;
+
+  private record Interval(long start, long end, int droneIndex) {}
+
+  private AvailabilityIndex(int size, BitSet stationed, List<Interval> intervals) {
+    this.size = size;
+    this.stationed = stationed;
+    intervals.sort(Comparator.comparingLong(Interval::start));
+    int n = intervals.size();
+    this.starts = new long[n];
+    this.ends = new long[n];
+    this.droneIndices = new int[n];
+    this.maxEnd = new long[n];
+    for (int i = 0; i < n; i++) {
+      Interval interval = intervals.get(i);
+      starts[i] = interval.start();
+      ends[i] = interval.end();
+      droneIndices[i] = interval.droneIndex();
+    }
+    buildMaxEnd(0, n - 1);
+  }
+
+  // Drones are indexed by their position in allDrones; schedules come from the lookup, so a
+  // drone id listed twice in the fleet shares the schedule of its first stationing
+  public static AvailabilityIndex build(List<DroneDto> allDrones, DroneLookup lookup) {
+    BitSet stationed = new BitSet(allDrones.size());
+    List<Interval> intervals = new ArrayList<>();
+    for (int i = 0; i < allDrones.size(); i++) {
+      List<AvailabilityDto> schedule = lookup.availability(allDrones.get(i).getId());
+      if (schedule == null) {
+        continue;
+      }
+      stationed.set(i);
+      intervals.addAll(merge(parse(schedule), i));
+    }
+    return new AvailabilityIndex(allDrones.size(), stationed, intervals);
+  }
+
+  // Position on the week axis of a time on the given day
+  static long slot(DayOfWeek day, LocalTime time) {
+    return (day.getValue() - 1) * NANOS_PER_DAY + time.toNanoOfDay();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // Drones free at the given moment; a missing date or time matches no drone
+  public BitSet freeAt(LocalDate date, LocalTime time) {
+    BitSet free = new BitSet(size);
+    if (date != null && time != null) {
+      stab(0, starts.length - 1, slot(date.getDayOfWeek(), time), free);
+    }
+    return free;
+  }
+
+  // Drones free at the time of every record in the batch. Records are reduced to their distinct
+  // week slots first, so a batch for one delivery window costs a single stabbing query. An empty
+  // batch matches every stationed drone.
+  public BitSet freeForAll(List<MedDispatchRecDto> records) {
+    BitSet free = (BitSet) stationed.clone();
+    long[] slots = new long[records.size()];
+    for (int i = 0; i < records.size(); i++) {
+      MedDispatchRecDto record = records.get(i);
+      if (record.getDate() == null || record.getTime() == null) {
+        return new BitSet(size);
+      }
+      slots[i] = slot(record.getDate().getDayOfWeek(), record.getTime());
+    }
+    long[] distinct = Arrays.stream(slots).sorted().distinct().toArray();
+    for (long slot : distinct) {
+      if (free.isEmpty()) {
+        break;
+      }
+      BitSet freeAtSlot = new BitSet(size);
+      stab(0, starts.length - 1, slot, freeAtSlot);
+      free.and(freeAtSlot);
+    }
+    return free;
+  }
+
+  // Sets the drone of every interval in [lo, hi] containing the slot
+  private void stab(int lo, int hi, long slot, BitSet free) {
+    if (lo > hi) {
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    if (maxEnd[mid] < slot) {
+      return; // every interval in this subtree ends before the slot
+    }
+    stab(lo, mid - 1, slot, free);
+    if (starts[mid] > slot) {
+      return; // this interval and everything to its right starts after the slot
+    }
+    if (ends[mid] >= slot) {
+      free.set(droneIndices[mid]);
+    }
+    stab(mid + 1, hi, slot, free);
+  }
+
+  private long buildMaxEnd(int lo, int hi) {
+    if (lo > hi) {
+      return Long.MIN_VALUE;
+    }
+    int mid = (lo + hi) >>> 1;
+    long max = Math.max(ends[mid], Math.max(buildMaxEnd(lo, mid - 1), buildMaxEnd(mid + 1, hi)));
+    maxEnd[mid] = max;
+    return max;
+  }
+
+  // Schedule entries as week-axis intervals. Entries whose day or times cannot be parsed, or that
+  // end before they start, could never match a request and are dropped.
+  private static List<long[]> parse(List<AvailabilityDto> schedule) {
+    List<long[]> parsed = new ArrayList<>(schedule.size());
+    for (AvailabilityDto entry : schedule) {
+      try {
+        DayOfWeek day = DayOfWeek.valueOf(entry.getDayOfWeek().toUpperCase(Locale.ROOT));
+        LocalTime from = LocalTime.parse(entry.getFrom());
+        LocalTime until = LocalTime.parse(entry.getUntil());
+        if (!until.isBefore(from)) {
+          parsed.add(new long[] {slot(day, from), slot(day, until)});
+        }
+      } catch (DateTimeException | IllegalArgumentException e) {
+        // Unusable entry, never available
+      }
+    }
+    return parsed;
+  }
+
+  // Sorts one drone's intervals and merges those that overlap or touch
+  private static List<Interval> merge(List<long[]> parsed, int droneIndex) {
+    parsed.sort(Comparator.comparingLong(interval -> interval[0]));
+    List<Interval> merged = new ArrayList<>(parsed.size());
+    long start = 0;
+    long end = -1;
+    for (long[] interval : parsed) {
+      if (end >= start && interval[0] <= end + 1) {
+        end = Math.max(end, interval[1]);
+        continue;
+      }
+      if (end >= start) {
+        merged.add(new Interval(start, end, droneIndex));
+      }
+      start = interval[0];
+      end = interval[1];
+    }
+    if (end >= start) {
+      merged.add(new Interval(start, end, droneIndex));
+    }
+    return merged;
+  }
+}
@@ -0,0 +1,97 @@
+package uk.ac.ed.acp.cw2.service.fleet;
+
+import uk.ac.ed.acp.cw2.dtos.AvailabilityDto;
+import uk.ac.ed.acp.cw2.dtos.DroneAvailabilityDto;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDronesDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hash lookups from drone id to the drone, the service point it is stationed at, that service
+// point's position and the drone's availability, built once per reference data snapshot. Where
+// the ILP data lists an id more than once the first occurrence wins, matching the findFirst
+// scans these tables replace.
+public final class DroneLookup {
+  private final Map<String, DroneDto> drones = new HashMap<>();
+  private final Map<String, Integer> fleetIndices = new HashMap<>();
+  private final Map<String, Integer> servicePointIds = new HashMap<>();
+  private final Map<String, List<AvailabilityDto>> availability = new HashMap<>();
+  private final Map<Integer, ServicePointDto> servicePoints = new HashMap<>();
+  private final Map<Integer, PositionDto> servicePointPositions = new HashMap<>();
+
+  private DroneLookup(
+      List<DroneDto> allDrones,
+      List<ServicePointDronesDto> dronesForServicePoints,
+      List<ServicePointDto> servicePointList) {
+    for (int i = 0; i < allDrones.size(); i++) {
+      DroneDto drone = allDrones.get(i);
+      if (drones.putIfAbsent(drone.getId(), drone) == null) {
+        fleetIndices.put(drone.getId(), i);
+      }
+    }
+    for (ServicePointDronesDto servicePoint : dronesForServicePoints) {
+      for (DroneAvailabilityDto drone : servicePoint.getDrones()) {
+        if (!servicePointIds.containsKey(drone.getId())) {
+          servicePointIds.put(drone.getId(), servicePoint.getServicePointId());
+          availability.put(drone.getId(), drone.getAvailability());
+        }
+      }
+    }
+    for (ServicePointDto servicePoint : servicePointList) {
+      if (servicePoints.putIfAbsent(servicePoint.getId(), servicePoint) == null) {
+        LocationDto location = servicePoint.getLocation();
+        servicePointPositions.put(
+            servicePoint.getId(), new PositionDto(location.getLng(), location.getLat()));
+      }
+    }
+  }
+
+  public static DroneLookup build(
+      List<DroneDto> allDrones,
+      List<ServicePointDronesDto> dronesForServicePoints,
+      List<ServicePointDto> servicePoints) {
+    return new DroneLookup(allDrones, dronesForServicePoints, servicePoints);
+  }
+
+  // The drone with this id, or null
+  public DroneDto drone(String droneId) {
+    return drones.get(droneId);
+  }
+
+  // Position of the drone in the fleet list, which indexes the per-snapshot drone bitsets, or -1
+  public int fleetIndex(String droneId) {
+    return fleetIndices.getOrDefault(droneId, -1);
+  }
+
+  // Id of the service point the drone is stationed at, or -1 if it is not stationed anywhere
+  public int servicePointId(String droneId) {
+    return servicePointIds.getOrDefault(droneId, -1);
+  }
+
+  // The drone's availability at its service point, or null if it is not stationed anywhere
+  public List<AvailabilityDto> availability(String droneId) {
+    return availability.get(droneId);
+  }
+
+  // The service point with this id, or null
+  public ServicePointDto servicePoint(int servicePointId) {
+    return servicePoints.get(servicePointId);
+  }
+
+  // Position of the service point with this id, or null
+  public PositionDto servicePointPosition(int servicePointId) {
+    return servicePointPositions.get(servicePointId);
+  }
+
+  // Position of the service point the drone starts from, or null if it is not stationed at a
+  // known service point
+  public PositionDto startPosition(String droneId) {
+    Integer servicePointId = servicePointIds.get(droneId);
+    return servicePointId != null ? servicePointPositions.get(servicePointId) : null;
+  }
+}
@@ -0,0 +1,167 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+// Restricted region polygon flattened into primitive coordinate arrays with a precomputed
+// bounding box. Point tests mirror CalculatePositioning.isInRegion: points inside the polygon or
+// within ERROR_TOLERANCE of its boundary count as inside.
+final class CompiledPolygon {
+  static final double ERROR_TOLERANCE = 1e-12;
+
+  final String name;
+  // Vertices of the open ring, i.e. the closing vertex equal to the first one is dropped
+  final double[] xs;
+  final double[] ys;
+  final double minX;
+  final double minY;
+  final double maxX;
+  final double maxY;
+
+  CompiledPolygon(String name, double[] xs, double[] ys) {
+    this.name = name;
+    this.xs = xs;
+    this.ys = ys;
+    double loX = Double.POSITIVE_INFINITY, loY = Double.POSITIVE_INFINITY;
+    double hiX = Double.NEGATIVE_INFINITY, hiY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < xs.length; i++) {
+      loX = Math.min(loX, xs[i]);
+      loY = Math.min(loY, ys[i]);
+      hiX = Math.max(hiX, xs[i]);
+      hiY = Math.max(hiY, ys[i]);
+    }
+    this.minX = loX;
+    this.minY = loY;
+    this.maxX = hiX;
+    this.maxY = hiY;
+  }
+
+  boolean boundsContain(double x, double y) {
+    return x >= minX - ERROR_TOLERANCE
+        && x <= maxX + ERROR_TOLERANCE
+        && y >= minY - ERROR_TOLERANCE
+        && y <= maxY + ERROR_TOLERANCE;
+  }
+
+  boolean contains(double x, double y) {
+    if (!boundsContain(x, y)) {
+      return false;
+    }
+    // Crossing-number test, with an explicit boundary check so edge points count as inside
+    boolean inside = false;
+    int n = xs.length;
+    for (int i = 0, j = n - 1; i < n; j = i++) {
+      double xi = xs[i], yi = ys[i], xj = xs[j], yj = ys[j];
+      if (isOnSegment(x, y, xj, yj, xi, yi)) {
+        return true;
+      }
+      if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+        inside = !inside;
+      }
+    }
+    return inside;
+  }
+
+  // True if the point lies in the interior, i.e. inside and not within ERROR_TOLERANCE of the
+  // boundary
+  boolean interiorContains(double x, double y) {
+    if (!boundsContain(x, y)) {
+      return false;
+    }
+    boolean inside = false;
+    int n = xs.length;
+    for (int i = 0, j = n - 1; i < n; j = i++) {
+      double xi = xs[i], yi = ys[i], xj = xs[j], yj = ys[j];
+      if (isOnSegment(x, y, xj, yj, xi, yi)) {
+        return false;
+      }
+      if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+        inside = !inside;
+      }
+    }
+    return inside;
+  }
+
+  // True if the move from a to b ends inside the polygon or cuts through it, e.g. across a
+  // corner. Touching the boundary without entering the interior is allowed so that a move may
+  // start from a boundary point. Only primitive arithmetic, no allocation.
+  //
+  // Equivalent to contains(b) || contains(midpoint) || a strict crossing of any edge, in a single
+  // crossing-number pass for b. Edges whose bounding box misses the move's can neither be crossed
+  // nor touched by it. A move can only have its midpoint inside while b is outside by crossing an
+  // edge strictly or passing through a vertex, so the midpoint is tested only when a vertex lies
+  // on the move's line.
+  boolean crossedBySegment(double ax, double ay, double bx, double by) {
+    double loX = Math.min(ax, bx) - ERROR_TOLERANCE, hiX = Math.max(ax, bx) + ERROR_TOLERANCE;
+    double loY = Math.min(ay, by) - ERROR_TOLERANCE, hiY = Math.max(ay, by) + ERROR_TOLERANCE;
+    if (hiX < minX || loX > maxX || hiY < minY || loY > maxY) {
+      return false;
+    }
+    // Orientations this small put a vertex within ERROR_TOLERANCE of the move's line
+    double onLine = ERROR_TOLERANCE * (Math.abs(bx - ax) + Math.abs(by - ay));
+    boolean endInside = false;
+    boolean vertexOnMove = false;
+    int n = xs.length;
+    for (int i = 0, j = n - 1; i < n; j = i++) {
+      double xi = xs[i], yi = ys[i], xj = xs[j], yj = ys[j];
+      if (Math.max(xi, xj) >= loX
+          && Math.min(xi, xj) <= hiX
+          && Math.max(yi, yj) >= loY
+          && Math.min(yi, yj) <= hiY) {
+        if (isOnSegment(bx, by, xj, yj, xi, yi)) {
+          return true;
+        }
+        double o1 = orientation(ax, ay, bx, by, xj, yj);
+        double o2 = orientation(ax, ay, bx, by, xi, yi);
+        if (Math.abs(o1) <= onLine || Math.abs(o2) <= onLine) {
+          vertexOnMove = true;
+        } else if ((o1 > 0) != (o2 > 0)) {
+          double o3 = orientation(xj, yj, xi, yi, ax, ay);
+          double o4 = orientation(xj, yj, xi, yi, bx, by);
+          if (o3 > 0 && o4 < 0 || o3 < 0 && o4 > 0) {
+            return true;
+          }
+        }
+      }
+      if ((yi > by) != (yj > by) && bx < (xj - xi) * (by - yi) / (yj - yi) + xi) {
+        endInside = !endInside;
+      }
+    }
+    return endInside || vertexOnMove && contains((ax + bx) / 2, (ay + by) / 2);
+  }
+
+  // Strict crossing of segments ab and cd: each segment has the other's endpoints on opposite
+  // sides
+  static boolean properlyIntersect(
+      double ax, double ay, double bx, double by, double cx, double cy, double dx, double dy) {
+    double o1 = orientation(ax, ay, bx, by, cx, cy);
+    double o2 = orientation(ax, ay, bx, by, dx, dy);
+    if (!(o1 > 0 && o2 < 0 || o1 < 0 && o2 > 0)) {
+      return false;
+    }
+    double o3 = orientation(cx, cy, dx, dy, ax, ay);
+    double o4 = orientation(cx, cy, dx, dy, bx, by);
+    return o3 > 0 && o4 < 0 || o3 < 0 && o4 > 0;
+  }
+
+  static double orientation(
+      double ax, double ay, double bx, double by, double cx, double cy) {
+    return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+  }
+
+  private static boolean isOnSegment(
+      double px, double py, double ax, double ay, double bx, double by) {
+    // Points outside the edge's tolerance box cannot be on it; most tests end here
+    if (px < Math.min(ax, bx) - ERROR_TOLERANCE
+        || px > Math.max(ax, bx) + ERROR_TOLERANCE
+        || py < Math.min(ay, by) - ERROR_TOLERANCE
+        || py > Math.max(ay, by) + ERROR_TOLERANCE) {
+      return false;
+    }
+    double dx = bx - ax;
+    double dy = by - ay;
+    double lengthSquared = dx * dx + dy * dy;
+    double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+    t = Math.max(0, Math.min(1, t));
+    double ex = ax + t * dx - px;
+    double ey = ay + t * dy - py;
+    return ex * ex + ey * ey <= ERROR_TOLERANCE * ERROR_TOLERANCE;
+  }
+}
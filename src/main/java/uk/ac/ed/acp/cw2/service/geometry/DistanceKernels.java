@@ -0,0 +1,50 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+// Batch Euclidean distance kernels over primitive coordinate arrays, for callers that would
+// otherwise build a PositionDto pair and a DistanceDto per distance. Every implementation gives
+// bit-for-bit the same results as the scalar sqrt(dx * dx + dy * dy), so callers can switch
+// freely. VECTOR uses the JDK Vector API. It is only compiled with the vector Maven profile and
+// only available when the JVM is started with --add-modules jdk.incubator.vector; best() falls
+// back to SCALAR otherwise.
+public interface DistanceKernels {
+  DistanceKernels SCALAR = new ScalarDistanceKernels();
+
+  // Vector API kernels, or null when they were not built or the module is not in the boot layer
+  DistanceKernels VECTOR = vectorKernels();
+
+  static DistanceKernels best() {
+    return VECTOR != null ? VECTOR : SCALAR;
+  }
+
+  // Distances from (x, y) to every (xs[i], ys[i]), written to out[offset + i]
+  void oneToMany(double x, double y, double[] xs, double[] ys, double[] out, int offset);
+
+  default double[] oneToMany(double x, double y, double[] xs, double[] ys) {
+    double[] out = new double[xs.length];
+    oneToMany(x, y, xs, ys, out, 0);
+    return out;
+  }
+
+  // Distances from every a to every b, row-major: out[i * bxs.length + j] is |a_i - b_j|
+  default double[] manyToMany(double[] axs, double[] ays, double[] bxs, double[] bys) {
+    double[] out = new double[axs.length * bxs.length];
+    for (int i = 0; i < axs.length; i++) {
+      oneToMany(axs[i], ays[i], bxs, bys, out, i * bxs.length);
+    }
+    return out;
+  }
+
+  private static DistanceKernels vectorKernels() {
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      return null;
+    }
+    try {
+      return (DistanceKernels)
+          Class.forName("uk.ac.ed.acp.cw2.service.geometry.VectorDistanceKernels")
+              .getDeclaredConstructor()
+              .newInstance();
+    } catch (ReflectiveOperationException | LinkageError error) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.RestrictedRegionDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Compiled no-fly-zone index. Restricted regions are converted once into CompiledPolygons and
+// bucketed into a uniform grid over their combined bounding box, so a point test only visits the
+// polygons whose bounding box overlaps the grid cell containing the point. The visibility graph
+// over the regions' corners is built alongside, so it is rebuilt exactly when the regions change.
+public final class RestrictedRegionIndex {
+  private static final int MAX_CELLS_PER_AXIS = 64;
+
+  private static final int[] NO_CANDIDATES = new int[0];
+
+  private final CompiledPolygon[] polygons;
+  private final double minX;
+  private final double minY;
+  private final double maxX;
+  private final double maxY;
+  private final int columns;
+  private final int rows;
+  private final double cellWidth;
+  private final double cellHeight;
+  private final int[][] cells;
+  // First grid column and row each polygon is bucketed into
+  private final int[] firstColumns;
+  private final int[] firstRows;
+  private final VisibilityGraph visibilityGraph;
+
+  private RestrictedRegionIndex(List<CompiledPolygon> compiled) {
+    this.polygons = compiled.toArray(new CompiledPolygon[0]);
+    this.visibilityGraph = new VisibilityGraph(polygons);
+    double loX = Double.POSITIVE_INFINITY, loY = Double.POSITIVE_INFINITY;
+    double hiX = Double.NEGATIVE_INFINITY, hiY = Double.NEGATIVE_INFINITY;
+    for (CompiledPolygon polygon : polygons) {
+      loX = Math.min(loX, polygon.minX - CompiledPolygon.ERROR_TOLERANCE);
+      loY = Math.min(loY, polygon.minY - CompiledPolygon.ERROR_TOLERANCE);
+      hiX = Math.max(hiX, polygon.maxX + CompiledPolygon.ERROR_TOLERANCE);
+      hiY = Math.max(hiY, polygon.maxY + CompiledPolygon.ERROR_TOLERANCE);
+    }
+    this.minX = loX;
+    this.minY = loY;
+    this.maxX = hiX;
+    this.maxY = hiY;
+
+    if (polygons.length == 0) {
+      this.columns = 0;
+      this.rows = 0;
+      this.cellWidth = 0;
+      this.cellHeight = 0;
+      this.cells = new int[0][];
+      this.firstColumns = new int[0];
+      this.firstRows = new int[0];
+      return;
+    }
+
+    // Roughly four cells per polygon along each axis, capped to keep the grid small
+    int perAxis =
+        Math.min(MAX_CELLS_PER_AXIS, 4 * (int) Math.ceil(Math.sqrt(polygons.length)));
+    this.columns = perAxis;
+    this.rows = perAxis;
+    this.cellWidth = (maxX - minX) / columns;
+    this.cellHeight = (maxY - minY) / rows;
+
+    List<List<Integer>> buckets = new ArrayList<>(columns * rows);
+    for (int i = 0; i < columns * rows; i++) {
+      buckets.add(new ArrayList<>());
+    }
+    this.firstColumns = new int[polygons.length];
+    this.firstRows = new int[polygons.length];
+    for (int p = 0; p < polygons.length; p++) {
+      CompiledPolygon polygon = polygons[p];
+      int c0 = column(polygon.minX - CompiledPolygon.ERROR_TOLERANCE);
+      int c1 = column(polygon.maxX + CompiledPolygon.ERROR_TOLERANCE);
+      int r0 = row(polygon.minY - CompiledPolygon.ERROR_TOLERANCE);
+      int r1 = row(polygon.maxY + CompiledPolygon.ERROR_TOLERANCE);
+      firstColumns[p] = c0;
+      firstRows[p] = r0;
+      for (int r = r0; r <= r1; r++) {
+        for (int c = c0; c <= c1; c++) {
+          buckets.get(r * columns + c).add(p);
+        }
+      }
+    }
+    this.cells = new int[columns * rows][];
+    for (int i = 0; i < cells.length; i++) {
+      List<Integer> bucket = buckets.get(i);
+      cells[i] =
+          bucket.isEmpty()
+              ? NO_CANDIDATES
+              : bucket.stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  public static RestrictedRegionIndex build(List<RestrictedRegionDto> restrictedRegions) {
+    List<CompiledPolygon> compiled = new ArrayList<>();
+    for (RestrictedRegionDto region : restrictedRegions) {
+      List<LocationDto> vertices = region.getVertices();
+      if (vertices == null || vertices.size() < 3) {
+        continue;
+      }
+      int count = vertices.size();
+      LocationDto first = vertices.getFirst();
+      LocationDto last = vertices.getLast();
+      if (first.getLng().equals(last.getLng()) && first.getLat().equals(last.getLat())) {
+        count--; // drop the closing vertex, the ring is closed implicitly
+      }
+      double[] xs = new double[count];
+      double[] ys = new double[count];
+      for (int i = 0; i < count; i++) {
+        xs[i] = vertices.get(i).getLng();
+        ys[i] = vertices.get(i).getLat();
+      }
+      compiled.add(new CompiledPolygon(region.getName(), xs, ys));
+    }
+    return new RestrictedRegionIndex(compiled);
+  }
+
+  public int size() {
+    return polygons.length;
+  }
+
+  public VisibilityGraph visibilityGraph() {
+    return visibilityGraph;
+  }
+
+  // True if the point lies inside (or on the boundary of) any restricted region
+  public boolean contains(double lng, double lat) {
+    if (polygons.length == 0 || lng < minX || lng > maxX || lat < minY || lat > maxY) {
+      return false;
+    }
+    for (int p : cells[row(lat) * columns + column(lng)]) {
+      if (polygons[p].contains(lng, lat)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // False if no region's bounding box comes within radius of the point, i.e. no move of at most
+  // that length from it can touch a region. A* asks once per expanded node and skips the
+  // per-neighbour checks when nothing is near.
+  public boolean near(double x, double y, double radius) {
+    double loX = x - radius, hiX = x + radius;
+    double loY = y - radius, hiY = y + radius;
+    if (polygons.length == 0 || hiX < minX || loX > maxX || hiY < minY || loY > maxY) {
+      return false;
+    }
+    int c0 = column(loX), c1 = column(hiX);
+    int r0 = row(loY), r1 = row(hiY);
+    for (int r = r0; r <= r1; r++) {
+      for (int c = c0; c <= c1; c++) {
+        for (int p : cells[r * columns + c]) {
+          CompiledPolygon polygon = polygons[p];
+          if (hiX >= polygon.minX - CompiledPolygon.ERROR_TOLERANCE
+              && loX <= polygon.maxX + CompiledPolygon.ERROR_TOLERANCE
+              && hiY >= polygon.minY - CompiledPolygon.ERROR_TOLERANCE
+              && loY <= polygon.maxY + CompiledPolygon.ERROR_TOLERANCE) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  // True if the straight move from a to b enters or cuts across any restricted region. Only the
+  // grid cells overlapped by the segment's bounding box are visited, and a polygon bucketed into
+  // several of them is tested once, in the first cell it shares with the segment.
+  public boolean crossesSegment(double ax, double ay, double bx, double by) {
+    double loX = Math.min(ax, bx), hiX = Math.max(ax, bx);
+    double loY = Math.min(ay, by), hiY = Math.max(ay, by);
+    if (polygons.length == 0 || hiX < minX || loX > maxX || hiY < minY || loY > maxY) {
+      return false;
+    }
+    int c0 = column(loX), c1 = column(hiX);
+    int r0 = row(loY), r1 = row(hiY);
+    for (int r = r0; r <= r1; r++) {
+      for (int c = c0; c <= c1; c++) {
+        for (int p : cells[r * columns + c]) {
+          if (c == Math.max(c0, firstColumns[p])
+              && r == Math.max(r0, firstRows[p])
+              && polygons[p].crossedBySegment(ax, ay, bx, by)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private int column(double x) {
+    return Math.min(columns - 1, Math.max(0, (int) ((x - minX) / cellWidth)));
+  }
+
+  private int row(double y) {
+    return Math.min(rows - 1, Math.max(0, (int) ((y - minY) / cellHeight)));
+  }
+}
@@ -0,0 +1,13 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+final class ScalarDistanceKernels implements DistanceKernels {
+
+  @Override
+  public void oneToMany(double x, double y, double[] xs, double[] ys, double[] out, int offset) {
+    for (int i = 0; i < xs.length; i++) {
+      double dx = xs[i] - x;
+      double dy = ys[i] - y;
+      out[offset + i] = Math.sqrt(dx * dx + dy * dy);
+    }
+  }
+}
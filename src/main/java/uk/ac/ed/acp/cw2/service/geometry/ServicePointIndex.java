@@ -0,0 +1,175 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// 2-d tree over the service point locations, built once per reference data snapshot, answering
+// nearest and k-nearest service point queries in O(log n) expected time instead of a scan over
+// every service point. The tree is implicit: each subrange of the arrays is split at its middle
+// element on longitude at even depths and latitude at odd depths. Where an id appears more than
+// once the first occurrence wins, as in DroneLookup; service points without a location are left
+// out. Ranges of LEAF_SIZE or fewer are not split further and are scanned directly.
+public final class ServicePointIndex {
+  private static final int LEAF_SIZE = 8;
+
+  private final double[] xs;
+  private final double[] ys;
+  private final int[] ids;
+
+  private ServicePointIndex(double[] xs, double[] ys, int[] ids) {
+    this.xs = xs;
+    this.ys = ys;
+    this.ids = ids;
+    build(0, ids.length, 0);
+  }
+
+  public static ServicePointIndex build(List<ServicePointDto> servicePoints) {
+    Set<Integer> seen = new HashSet<>();
+    List<ServicePointDto> indexed = new ArrayList<>();
+    for (ServicePointDto servicePoint : servicePoints) {
+      if (servicePoint.getLocation() != null && seen.add(servicePoint.getId())) {
+        indexed.add(servicePoint);
+      }
+    }
+    int n = indexed.size();
+    double[] xs = new double[n];
+    double[] ys = new double[n];
+    int[] ids = new int[n];
+    for (int i = 0; i < n; i++) {
+      LocationDto location = indexed.get(i).getLocation();
+      xs[i] = location.getLng();
+      ys[i] = location.getLat();
+      ids[i] = indexed.get(i).getId();
+    }
+    return new ServicePointIndex(xs, ys, ids);
+  }
+
+  public int size() {
+    return ids.length;
+  }
+
+  // Id of the service point closest to (x, y), or -1 if there are none
+  public int nearest(double x, double y) {
+    if (ids.length == 0) {
+      return -1;
+    }
+    Neighbours nearest = new Neighbours(1);
+    search(0, ids.length, 0, x, y, nearest);
+    return nearest.ids[0];
+  }
+
+  // Ids of the k service points closest to (x, y), closest first
+  public int[] nearest(double x, double y, int k) {
+    Neighbours neighbours = new Neighbours(Math.min(k, ids.length));
+    if (neighbours.capacity > 0) {
+      search(0, ids.length, 0, x, y, neighbours);
+    }
+    return Arrays.copyOf(neighbours.ids, neighbours.count);
+  }
+
+  private void build(int from, int to, int depth) {
+    if (to - from <= LEAF_SIZE) {
+      return;
+    }
+    Integer[] order = new Integer[to - from];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = from + i;
+    }
+    double[] axis = depth % 2 == 0 ? xs : ys;
+    Arrays.sort(order, Comparator.comparingDouble(i -> axis[i]));
+    double[] sortedXs = new double[order.length];
+    double[] sortedYs = new double[order.length];
+    int[] sortedIds = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      sortedXs[i] = xs[order[i]];
+      sortedYs[i] = ys[order[i]];
+      sortedIds[i] = ids[order[i]];
+    }
+    System.arraycopy(sortedXs, 0, xs, from, order.length);
+    System.arraycopy(sortedYs, 0, ys, from, order.length);
+    System.arraycopy(sortedIds, 0, ids, from, order.length);
+
+    int middle = (from + to) >>> 1;
+    build(from, middle, depth + 1);
+    build(middle + 1, to, depth + 1);
+  }
+
+  private void search(int from, int to, int depth, double x, double y, Neighbours neighbours) {
+    if (to - from <= LEAF_SIZE) {
+      for (int i = from; i < to; i++) {
+        double dx = xs[i] - x;
+        double dy = ys[i] - y;
+        neighbours.offer(ids[i], dx * dx + dy * dy);
+      }
+      return;
+    }
+    int middle = (from + to) >>> 1;
+    double dx = xs[middle] - x;
+    double dy = ys[middle] - y;
+    neighbours.offer(ids[middle], dx * dx + dy * dy);
+
+    // Search the side of the split the query is on first, the other only if it can be closer
+    double split = depth % 2 == 0 ? -dx : -dy;
+    boolean before = split < 0;
+    if (before) {
+      search(from, middle, depth + 1, x, y, neighbours);
+    } else {
+      search(middle + 1, to, depth + 1, x, y, neighbours);
+    }
+    if (!neighbours.full() || split * split <= neighbours.worst()) {
+      if (before) {
+        search(middle + 1, to, depth + 1, x, y, neighbours);
+      } else {
+        search(from, middle, depth + 1, x, y, neighbours);
+      }
+    }
+  }
+
+  // The closest service points found so far, sorted by squared distance and then id so that
+  // equally distant ones come out in a stable order
+  private static final class Neighbours {
+    private final int capacity;
+    private final int[] ids;
+    private final double[] squared;
+    private int count;
+
+    private Neighbours(int capacity) {
+      this.capacity = Math.max(capacity, 0);
+      this.ids = new int[this.capacity];
+      this.squared = new double[this.capacity];
+    }
+
+    private boolean full() {
+      return count == capacity;
+    }
+
+    private double worst() {
+      return squared[count - 1];
+    }
+
+    private void offer(int id, double distance) {
+      int position = count;
+      while (position > 0
+          && (squared[position - 1] > distance
+              || squared[position - 1] == distance && ids[position - 1] > id)) {
+        position--;
+      }
+      if (position == capacity) {
+        return;
+      }
+      int last = Math.min(count, capacity - 1);
+      System.arraycopy(ids, position, ids, position + 1, last - position);
+      System.arraycopy(squared, position, squared, position + 1, last - position);
+      ids[position] = id;
+      squared[position] = distance;
+      count = Math.min(count + 1, capacity);
+    }
+  }
+}
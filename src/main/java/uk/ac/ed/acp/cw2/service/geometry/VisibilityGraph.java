@@ -0,0 +1,198 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+import java.util.Arrays;
+
+// Visibility graph over the convex corners of the restricted regions, for obstacle-aware distance
+// lower bounds. Any path that avoids the regions' interiors is at least as long as the shortest
+// such path, which is a straight line if the target is visible and otherwise bends only at convex
+// corners it passes tangentially. The corner-to-corner graph is built once per
+// RestrictedRegionIndex; distancesTo runs Dijkstra from one target over it, and the resulting
+// DistanceField answers lower bounds for arbitrary points.
+//
+// Corners are used exactly, not inflated: inflating them would lengthen the graph paths beyond
+// what a lattice path can achieve and the bound would no longer be admissible. Visibility errs
+// towards "visible" (a segment grazing a corner is not blocked), which can only lower the bound.
+public final class VisibilityGraph {
+  private final CompiledPolygon[] polygons;
+  // Convex corners with the neighbouring vertices of their polygon, for tangency tests
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] previousXs;
+  private final double[] previousYs;
+  private final double[] nextXs;
+  private final double[] nextYs;
+  // Corner-to-corner distances, infinite where the corners cannot see each other
+  private final double[][] edges;
+
+  VisibilityGraph(CompiledPolygon[] polygons) {
+    this.polygons = polygons;
+    int capacity = 0;
+    for (CompiledPolygon polygon : polygons) {
+      capacity += polygon.xs.length;
+    }
+    double[] cx = new double[capacity], cy = new double[capacity];
+    double[] px = new double[capacity], py = new double[capacity];
+    double[] nx = new double[capacity], ny = new double[capacity];
+    int count = 0;
+    for (CompiledPolygon polygon : polygons) {
+      int n = polygon.xs.length;
+      double orientation = Math.signum(signedArea(polygon));
+      for (int i = 0; i < n; i++) {
+        int previous = (i + n - 1) % n;
+        int next = (i + 1) % n;
+        double turn =
+            CompiledPolygon.orientation(
+                polygon.xs[previous], polygon.ys[previous],
+                polygon.xs[i], polygon.ys[i],
+                polygon.xs[next], polygon.ys[next]);
+        if (Math.signum(turn) != orientation || orientation == 0) {
+          continue; // reflex or degenerate corner, shortest paths never bend there
+        }
+        cx[count] = polygon.xs[i];
+        cy[count] = polygon.ys[i];
+        px[count] = polygon.xs[previous];
+        py[count] = polygon.ys[previous];
+        nx[count] = polygon.xs[next];
+        ny[count] = polygon.ys[next];
+        count++;
+      }
+    }
+    this.xs = Arrays.copyOf(cx, count);
+    this.ys = Arrays.copyOf(cy, count);
+    this.previousXs = Arrays.copyOf(px, count);
+    this.previousYs = Arrays.copyOf(py, count);
+    this.nextXs = Arrays.copyOf(nx, count);
+    this.nextYs = Arrays.copyOf(ny, count);
+
+    this.edges = new double[count][count];
+    for (int a = 0; a < count; a++) {
+      edges[a][a] = 0.0;
+      for (int b = a + 1; b < count; b++) {
+        double length =
+            visible(xs[a], ys[a], xs[b], ys[b])
+                ? distance(xs[a], ys[a], xs[b], ys[b])
+                : Double.POSITIVE_INFINITY;
+        edges[a][b] = length;
+        edges[b][a] = length;
+      }
+    }
+  }
+
+  public int corners() {
+    return xs.length;
+  }
+
+  // Shortest obstacle-avoiding distances from every corner to the target
+  public DistanceField distancesTo(double targetX, double targetY) {
+    int n = xs.length;
+    double[] toTarget = new double[n];
+    boolean[] settled = new boolean[n];
+    for (int v = 0; v < n; v++) {
+      toTarget[v] =
+          visible(xs[v], ys[v], targetX, targetY)
+              ? distance(xs[v], ys[v], targetX, targetY)
+              : Double.POSITIVE_INFINITY;
+    }
+    // Dense Dijkstra; corner counts are small, so a linear scan beats a heap
+    for (int round = 0; round < n; round++) {
+      int closest = -1;
+      for (int v = 0; v < n; v++) {
+        if (!settled[v] && (closest < 0 || toTarget[v] < toTarget[closest])) {
+          closest = v;
+        }
+      }
+      if (closest < 0 || toTarget[closest] == Double.POSITIVE_INFINITY) {
+        break;
+      }
+      settled[closest] = true;
+      for (int v = 0; v < n; v++) {
+        double viaClosest = toTarget[closest] + edges[closest][v];
+        if (!settled[v] && viaClosest < toTarget[v]) {
+          toTarget[v] = viaClosest;
+        }
+      }
+    }
+    return new DistanceField(targetX, targetY, toTarget);
+  }
+
+  // Lower bounds on the obstacle-avoiding distance to one target
+  public final class DistanceField {
+    private final double targetX;
+    private final double targetY;
+    private final double[] toTarget;
+
+    private DistanceField(double targetX, double targetY, double[] toTarget) {
+      this.targetX = targetX;
+      this.targetY = targetY;
+      this.toTarget = toTarget;
+    }
+
+    // Straight-line distance if the target is visible from (x, y); otherwise the shortest route
+    // through a visible corner that the line of sight from (x, y) grazes tangentially. Never less
+    // than the straight-line distance, never more than the shortest obstacle-avoiding path.
+    public double lowerBound(double x, double y) {
+      double direct = distance(x, y, targetX, targetY);
+      if (visible(x, y, targetX, targetY)) {
+        return direct;
+      }
+      double best = Double.POSITIVE_INFINITY;
+      for (int v = 0; v < xs.length; v++) {
+        if (toTarget[v] == Double.POSITIVE_INFINITY) {
+          continue;
+        }
+        double viaCorner = distance(x, y, xs[v], ys[v]) + toTarget[v];
+        if (viaCorner < best && tangent(x, y, v) && visible(x, y, xs[v], ys[v])) {
+          best = viaCorner;
+        }
+      }
+      return best == Double.POSITIVE_INFINITY ? direct : Math.max(direct, best);
+    }
+  }
+
+  // True unless the segment crosses a region edge or runs through a region's interior
+  boolean visible(double ax, double ay, double bx, double by) {
+    double loX = Math.min(ax, bx), hiX = Math.max(ax, bx);
+    double loY = Math.min(ay, by), hiY = Math.max(ay, by);
+    double midX = (ax + bx) / 2, midY = (ay + by) / 2;
+    for (CompiledPolygon polygon : polygons) {
+      if (hiX < polygon.minX || loX > polygon.maxX || hiY < polygon.minY || loY > polygon.maxY) {
+        continue;
+      }
+      if (polygon.interiorContains(midX, midY)) {
+        return false;
+      }
+      int n = polygon.xs.length;
+      for (int i = 0, j = n - 1; i < n; j = i++) {
+        if (CompiledPolygon.properlyIntersect(
+            ax, ay, bx, by, polygon.xs[j], polygon.ys[j], polygon.xs[i], polygon.ys[i])) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  // A shortest path from (x, y) can only bend at corner v if both of v's neighbours lie on the
+  // same side of the line through (x, y) and v
+  private boolean tangent(double x, double y, int v) {
+    double previousSide =
+        CompiledPolygon.orientation(x, y, xs[v], ys[v], previousXs[v], previousYs[v]);
+    double nextSide = CompiledPolygon.orientation(x, y, xs[v], ys[v], nextXs[v], nextYs[v]);
+    return !(previousSide > 0 && nextSide < 0 || previousSide < 0 && nextSide > 0);
+  }
+
+  private static double signedArea(CompiledPolygon polygon) {
+    double area = 0;
+    int n = polygon.xs.length;
+    for (int i = 0, j = n - 1; i < n; j = i++) {
+      area += polygon.xs[j] * polygon.ys[i] - polygon.xs[i] * polygon.ys[j];
+    }
+    return area / 2;
+  }
+
+  private static double distance(double x1, double y1, double x2, double y2) {
+    double dx = x1 - x2;
+    double dy = y1 - y2;
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+}
@@ -0,0 +1,279 @@
+package uk.ac.ed.acp.cw2.service.planning;
+
+import uk.ac.ed.acp.cw2.dtos.CapabilityDto;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.MedDispatchRecDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.RequirementsDto;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+import uk.ac.ed.acp.cw2.service.geometry.DistanceKernels;
+import uk.ac.ed.acp.cw2.service.geometry.ServicePointIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+// Decides which drone delivers which dispatch records, grouped into baskets and ordered, before
+// any A* search runs. Costs come from straight-line move counts between service points and
+// deliveries, with one batch distance kernel row per candidate. A drone cannot take a record
+// that needs more capacity, cooling or heating than it has, falls outside its shift, or is too
+// far for a round trip within maxMoves.
+//
+// With a ServicePointIndex, a record is only offered to drones stationed at its nearest few
+// service points, which keeps each insertion to the tours nearby. A record that none of those
+// drones can serve is offered to every candidate instead.
+//
+// Records are inserted farthest first, each where it adds least cost: either at the cheapest
+// position in an existing basket with room, or as a new flight that pays the drone's initial and
+// final costs. Baskets come out in insertion order; TourOrdering improves them before A* runs.
+// Only the legs of the chosen tours are searched afterwards, one per stop plus the return.
+public final class AssignmentPlanner {
+
+  // A drone that may fly this batch, from the service point it is stationed at, with the records
+  // it is on shift for by batch position
+  public record Candidate(
+      DroneDto drone, int servicePointId, PositionDto start, BitSet onShift) {}
+
+  // One flight: the drone, where it starts and returns, and the records in visiting order
+  public record Basket(DroneDto drone, PositionDto start, List<MedDispatchRecDto> stops) {}
+
+  private final List<Candidate> candidates;
+  private final List<MedDispatchRecDto> records;
+  private final double[] recordXs;
+  private final double[] recordYs;
+  // Distance from each candidate's service point to each record
+  private final double[][] startDistances;
+  // Records each candidate can serve on its own, by batch position
+  private final BitSet[] feasible;
+
+  private AssignmentPlanner(
+      List<Candidate> candidates,
+      List<MedDispatchRecDto> records,
+      ServicePointIndex servicePoints,
+      int nearestServicePoints) {
+    this.candidates = candidates;
+    this.records = records;
+    int n = records.size();
+    recordXs = new double[n];
+    recordYs = new double[n];
+    for (int r = 0; r < n; r++) {
+      recordXs[r] = records.get(r).getDelivery().getLng();
+      recordYs[r] = records.get(r).getDelivery().getLat();
+    }
+    startDistances = new double[candidates.size()][];
+    feasible = new BitSet[candidates.size()];
+    for (int c = 0; c < candidates.size(); c++) {
+      PositionDto start = candidates.get(c).start();
+      startDistances[c] =
+          DistanceKernels.best().oneToMany(start.getLng(), start.getLat(), recordXs, recordYs);
+      feasible[c] = feasibleRecords(c);
+    }
+    if (servicePoints != null && nearestServicePoints > 0) {
+      keepNearestServicePoints(servicePoints, nearestServicePoints);
+    }
+  }
+
+  // Baskets for every record some candidate can serve, grouped by candidate in list order and
+  // then in the order the baskets were opened. Records no candidate can serve are left out.
+  public static List<Basket> plan(List<Candidate> candidates, List<MedDispatchRecDto> records) {
+    return new AssignmentPlanner(candidates, records, null, 0).plan();
+  }
+
+  // As above, offering each record only to drones at its nearestServicePoints closest service
+  // points where one of them can serve it
+  public static List<Basket> plan(
+      List<Candidate> candidates,
+      List<MedDispatchRecDto> records,
+      ServicePointIndex servicePoints,
+      int nearestServicePoints) {
+    return new AssignmentPlanner(candidates, records, servicePoints, nearestServicePoints).plan();
+  }
+
+  private List<Basket> plan() {
+    List<Tour> tours = new ArrayList<>();
+    for (int record : insertionOrder()) {
+      insert(record, tours);
+    }
+
+    List<Basket> baskets = new ArrayList<>(tours.size());
+    tours.sort(Comparator.comparingInt(tour -> tour.candidate));
+    for (Tour tour : tours) {
+      Candidate candidate = candidates.get(tour.candidate);
+      List<MedDispatchRecDto> stops = new ArrayList<>(tour.stops.size());
+      for (int record : tour.stops) {
+        stops.add(records.get(record));
+      }
+      baskets.add(new Basket(candidate.drone(), candidate.start(), stops));
+    }
+    return baskets;
+  }
+
+  private BitSet feasibleRecords(int c) {
+    Candidate candidate = candidates.get(c);
+    CapabilityDto capability = candidate.drone().getCapability();
+    BitSet servable = new BitSet(records.size());
+    for (int r = candidate.onShift().nextSetBit(0);
+        r >= 0 && r < records.size();
+        r = candidate.onShift().nextSetBit(r + 1)) {
+      RequirementsDto requirements = records.get(r).getRequirements();
+      if (load(r) > capability.getCapacity()) continue;
+      if (requirements.isCooling() && !capability.getCooling()) continue;
+      if (requirements.isHeating() && !capability.getHeating()) continue;
+      if (2 * moves(startDistances[c][r]) > capability.getMaxMoves()) continue;
+      servable.set(r);
+    }
+    return servable;
+  }
+
+  // Narrows each record's candidates to those stationed at its nearest service points, unless
+  // none of them can serve it
+  private void keepNearestServicePoints(ServicePointIndex servicePoints, int nearest) {
+    for (int r = 0; r < records.size(); r++) {
+      int[] closest = servicePoints.nearest(recordXs[r], recordYs[r], nearest);
+      boolean servedNearby = false;
+      for (int c = 0; c < candidates.size() && !servedNearby; c++) {
+        servedNearby = feasible[c].get(r) && contains(closest, candidates.get(c).servicePointId());
+      }
+      if (!servedNearby) {
+        continue;
+      }
+      for (int c = 0; c < candidates.size(); c++) {
+        if (!contains(closest, candidates.get(c).servicePointId())) {
+          feasible[c].clear(r);
+        }
+      }
+    }
+  }
+
+  private static boolean contains(int[] ids, int id) {
+    for (int candidate : ids) {
+      if (candidate == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Farthest records first, measured to the nearest service point that can serve them, so the
+  // outlying stops shape the tours and nearby ones are fitted in between
+  private List<Integer> insertionOrder() {
+    int n = records.size();
+    double[] reach = new double[n];
+    Arrays.fill(reach, -1.0);
+    for (int c = 0; c < candidates.size(); c++) {
+      for (int r = feasible[c].nextSetBit(0); r >= 0; r = feasible[c].nextSetBit(r + 1)) {
+        double distance = startDistances[c][r];
+        reach[r] = reach[r] < 0 ? distance : Math.min(reach[r], distance);
+      }
+    }
+    List<Integer> order = new ArrayList<>();
+    for (int r = 0; r < n; r++) {
+      if (reach[r] >= 0) {
+        order.add(r);
+      }
+    }
+    order.sort(Comparator.comparingDouble((Integer r) -> -reach[r]));
+    return order;
+  }
+
+  // Puts the record where it adds least cost: into an open tour or as a new flight
+  private void insert(int record, List<Tour> tours) {
+    double bestCost = Double.POSITIVE_INFINITY;
+    Tour bestTour = null;
+    int bestPosition = 0;
+    int bestMoves = 0;
+
+    for (Tour tour : tours) {
+      Candidate candidate = candidates.get(tour.candidate);
+      CapabilityDto capability = candidate.drone().getCapability();
+      if (!feasible[tour.candidate].get(record)
+          || tour.load + load(record) > capability.getCapacity()) {
+        continue;
+      }
+      int stops = tour.stops.size();
+      for (int position = 0; position <= stops; position++) {
+        PositionDto start = candidate.start();
+        double prevX = position == 0 ? start.getLng() : recordXs[tour.stops.get(position - 1)];
+        double prevY = position == 0 ? start.getLat() : recordYs[tour.stops.get(position - 1)];
+        double nextX = position == stops ? start.getLng() : recordXs[tour.stops.get(position)];
+        double nextY = position == stops ? start.getLat() : recordYs[tour.stops.get(position)];
+        int addedMoves =
+            moves(prevX, prevY, recordXs[record], recordYs[record])
+                + moves(recordXs[record], recordYs[record], nextX, nextY)
+                - moves(prevX, prevY, nextX, nextY);
+        if (tour.moves + addedMoves > capability.getMaxMoves()) {
+          continue;
+        }
+        double cost = addedMoves * capability.getCostPerMove();
+        if (cost < bestCost) {
+          bestCost = cost;
+          bestTour = tour;
+          bestPosition = position;
+          bestMoves = addedMoves;
+        }
+      }
+    }
+
+    int bestCandidate = -1;
+    for (int c = 0; c < candidates.size(); c++) {
+      if (!feasible[c].get(record)) {
+        continue;
+      }
+      CapabilityDto capability = candidates.get(c).drone().getCapability();
+      int roundTrip = 2 * moves(startDistances[c][record]);
+      double cost =
+          capability.getCostInitial()
+              + capability.getCostFinal()
+              + roundTrip * capability.getCostPerMove();
+      if (cost < bestCost) {
+        bestCost = cost;
+        bestCandidate = c;
+        bestMoves = roundTrip;
+      }
+    }
+
+    if (bestCandidate >= 0) {
+      bestTour = new Tour(bestCandidate);
+      tours.add(bestTour);
+      bestPosition = 0;
+    }
+    bestTour.stops.add(bestPosition, record);
+    bestTour.load += load(record);
+    bestTour.moves += bestMoves;
+  }
+
+  private double load(int record) {
+    Double capacity = records.get(record).getRequirements().getCapacity();
+    return capacity != null ? capacity : 0.0;
+  }
+
+  // Straight-line estimate of the moves a leg takes
+  private static int moves(double x1, double y1, double x2, double y2) {
+    return moves(distance(x1, y1, x2, y2));
+  }
+
+  private static int moves(double distance) {
+    return (int) Math.ceil(distance / CalculatePositioning.MOVE_DISTANCE);
+  }
+
+  private static double distance(double x1, double y1, double x2, double y2) {
+    double dx = x1 - x2;
+    double dy = y1 - y2;
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  // A basket being built: candidate position, record positions in visiting order, and the
+  // capacity and estimated moves it uses so far
+  private static final class Tour {
+    private final int candidate;
+    private final List<Integer> stops = new ArrayList<>();
+    private double load;
+    private int moves;
+
+    private Tour(int candidate) {
+      this.candidate = candidate;
+    }
+  }
+}
@@ -0,0 +1,244 @@
+package uk.ac.ed.acp.cw2.service.planning;
+
+import uk.ac.ed.acp.cw2.dtos.MedDispatchRecDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Orders the stops of one basket as a closed tour from the drone's service point, on a matrix of
+// straight-line distances. Two tours are improved with 2-opt (reversing a stretch) and Or-opt
+// (moving a run of up to three stops elsewhere, either way round) until neither helps: the
+// basket's own order and a nearest-neighbour tour. The shorter of the two is kept if its
+// estimated moves fit the drone's maxMoves; otherwise the basket keeps its order.
+public final class TourOrdering {
+  private static final int MAX_SEGMENT = 3;
+  private static final double EPSILON = 1e-12;
+
+  private TourOrdering() {}
+
+  public static AssignmentPlanner.Basket order(AssignmentPlanner.Basket basket) {
+    List<MedDispatchRecDto> stops = basket.stops();
+    if (stops.size() < 3) {
+      return basket;
+    }
+    double[] xs = new double[stops.size()];
+    double[] ys = new double[stops.size()];
+    for (int i = 0; i < stops.size(); i++) {
+      xs[i] = stops.get(i).getDelivery().getLng();
+      ys[i] = stops.get(i).getDelivery().getLat();
+    }
+    int[] order =
+        order(basket.start(), xs, ys, basket.drone().getCapability().getMaxMoves());
+    List<MedDispatchRecDto> ordered = new ArrayList<>(stops.size());
+    for (int stop : order) {
+      ordered.add(stops.get(stop));
+    }
+    return new AssignmentPlanner.Basket(basket.drone(), basket.start(), ordered);
+  }
+
+  // Visiting order of the stops (xs[i], ys[i]) for a tour from and back to start
+  public static int[] order(PositionDto start, double[] xs, double[] ys, int maxMoves) {
+    int n = xs.length;
+    double[][] distances = distances(start, xs, ys);
+
+    int[] given = new int[n];
+    for (int i = 0; i < n; i++) {
+      given[i] = i + 1;
+    }
+    if (n < 3) {
+      return toStops(given);
+    }
+    int[] best = improve(given.clone(), distances);
+    int[] seeded = improve(nearestNeighbour(distances), distances);
+    if (length(seeded, distances) < length(best, distances) - EPSILON) {
+      best = seeded;
+    }
+    return moves(best, distances) <= maxMoves ? toStops(best) : toStops(given);
+  }
+
+  // Estimated moves of the closed tour, one ceil(distance / move) per leg
+  public static int moves(PositionDto start, double[] xs, double[] ys, int[] order) {
+    int[] tour = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      tour[i] = order[i] + 1;
+    }
+    return moves(tour, distances(start, xs, ys));
+  }
+
+  // Node 0 is the service point, node i + 1 is stop i
+  private static double[][] distances(PositionDto start, double[] xs, double[] ys) {
+    int n = xs.length + 1;
+    double[] nodeXs = new double[n];
+    double[] nodeYs = new double[n];
+    nodeXs[0] = start.getLng();
+    nodeYs[0] = start.getLat();
+    System.arraycopy(xs, 0, nodeXs, 1, xs.length);
+    System.arraycopy(ys, 0, nodeYs, 1, ys.length);
+    double[][] distances = new double[n][n];
+    for (int a = 0; a < n; a++) {
+      for (int b = a + 1; b < n; b++) {
+        double dx = nodeXs[a] - nodeXs[b];
+        double dy = nodeYs[a] - nodeYs[b];
+        distances[a][b] = distances[b][a] = Math.sqrt(dx * dx + dy * dy);
+      }
+    }
+    return distances;
+  }
+
+  private static int[] nearestNeighbour(double[][] distances) {
+    int n = distances.length - 1;
+    int[] tour = new int[n];
+    boolean[] visited = new boolean[n + 1];
+    int current = 0;
+    for (int i = 0; i < n; i++) {
+      int next = -1;
+      for (int node = 1; node <= n; node++) {
+        if (!visited[node] && (next < 0 || distances[current][node] < distances[current][next])) {
+          next = node;
+        }
+      }
+      visited[next] = true;
+      tour[i] = next;
+      current = next;
+    }
+    return tour;
+  }
+
+  private static int[] improve(int[] tour, double[][] distances) {
+    boolean improved = true;
+    while (improved) {
+      improved = twoOpt(tour, distances) | orOpt(tour, distances);
+    }
+    return tour;
+  }
+
+  // Reverses tour[i..j] whenever that shortens the tour
+  private static boolean twoOpt(int[] tour, double[][] distances) {
+    int n = tour.length;
+    boolean improved = false;
+    for (int i = 0; i < n - 1; i++) {
+      for (int j = i + 1; j < n; j++) {
+        int before = i == 0 ? 0 : tour[i - 1];
+        int after = j == n - 1 ? 0 : tour[j + 1];
+        double delta =
+            distances[before][tour[j]]
+                + distances[tour[i]][after]
+                - distances[before][tour[i]]
+                - distances[tour[j]][after];
+        if (delta < -EPSILON) {
+          reverse(tour, i, j);
+          improved = true;
+        }
+      }
+    }
+    return improved;
+  }
+
+  // Moves a run of up to MAX_SEGMENT stops to the best other gap, reversed if that is shorter
+  private static boolean orOpt(int[] tour, double[][] distances) {
+    int n = tour.length;
+    boolean improved = false;
+    for (int length = 1; length <= Math.min(MAX_SEGMENT, n - 1); length++) {
+      for (int from = 0; from + length <= n; from++) {
+        int to = from + length - 1;
+        int before = from == 0 ? 0 : tour[from - 1];
+        int after = to == n - 1 ? 0 : tour[to + 1];
+        int first = tour[from];
+        int last = tour[to];
+        double removed =
+            distances[before][first] + distances[last][after] - distances[before][after];
+
+        double bestDelta = -EPSILON;
+        int bestGap = -1;
+        boolean bestReversed = false;
+        // gap g lies between tour[g - 1] and tour[g], outside the run being moved
+        for (int gap = 0; gap <= n; gap++) {
+          if (gap >= from && gap <= to + 1) {
+            continue;
+          }
+          int left = gap == 0 ? 0 : tour[gap - 1];
+          int right = gap == n ? 0 : tour[gap];
+          double forward =
+              distances[left][first] + distances[last][right] - distances[left][right];
+          double backward =
+              distances[left][last] + distances[first][right] - distances[left][right];
+          double delta = Math.min(forward, backward) - removed;
+          if (delta < bestDelta) {
+            bestDelta = delta;
+            bestGap = gap;
+            bestReversed = backward < forward;
+          }
+        }
+        if (bestGap >= 0) {
+          moveSegment(tour, from, to, bestGap, bestReversed);
+          improved = true;
+        }
+      }
+    }
+    return improved;
+  }
+
+  private static void moveSegment(int[] tour, int from, int to, int gap, boolean reversed) {
+    int n = tour.length;
+    int[] segment = new int[to - from + 1];
+    for (int i = 0; i < segment.length; i++) {
+      segment[i] = reversed ? tour[to - i] : tour[from + i];
+    }
+    int[] rest = new int[n - segment.length];
+    int restGap = 0;
+    for (int i = 0, r = 0; i <= n; i++) {
+      if (i == gap) {
+        restGap = r;
+      }
+      if (i < n && (i < from || i > to)) {
+        rest[r++] = tour[i];
+      }
+    }
+    System.arraycopy(rest, 0, tour, 0, restGap);
+    System.arraycopy(segment, 0, tour, restGap, segment.length);
+    System.arraycopy(
+        rest, restGap, tour, restGap + segment.length, rest.length - restGap);
+  }
+
+  private static void reverse(int[] tour, int from, int to) {
+    for (int i = from, j = to; i < j; i++, j--) {
+      int node = tour[i];
+      tour[i] = tour[j];
+      tour[j] = node;
+    }
+  }
+
+  private static double length(int[] tour, double[][] distances) {
+    double length = 0;
+    int previous = 0;
+    for (int node : tour) {
+      length += distances[previous][node];
+      previous = node;
+    }
+    return length + distances[previous][0];
+  }
+
+  private static int moves(int[] tour, double[][] distances) {
+    int moves = 0;
+    int previous = 0;
+    for (int node : tour) {
+      moves += legMoves(distances[previous][node]);
+      previous = node;
+    }
+    return moves + legMoves(distances[previous][0]);
+  }
+
+  private static int legMoves(double distance) {
+    return (int) Math.ceil(distance / CalculatePositioning.MOVE_DISTANCE);
+  }
+
+  private static int[] toStops(int[] tour) {
+    int[] stops = new int[tour.length];
+    for (int i = 0; i < tour.length; i++) {
+      stops[i] = tour[i] - 1;
+    }
+    return stops;
+  }
+}
@@ -0,0 +1,72 @@
+package uk.ac.ed.acp.cw2.service.query;
+
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+
+// Drone attributes that can be queried through /query and /queryAsPath
+public enum CapabilityAttribute {
+  COOLING("cooling", true),
+  HEATING("heating", true),
+  CAPACITY("capacity", false),
+  MAX_MOVES("maxMoves", false),
+  COST_PER_MOVE("costPerMove", false),
+  COST_INITIAL("costInitial", false),
+  COST_FINAL("costFinal", false),
+  ID("id", false);
+
+  private static final CapabilityAttribute[] VALUES = values();
+
+  private final String attributeName;
+  private final boolean bool;
+
+  CapabilityAttribute(String attributeName, boolean bool) {
+    this.attributeName = attributeName;
+    this.bool = bool;
+  }
+
+  public String attributeName() {
+    return attributeName;
+  }
+
+  public boolean isBoolean() {
+    return bool;
+  }
+
+  // Attribute with the given request name, or null if there is none
+  public static CapabilityAttribute fromName(String name) {
+    for (CapabilityAttribute attribute : VALUES) {
+      if (attribute.attributeName.equals(name)) {
+        return attribute;
+      }
+    }
+    return null;
+  }
+
+  boolean booleanValue(DroneDto drone) {
+    return switch (this) {
+      case COOLING -> drone.getCapability().getCooling();
+      case HEATING -> drone.getCapability().getHeating();
+      default -> throw new IllegalStateException(attributeName + " is numeric");
+    };
+  }
+
+  // Numeric value of the attribute; ids that are not numbers map to NaN
+  double numericValue(DroneDto drone) {
+    return switch (this) {
+      case CAPACITY -> drone.getCapability().getCapacity();
+      case MAX_MOVES -> drone.getCapability().getMaxMoves();
+      case COST_PER_MOVE -> drone.getCapability().getCostPerMove();
+      case COST_INITIAL -> drone.getCapability().getCostInitial();
+      case COST_FINAL -> drone.getCapability().getCostFinal();
+      case ID -> parseId(drone.getId());
+      default -> throw new IllegalStateException(attributeName + " is boolean");
+    };
+  }
+
+  private static double parseId(String id) {
+    try {
+      return Double.parseDouble(id);
+    } catch (NumberFormatException | NullPointerException error) {
+      return Double.NaN;
+    }
+  }
+}
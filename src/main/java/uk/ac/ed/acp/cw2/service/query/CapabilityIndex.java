@@ -0,0 +1,193 @@
+package uk.ac.ed.acp.cw2.service.query;
+
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Columnar index over the drone fleet, built once per reference data snapshot. Drones are
+// numbered by their position in the fleet list; boolean attributes are stored as bitsets and each
+// numeric attribute as its values sorted ascending (NaN last) alongside the matching drone
+// numbers, so a comparison is two binary searches and a copy of the matching range into a bitset.
+//
+// Comparisons use primitive double semantics, like the original per-drone loop: NaN never
+// compares equal, less or greater, and -0.0 equals 0.0.
+public final class CapabilityIndex {
+  private static final CapabilityAttribute[] ATTRIBUTES = CapabilityAttribute.values();
+
+  private final DroneDto[] drones;
+  // Indexed by attribute ordinal; only the boolean (flags) or numeric (columns) slot is set
+  private final BitSet[] flags = new BitSet[ATTRIBUTES.length];
+  private final Column[] columns = new Column[ATTRIBUTES.length];
+
+  private static final class Column {
+    final double[] sorted;
+    final int[] droneAt;
+    // Index of the first NaN in sorted
+    final int nanStart;
+
+    Column(double[] sorted, int[] droneAt, int nanStart) {
+      this.sorted = sorted;
+      this.droneAt = droneAt;
+      this.nanStart = nanStart;
+    }
+  }
+
+  private CapabilityIndex(List<DroneDto> fleet) {
+    this.drones = fleet.toArray(new DroneDto[0]);
+    for (CapabilityAttribute attribute : ATTRIBUTES) {
+      if (attribute.isBoolean()) {
+        BitSet set = new BitSet(drones.length);
+        for (int i = 0; i < drones.length; i++) {
+          if (attribute.booleanValue(drones[i])) {
+            set.set(i);
+          }
+        }
+        flags[attribute.ordinal()] = set;
+      } else {
+        columns[attribute.ordinal()] = buildColumn(attribute);
+      }
+    }
+  }
+
+  public static CapabilityIndex build(List<DroneDto> drones) {
+    return new CapabilityIndex(drones);
+  }
+
+  private Column buildColumn(CapabilityAttribute attribute) {
+    double[] values = new double[drones.length];
+    Integer[] order = new Integer[drones.length];
+    for (int i = 0; i < drones.length; i++) {
+      values[i] = attribute.numericValue(drones[i]);
+      order[i] = i;
+    }
+    // Double.compare orders NaN after every number
+    Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+    double[] sorted = new double[drones.length];
+    int[] droneAt = new int[drones.length];
+    int nanStart = drones.length;
+    for (int i = 0; i < drones.length; i++) {
+      droneAt[i] = order[i];
+      sorted[i] = values[order[i]];
+      if (Double.isNaN(sorted[i]) && nanStart == drones.length) {
+        nanStart = i;
+      }
+    }
+    return new Column(sorted, droneAt, nanStart);
+  }
+
+  public int size() {
+    return drones.length;
+  }
+
+  BitSet all() {
+    BitSet set = new BitSet(drones.length);
+    set.set(0, drones.length);
+    return set;
+  }
+
+  // Drones whose boolean attribute has the given value
+  BitSet withFlag(CapabilityAttribute attribute, boolean value) {
+    BitSet set = (BitSet) flags[attribute.ordinal()].clone();
+    if (!value) {
+      set.flip(0, drones.length);
+    }
+    return set;
+  }
+
+  // Drones whose numeric attribute satisfies "attribute operator value"
+  BitSet compare(CapabilityAttribute attribute, ComparisonOperator operator, double value) {
+    Column column = columns[attribute.ordinal()];
+    BitSet set = new BitSet(drones.length);
+    if (Double.isNaN(value)) {
+      if (operator == ComparisonOperator.NOT_EQUAL) {
+        set.set(0, drones.length);
+      }
+      return set;
+    }
+    int lessEnd = countLess(column, value);
+    int greaterStart = firstGreater(column, value);
+    switch (operator) {
+      case LESS -> addRange(set, column, 0, lessEnd);
+      case GREATER -> addRange(set, column, greaterStart, column.nanStart);
+      case EQUAL -> addRange(set, column, lessEnd, greaterStart);
+      case NOT_EQUAL -> {
+        set.set(0, drones.length);
+        for (int i = lessEnd; i < greaterStart; i++) {
+          set.clear(column.droneAt[i]);
+        }
+      }
+    }
+    return set;
+  }
+
+  // Drones whose numeric attribute is identical to value under Double.compare, so NaN matches
+  // NaN and -0.0 does not match 0.0
+  BitSet identical(CapabilityAttribute attribute, double value) {
+    Column column = columns[attribute.ordinal()];
+    BitSet set = new BitSet(drones.length);
+    int from = Double.isNaN(value) ? column.nanStart : countLess(column, value);
+    int to = Double.isNaN(value) ? drones.length : firstGreater(column, value);
+    for (int i = from; i < to; i++) {
+      if (Double.compare(column.sorted[i], value) == 0) {
+        set.set(column.droneAt[i]);
+      }
+    }
+    return set;
+  }
+
+  // Matching drones in fleet order
+  public List<DroneDto> drones(BitSet matches) {
+    List<DroneDto> result = new ArrayList<>(matches.cardinality());
+    for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+      result.add(drones[i]);
+    }
+    return result;
+  }
+
+  public List<String> droneIds(BitSet matches) {
+    List<String> result = new ArrayList<>(matches.cardinality());
+    for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+      result.add(drones[i].getId());
+    }
+    return result;
+  }
+
+  private static void addRange(BitSet set, Column column, int from, int to) {
+    for (int i = from; i < to; i++) {
+      set.set(column.droneAt[i]);
+    }
+  }
+
+  // Number of non-NaN entries less than value
+  private static int countLess(Column column, double value) {
+    int lo = 0;
+    int hi = column.nanStart;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (column.sorted[mid] < value) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  // Index of the first non-NaN entry greater than value
+  private static int firstGreater(Column column, double value) {
+    int lo = 0;
+    int hi = column.nanStart;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (column.sorted[mid] > value) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return lo;
+  }
+}
@@ -0,0 +1,301 @@
+package uk.ac.ed.acp.cw2.service.query;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import uk.ac.ed.acp.cw2.dtos.attributeQueryDto;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+// A capability query compiled against CapabilityIndex. Each attribute condition becomes a clause
+// that yields the matching drones as a bitset; a drone matches the query if it matches every
+// clause, so evaluation is a running bitset intersection that stops once nothing is left.
+//
+// /query bodies are normalised into a canonical plan: conditions on the same attribute are merged
+// (duplicates dropped, ranges narrowed, redundant exclusions removed) and clauses are ordered by
+// attribute, so equivalent bodies share one key. Conditions that cannot all hold, such as
+// capacity < 4 and capacity > 8, compile to a contradiction that is answered without the index.
+public final class CapabilityQuery {
+  private static final String CONTRADICTION_KEY = "false";
+
+  interface Clause {
+    BitSet matches(CapabilityIndex index);
+
+    // Canonical text of the clause, part of the plan key
+    String key();
+  }
+
+  // cooling/heating compared with = or !=
+  record FlagClause(CapabilityAttribute attribute, boolean value) implements Clause {
+    @Override
+    public BitSet matches(CapabilityIndex index) {
+      return index.withFlag(attribute, value);
+    }
+
+    @Override
+    public String key() {
+      return attribute.attributeName() + "=" + value;
+    }
+  }
+
+  // Numeric attribute compared with =, !=, < or >
+  record ComparisonClause(CapabilityAttribute attribute, ComparisonOperator operator, double value)
+      implements Clause {
+    @Override
+    public BitSet matches(CapabilityIndex index) {
+      return index.compare(attribute, operator, value);
+    }
+
+    @Override
+    public String key() {
+      return attribute.attributeName() + operator.symbol() + value;
+    }
+  }
+
+  // Numeric attribute identical to a value, as used by /queryAsPath
+  record IdenticalClause(CapabilityAttribute attribute, double value) implements Clause {
+    @Override
+    public BitSet matches(CapabilityIndex index) {
+      return index.identical(attribute, value);
+    }
+
+    @Override
+    public String key() {
+      return attribute.attributeName() + "==" + value;
+    }
+  }
+
+  // Conditions no drone can satisfy, such as an unknown attribute
+  record NoMatchClause() implements Clause {
+    @Override
+    public BitSet matches(CapabilityIndex index) {
+      return new BitSet();
+    }
+
+    @Override
+    public String key() {
+      return CONTRADICTION_KEY;
+    }
+  }
+
+  private final List<Clause> clauses;
+  private final String key;
+
+  CapabilityQuery(List<Clause> clauses) {
+    this.clauses = List.copyOf(clauses);
+    this.key = clauses.stream().map(Clause::key).collect(Collectors.joining("&"));
+  }
+
+  private static CapabilityQuery contradiction() {
+    return new CapabilityQuery(List.of(new NoMatchClause()));
+  }
+
+  // Compiles the body of /query into a normalised plan. Unknown attributes match no drone; an
+  // operator that does not apply to the attribute, or a numeric value that does not parse, is a
+  // bad request.
+  public static CapabilityQuery compile(List<attributeQueryDto> attributeQueryDtos) {
+    List<Clause> conditions = new ArrayList<>(attributeQueryDtos.size());
+    for (attributeQueryDto attributeQuery : attributeQueryDtos) {
+      conditions.add(compileCondition(attributeQuery));
+    }
+    return normalise(conditions);
+  }
+
+  private static CapabilityQuery normalise(List<Clause> conditions) {
+    Map<CapabilityAttribute, List<Clause>> byAttribute = new EnumMap<>(CapabilityAttribute.class);
+    for (Clause condition : conditions) {
+      switch (condition) {
+        case FlagClause flag ->
+            byAttribute.computeIfAbsent(flag.attribute(), k -> new ArrayList<>()).add(flag);
+        case ComparisonClause comparison ->
+            byAttribute
+                .computeIfAbsent(comparison.attribute(), k -> new ArrayList<>())
+                .add(comparison);
+        default -> {
+          return contradiction();
+        }
+      }
+    }
+    List<Clause> plan = new ArrayList<>();
+    for (Map.Entry<CapabilityAttribute, List<Clause>> entry : byAttribute.entrySet()) {
+      boolean satisfiable =
+          entry.getKey().isBoolean()
+              ? mergeFlags(entry.getKey(), entry.getValue(), plan)
+              : mergeComparisons(entry.getKey(), entry.getValue(), plan);
+      if (!satisfiable) {
+        return contradiction();
+      }
+    }
+    return new CapabilityQuery(plan);
+  }
+
+  // A boolean attribute required to be both true and false is a contradiction
+  private static boolean mergeFlags(
+      CapabilityAttribute attribute, List<Clause> conditions, List<Clause> plan) {
+    Boolean required = null;
+    for (Clause condition : conditions) {
+      boolean value = ((FlagClause) condition).value();
+      if (required != null && required != value) {
+        return false;
+      }
+      required = value;
+    }
+    plan.add(new FlagClause(attribute, required));
+    return true;
+  }
+
+  // Merges the comparisons on one numeric attribute into at most one equality, or the narrowest
+  // open range plus the exclusions that fall inside it. Comparisons follow primitive double
+  // semantics: any <, > or = excludes NaN values (and is unsatisfiable against NaN), while != NaN
+  // always holds. -0.0 is folded into 0.0 since the two compare equal.
+  private static boolean mergeComparisons(
+      CapabilityAttribute attribute, List<Clause> conditions, List<Clause> plan) {
+    boolean hasLower = false;
+    boolean hasUpper = false;
+    double lower = Double.NEGATIVE_INFINITY;
+    double upper = Double.POSITIVE_INFINITY;
+    Double equal = null;
+    TreeSet<Double> excluded = new TreeSet<>();
+
+    for (Clause condition : conditions) {
+      ComparisonClause comparison = (ComparisonClause) condition;
+      double value = comparison.value() + 0.0;
+      if (Double.isNaN(value)) {
+        if (comparison.operator() != ComparisonOperator.NOT_EQUAL) {
+          return false;
+        }
+        continue;
+      }
+      switch (comparison.operator()) {
+        case GREATER -> {
+          hasLower = true;
+          lower = Math.max(lower, value);
+        }
+        case LESS -> {
+          hasUpper = true;
+          upper = Math.min(upper, value);
+        }
+        case EQUAL -> {
+          if (equal != null && equal != value) {
+            return false;
+          }
+          equal = value;
+        }
+        case NOT_EQUAL -> excluded.add(value);
+      }
+    }
+
+    if (equal != null) {
+      if ((hasLower && !(equal > lower)) || (hasUpper && !(equal < upper))
+          || excluded.contains(equal)) {
+        return false;
+      }
+      plan.add(new ComparisonClause(attribute, ComparisonOperator.EQUAL, equal));
+      return true;
+    }
+    if (hasLower && hasUpper && lower >= upper) {
+      return false;
+    }
+    if (hasLower) {
+      plan.add(new ComparisonClause(attribute, ComparisonOperator.GREATER, lower));
+    }
+    if (hasUpper) {
+      plan.add(new ComparisonClause(attribute, ComparisonOperator.LESS, upper));
+    }
+    for (double value : excluded) {
+      if ((!hasLower || value > lower) && (!hasUpper || value < upper)) {
+        plan.add(new ComparisonClause(attribute, ComparisonOperator.NOT_EQUAL, value));
+      }
+    }
+    return true;
+  }
+
+  private static Clause compileCondition(attributeQueryDto attributeQuery) {
+    CapabilityAttribute attribute = CapabilityAttribute.fromName(attributeQuery.getAttribute());
+    if (attribute == null) {
+      return new NoMatchClause();
+    }
+    ComparisonOperator operator = ComparisonOperator.fromSymbol(attributeQuery.getOperator());
+    if (operator == null || attributeQuery.getValue() == null) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+    }
+    if (attribute.isBoolean()) {
+      if (operator != ComparisonOperator.EQUAL && operator != ComparisonOperator.NOT_EQUAL) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+      }
+      // Anything but "true" (ignoring case) reads as false, as Boolean.parseBoolean does
+      boolean value = Boolean.parseBoolean(attributeQuery.getValue());
+      return new FlagClause(attribute, operator == ComparisonOperator.EQUAL ? value : !value);
+    }
+    try {
+      return new ComparisonClause(
+          attribute, operator, Double.parseDouble(attributeQuery.getValue()));
+    } catch (NumberFormatException error) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  // Compiles /queryAsPath/{capabilityName}/{capabilityValue}: an exact match on one capability
+  // field. Values that do not parse as the field's type, and names that are not capability
+  // fields (including id), match no drone.
+  public static CapabilityQuery compilePath(String capabilityName, String capabilityValue) {
+    CapabilityAttribute attribute = CapabilityAttribute.fromName(capabilityName);
+    if (attribute == null || attribute == CapabilityAttribute.ID || capabilityValue == null) {
+      return contradiction();
+    }
+    Clause clause;
+    if (attribute.isBoolean()) {
+      if ("true".equalsIgnoreCase(capabilityValue)) {
+        clause = new FlagClause(attribute, true);
+      } else if ("false".equalsIgnoreCase(capabilityValue)) {
+        clause = new FlagClause(attribute, false);
+      } else {
+        clause = new NoMatchClause();
+      }
+    } else {
+      try {
+        double value =
+            attribute == CapabilityAttribute.MAX_MOVES
+                ? Integer.parseInt(capabilityValue)
+                : Double.parseDouble(capabilityValue);
+        clause = new IdenticalClause(attribute, value);
+      } catch (NumberFormatException error) {
+        clause = new NoMatchClause();
+      }
+    }
+    return new CapabilityQuery(List.of(clause));
+  }
+
+  List<Clause> clauses() {
+    return clauses;
+  }
+
+  // Canonical plan text; equivalent /query bodies compile to the same key
+  public String key() {
+    return key;
+  }
+
+  public boolean isContradiction() {
+    return clauses.size() == 1 && clauses.getFirst() instanceof NoMatchClause;
+  }
+
+  // Fleet positions of the drones matching every clause
+  public BitSet evaluate(CapabilityIndex index) {
+    if (isContradiction()) {
+      return new BitSet();
+    }
+    BitSet result = index.all();
+    for (Clause clause : clauses) {
+      if (result.isEmpty()) {
+        break;
+      }
+      result.and(clause.matches(index));
+    }
+    return result;
+  }
+}
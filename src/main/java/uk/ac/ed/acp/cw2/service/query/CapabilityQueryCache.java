@@ -0,0 +1,105 @@
+package uk.ac.ed.acp.cw2.service.query;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.acp.cw2.dtos.attributeQueryDto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Bounded LRU cache of /query results keyed by the canonical plan of the request body. Results
+// are only valid for the fleet they were computed against; the CapabilityIndex is rebuilt only
+// when the drone list changes, so when a different index is seen the cache is cleared.
+// Contradictory plans are answered directly and never cached.
+@Component
+public class CapabilityQueryCache {
+  private final int maxEntries;
+  private final LinkedHashMap<String, List<String>> entries;
+  private CapabilityIndex index;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter contradictions;
+  private final Counter invalidations;
+  private final Timer compileTimer;
+
+  public CapabilityQueryCache(
+      @Value("${ilp.query.cache.max-entries:1000}") int maxEntries, MeterRegistry registry) {
+    this.maxEntries = maxEntries;
+    // Access-ordered map: the eldest entry is the least recently used one
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+            return size() > CapabilityQueryCache.this.maxEntries;
+          }
+        };
+    this.hits = registry.counter("query.cache.requests", "result", "hit");
+    this.misses = registry.counter("query.cache.requests", "result", "miss");
+    this.contradictions = registry.counter("query.plan.contradictions");
+    this.invalidations = registry.counter("query.cache.invalidations");
+    this.compileTimer =
+        Timer.builder("query.plan.compile")
+            .description("Time to compile a /query body into a normalised plan")
+            .register(registry);
+    Gauge.builder("query.cache.size", this, cache -> cache.size())
+        .description("Number of cached /query results")
+        .register(registry);
+    Gauge.builder("query.cache.hit-ratio", this, cache -> cache.hitRatio())
+        .description("Fraction of /query requests answered from the cache")
+        .register(registry);
+  }
+
+  // Ids of the drones in capabilityIndex matching every condition, in fleet order
+  public List<String> findDroneIds(
+      CapabilityIndex capabilityIndex, List<attributeQueryDto> attributeQueryDtos) {
+    long started = System.nanoTime();
+    CapabilityQuery query = CapabilityQuery.compile(attributeQueryDtos);
+    compileTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+    if (query.isContradiction()) {
+      contradictions.increment();
+      return List.of();
+    }
+    if (maxEntries <= 0) {
+      return capabilityIndex.droneIds(query.evaluate(capabilityIndex));
+    }
+    synchronized (this) {
+      if (index != capabilityIndex) {
+        if (!entries.isEmpty()) {
+          invalidations.increment();
+        }
+        entries.clear();
+        index = capabilityIndex;
+      }
+      List<String> cached = entries.get(query.key());
+      if (cached != null) {
+        hits.increment();
+        return cached;
+      }
+    }
+    misses.increment();
+    List<String> result = List.copyOf(capabilityIndex.droneIds(query.evaluate(capabilityIndex)));
+    synchronized (this) {
+      if (index == capabilityIndex) {
+        entries.put(query.key(), result);
+      }
+    }
+    return result;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private double hitRatio() {
+    double total = hits.count() + misses.count();
+    return total == 0 ? 0.0 : hits.count() / total;
+  }
+}
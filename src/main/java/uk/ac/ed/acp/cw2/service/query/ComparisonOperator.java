@@ -0,0 +1,31 @@
+package uk.ac.ed.acp.cw2.service.query;
+
+// Operators accepted in an attributeQueryDto
+public enum ComparisonOperator {
+  EQUAL("="),
+  NOT_EQUAL("!="),
+  LESS("<"),
+  GREATER(">");
+
+  private static final ComparisonOperator[] VALUES = values();
+
+  private final String symbol;
+
+  ComparisonOperator(String symbol) {
+    this.symbol = symbol;
+  }
+
+  public String symbol() {
+    return symbol;
+  }
+
+  // Operator with the given symbol, or null if there is none
+  public static ComparisonOperator fromSymbol(String symbol) {
+    for (ComparisonOperator operator : VALUES) {
+      if (operator.symbol.equals(symbol)) {
+        return operator;
+      }
+    }
+    return null;
+  }
+}
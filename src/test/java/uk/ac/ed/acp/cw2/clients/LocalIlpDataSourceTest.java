@@ -0,0 +1,84 @@
+package uk.ac.ed.acp.cw2.clients;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import uk.ac.ed.acp.cw2.dtos.DroneAvailabilityDto;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDronesDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+import uk.ac.ed.acp.cw2.service.geometry.RestrictedRegionIndex;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalIlpDataSourceTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    // Every drone is stationed at exactly one known service point
+    private static void assertConsistent(IlpDataSource source) {
+        Set<Integer> servicePointIds = source.getServicePoints().stream()
+                .map(ServicePointDto::getId).collect(Collectors.toSet());
+        List<String> stationed = source.getDronesForServicePoints().stream()
+                .peek(entry -> assertTrue(servicePointIds.contains(entry.getServicePointId())))
+                .flatMap(entry -> entry.getDrones().stream())
+                .map(DroneAvailabilityDto::getId)
+                .sorted()
+                .toList();
+        List<String> drones = source.getAllDrones().stream().map(DroneDto::getId).sorted().toList();
+        assertEquals(drones, stationed);
+    }
+
+    @Test
+    void testFixtures() {
+        FixtureIlpDataSource source = new FixtureIlpDataSource(new ObjectMapper(),
+                new DefaultResourceLoader(), validator, "classpath:ilp-fixtures");
+
+        // Test 1: the bundled fixtures load and validate
+        assertEquals(10, source.getAllDrones().size());
+        assertEquals(2, source.getServicePoints().size());
+        assertEquals(4, source.getRestrictedRegions().size());
+        assertConsistent(source);
+
+        // Test 2: a missing fixture directory fails the load
+        FixtureIlpDataSource missing = new FixtureIlpDataSource(new ObjectMapper(),
+                new DefaultResourceLoader(), validator, "classpath:no-such-fixtures/");
+        assertThrows(IllegalStateException.class, missing::getAllDrones);
+    }
+
+    @Test
+    void testSyntheticData() {
+        SyntheticIlpDataSource source = new SyntheticIlpDataSource(200, 8, 40, 7);
+
+        // Test 1: the requested counts are generated and every entry validates
+        assertEquals(200, source.getAllDrones().size());
+        assertEquals(8, source.getServicePoints().size());
+        assertEquals(40, source.getRestrictedRegions().size());
+        source.getAllDrones().forEach(drone -> assertTrue(validator.validate(drone).isEmpty()));
+        source.getRestrictedRegions()
+                .forEach(region -> assertTrue(validator.validate(region).isEmpty()));
+        for (ServicePointDronesDto entry : source.getDronesForServicePoints()) {
+            assertTrue(validator.validate(entry).isEmpty());
+        }
+        assertConsistent(source);
+
+        // Test 2: no service point lies inside a restricted area
+        RestrictedRegionIndex index = RestrictedRegionIndex.build(source.getRestrictedRegions());
+        for (ServicePointDto servicePoint : source.getServicePoints()) {
+            LocationDto location = servicePoint.getLocation();
+            assertFalse(index.contains(location.getLng(), location.getLat()));
+        }
+
+        // Test 3: the same seed generates the same data set
+        SyntheticIlpDataSource again = new SyntheticIlpDataSource(200, 8, 40, 7);
+        assertEquals(source.getAllDrones(), again.getAllDrones());
+        assertEquals(source.getRestrictedRegions(), again.getRestrictedRegions());
+    }
+}
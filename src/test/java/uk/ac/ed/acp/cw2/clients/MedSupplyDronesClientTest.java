@@ -0,0 +1,80 @@
+package uk.ac.ed.acp.cw2.clients;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MedSupplyDronesClientTest {
+
+    // Client whose every request answers an empty JSON list after the given delay
+    private static MedSupplyDronesClient delayedClient(
+            Duration delay, long timeoutMs, AtomicInteger inFlight, AtomicInteger maxInFlight,
+            MeterRegistry registry) {
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return Mono.delay(delay).map(tick -> {
+                inFlight.decrementAndGet();
+                return ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body("[]")
+                        .build();
+            });
+        });
+        return new MedSupplyDronesClient(builder, "http://ilp.test",
+                Validation.buildDefaultValidatorFactory().getValidator(), registry, timeoutMs);
+    }
+
+    @Test
+    void testFetchAllIsConcurrent() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MedSupplyDronesClient client =
+                delayedClient(Duration.ofMillis(300), 5000, inFlight, maxInFlight, registry);
+
+        // Test 1: all four requests are in flight at once
+        IlpReferenceData data = client.fetchAll();
+        assertEquals(4, maxInFlight.get());
+        assertTrue(data.drones().isEmpty());
+        assertTrue(data.restrictedRegions().isEmpty());
+
+        // Test 2: each endpoint's fetch is timed once, as a success
+        for (String endpoint : new String[] {"/drones", "/drones-for-service-points",
+                "/service-points", "/restricted-areas"}) {
+            assertEquals(1, registry.get("ilp.fetch").tag("endpoint", endpoint)
+                    .tag("outcome", "success").timer().count());
+        }
+    }
+
+    @Test
+    void testTimeout() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MedSupplyDronesClient client = delayedClient(
+                Duration.ofSeconds(5), 100, new AtomicInteger(), new AtomicInteger(), registry);
+
+        // Test 1: a slow ILP service fails the load with 504 instead of hanging
+        ResponseStatusException error =
+                assertThrows(ResponseStatusException.class, client::fetchAll);
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, error.getStatusCode());
+
+        // Test 2: single fetches are bounded by the same timeout
+        assertThrows(ResponseStatusException.class, client::getAllDrones);
+
+        // Test 3: the timed out fetch is recorded as an error
+        assertTrue(registry.get("ilp.fetch").tag("endpoint", "/drones")
+                .tag("outcome", "error").timer().count() >= 1);
+    }
+}
@@ -0,0 +1,118 @@
+package uk.ac.ed.acp.cw2.clients;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.CapabilityDto;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.LimitsDto;
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.RestrictedRegionDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDronesDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceDataCacheTest {
+
+    // Serves whatever drones and regions the test sets, and fails its second load
+    private static class StubDataSource implements IlpDataSource {
+        List<DroneDto> drones = List.of(drone("1"));
+        List<RestrictedRegionDto> regions = List.of(region(-3.19));
+        int loads;
+
+        public List<DroneDto> getAllDrones() {
+            if (++loads == 2) {
+                throw new IllegalStateException("ILP service unavailable");
+            }
+            return drones;
+        }
+
+        public List<ServicePointDronesDto> getDronesForServicePoints() {
+            return List.of();
+        }
+
+        public List<ServicePointDto> getServicePoints() {
+            return List.of(new ServicePointDto("Base", 1, new LocationDto(-3.18, 55.94, 50.0)));
+        }
+
+        public List<RestrictedRegionDto> getRestrictedRegions() {
+            return regions;
+        }
+    }
+
+    private static DroneDto drone(String id) {
+        return new DroneDto("Drone " + id, id,
+                new CapabilityDto(false, false, 4.0, 2000, 0.01, 1.0, 1.0));
+    }
+
+    private static RestrictedRegionDto region(double west) {
+        List<LocationDto> vertices = List.of(
+                new LocationDto(west, 55.943, null),
+                new LocationDto(west + 0.001, 55.943, null),
+                new LocationDto(west + 0.001, 55.944, null),
+                new LocationDto(west, 55.944, null),
+                new LocationDto(west, 55.943, null));
+        return new RestrictedRegionDto("Box", 1, new LimitsDto(0, 0), vertices);
+    }
+
+    private static double gauge(SimpleMeterRegistry registry, String name) {
+        return registry.get(name).gauge().value();
+    }
+
+    private static double refreshes(SimpleMeterRegistry registry, String outcome) {
+        return registry.get("ilp.reference-data.refreshes").tag("outcome", outcome)
+                .counter().count();
+    }
+
+    @Test
+    void testScheduledRefresh() {
+        StubDataSource source = new StubDataSource();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReferenceDataCache cache = new ReferenceDataCache(source, registry);
+
+        // Test 1: nothing is served before the first load
+        assertEquals(0, gauge(registry, "ilp.reference-data.version"));
+
+        cache.refresh();
+        ReferenceDataSnapshot first = cache.current();
+        assertEquals(1, first.getVersion());
+        assertEquals(1, gauge(registry, "ilp.reference-data.version"));
+
+        // Test 2: a failed refresh keeps serving the previous snapshot and version
+        cache.refresh();
+        assertEquals(2, source.loads);
+        assertSame(first, cache.current());
+        assertEquals(1, gauge(registry, "ilp.reference-data.version"));
+        assertEquals(1, refreshes(registry, "failure"));
+
+        // Test 3: unchanged data keeps the version and the region and capability indexes
+        cache.refresh();
+        ReferenceDataSnapshot unchanged = cache.current();
+        assertEquals(1, unchanged.getVersion());
+        assertSame(first.getRestrictedRegionIndex(), unchanged.getRestrictedRegionIndex());
+        assertSame(first.getCapabilityIndex(), unchanged.getCapabilityIndex());
+        assertEquals(1, gauge(registry, "ilp.reference-data.version"));
+
+        // Test 4: new regions raise the version and rebuild only the region index
+        source.regions = List.of(region(-3.19), region(-3.17));
+        cache.refresh();
+        ReferenceDataSnapshot newRegions = cache.current();
+        assertEquals(2, newRegions.getVersion());
+        assertNotSame(unchanged.getRestrictedRegionIndex(), newRegions.getRestrictedRegionIndex());
+        assertEquals(2, newRegions.getRestrictedRegionIndex().size());
+        assertSame(unchanged.getCapabilityIndex(), newRegions.getCapabilityIndex());
+        assertEquals(2, gauge(registry, "ilp.reference-data.version"));
+
+        // Test 5: new drones raise the version and rebuild only the capability index
+        source.drones = List.of(drone("1"), drone("2"));
+        cache.refresh();
+        ReferenceDataSnapshot newDrones = cache.current();
+        assertEquals(3, newDrones.getVersion());
+        assertSame(newRegions.getRestrictedRegionIndex(), newDrones.getRestrictedRegionIndex());
+        assertNotSame(newRegions.getCapabilityIndex(), newDrones.getCapabilityIndex());
+        assertEquals(3, gauge(registry, "ilp.reference-data.version"));
+        assertEquals(4, refreshes(registry, "success"));
+    }
+}
@@ -0,0 +1,136 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import uk.ac.ed.acp.cw2.clients.FixtureIlpDataSource;
+import uk.ac.ed.acp.cw2.clients.ReferenceDataCache;
+import uk.ac.ed.acp.cw2.service.Astar.AStarService;
+import uk.ac.ed.acp.cw2.service.Astar.LegPathCache;
+import uk.ac.ed.acp.cw2.service.Astar.SearchMode;
+import uk.ac.ed.acp.cw2.service.DynamicQueries;
+import uk.ac.ed.acp.cw2.service.StaticQueries;
+import uk.ac.ed.acp.cw2.service.query.CapabilityQueryCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// The streaming calcDeliveryPath endpoint on a standalone MockMvc over the bundled fixtures
+public class DeliveryPathStreamTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // A Monday afternoon record in open ground east of Appleton Tower
+    private static final String RECORD = """
+            {"id":%d,"date":"2025-12-22","time":"14:30","requirements":{"capacity":0.75,"cooling":false,"heating":false},"delivery":{"lng":-3.184,"lat":55.946}}
+            """;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private MockMvc mvc(int chunkSize) {
+        ReferenceDataCache referenceData = new ReferenceDataCache(
+                new FixtureIlpDataSource(objectMapper, new DefaultResourceLoader(), validator,
+                        "classpath:ilp-fixtures"),
+                new SimpleMeterRegistry());
+        AStarService aStarService = new AStarService(referenceData,
+                new LegPathCache(0, new SimpleMeterRegistry()), new SimpleMeterRegistry(),
+                true, SearchMode.UNIDIRECTIONAL, true);
+        StaticQueries staticQueries = new StaticQueries(referenceData);
+        DynamicQueries dynamicQueries = new DynamicQueries(referenceData, staticQueries,
+                aStarService, new CapabilityQueryCache(0, new SimpleMeterRegistry()), executor,
+                new SimpleMeterRegistry(), false, 3);
+        ServiceController controller =
+                new ServiceController(staticQueries, dynamicQueries, objectMapper, validator);
+        controller.streamChunkSize = chunkSize;
+        return MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    private MockHttpServletResponse stream(MockMvc mvc, String body) throws Exception {
+        return mvc.perform(post("/api/v1/calcDeliveryPath/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andReturn()
+                .getResponse();
+    }
+
+    private List<JsonNode> lines(MockHttpServletResponse response) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : response.getContentAsString().split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    void testChunksArePlannedSeparately() throws Exception {
+        String body = RECORD.formatted(1) + RECORD.formatted(2) + RECORD.formatted(3)
+                + RECORD.formatted(4);
+
+        // Test 1: one chunk puts the four records at the same address on one flight
+        List<JsonNode> whole = lines(stream(mvc(500), body));
+        assertEquals(1, whole.size());
+
+        // Test 2: chunks of two are planned on their own, one flight each, numbered in order
+        MockHttpServletResponse response = stream(mvc(2), body);
+        assertEquals(200, response.getStatus());
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, response.getContentType());
+        List<JsonNode> chunked = lines(response);
+        assertEquals(2, chunked.size());
+        for (int i = 0; i < chunked.size(); i++) {
+            assertEquals(i, chunked.get(i).get("deliveryId").asInt());
+            assertTrue(chunked.get(i).get("moves").asInt() > 0);
+            assertFalse(chunked.get(i).get("flightPath").isEmpty());
+        }
+    }
+
+    @Test
+    void testBadRecordAfterFirstLineEndsStreamWithError() throws Exception {
+        // The first chunk is planned and written before the truncated third line is read
+        String body = RECORD.formatted(1) + RECORD.formatted(2) + "{\"id\":3,";
+
+        MockHttpServletResponse response = stream(mvc(2), body);
+
+        // Test 3: the status is already sent, so the stream ends with an error line instead
+        assertEquals(200, response.getStatus());
+        List<JsonNode> lines = lines(response);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).has("deliveryId"));
+        assertTrue(lines.get(1).has("error"));
+        assertEquals("Malformed dispatch record", lines.get(1).get("error").asText());
+    }
+
+    @Test
+    void testBadRecordBeforeFirstLineIsBadRequest() throws Exception {
+        // The second record has no requirements and fails validation within the first chunk
+        String body = RECORD.formatted(1)
+                + "{\"id\":7,\"delivery\":{\"lng\":-3.18,\"lat\":55.94}}\n";
+
+        MockHttpServletResponse response = stream(mvc(2), body);
+
+        // Test 4: nothing was written yet, so the record is reported with the usual status
+        assertEquals(400, response.getStatus());
+        assertEquals("Invalid dispatch record 7", response.getErrorMessage());
+        assertTrue(response.getContentAsString().isEmpty());
+    }
+}
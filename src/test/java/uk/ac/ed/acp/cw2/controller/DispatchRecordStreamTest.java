@@ -0,0 +1,63 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import uk.ac.ed.acp.cw2.dtos.MedDispatchRecDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DispatchRecordStreamTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private static final String RECORD = """
+            {"id":%d,"date":"2025-12-22","time":"14:30","requirements":{"capacity":0.75,"cooling":false,"heating":false},"delivery":{"lng":-3.18,"lat":55.94}}
+            """;
+
+    private DispatchRecordStream stream(String body) throws IOException {
+        return new DispatchRecordStream(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), objectMapper, validator);
+    }
+
+    @Test
+    void testReadsRecordsIncrementally() throws IOException {
+        DispatchRecordStream records = stream(RECORD.formatted(1) + RECORD.formatted(2) + "{\"id\":3,");
+
+        // Test 1: records are returned one per line, before later lines are parsed
+        assertTrue(records.hasNext());
+        MedDispatchRecDto first = records.next();
+        assertEquals(1, first.getId());
+        assertEquals(LocalTime.of(14, 30), first.getTime());
+        assertEquals(2, records.next().getId());
+
+        // Test 2: a truncated line is a bad request
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> {
+            if (records.hasNext()) records.next();
+        });
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+    }
+
+    @Test
+    void testValidatesEachRecord() throws IOException {
+        DispatchRecordStream records = stream(RECORD.formatted(1) + "{\"id\":7,\"delivery\":{\"lng\":-3.18,\"lat\":55.94}}\n");
+
+        // Test 3: a record missing its requirements fails validation, naming the record
+        assertEquals(1, records.next().getId());
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, records::next);
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+        assertEquals("Invalid dispatch record 7", error.getReason());
+
+        // Test 4: an empty body has no records
+        assertFalse(stream("").hasNext());
+    }
+}
@@ -0,0 +1,50 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DeliveryPathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DronePathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.OverallRouteDto;
+import uk.ac.ed.acp.cw2.service.Polyline;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolylineRouteMessageConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PolylineRouteMessageConverter converter = new PolylineRouteMessageConverter(objectMapper.getFactory());
+
+    @Test
+    void testWritesPolylineRoutes() throws IOException {
+        List<PositionDto> path = List.of(
+                new PositionDto(-3.186358, 55.944681), new PositionDto(-3.186358, 55.944531),
+                new PositionDto(-3.186358, 55.944531), new PositionDto(-3.186464, 55.944425));
+        OverallRouteDto route = new OverallRouteDto(1.5, 3,
+                List.of(new DronePathDto(4, List.of(new DeliveryPathDto(9, path)))));
+
+        // Test 1: only negotiated for routes, and only for writing
+        assertTrue(converter.canWrite(OverallRouteDto.class, PolylineRouteMessageConverter.POLYLINE_ROUTE));
+        assertFalse(converter.canWrite(OverallRouteDto.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(DeliveryPathDto.class, PolylineRouteMessageConverter.POLYLINE_ROUTE));
+        assertFalse(converter.canRead(OverallRouteDto.class, PolylineRouteMessageConverter.POLYLINE_ROUTE));
+
+        // Test 2: the usual route shape with each flight path as a polyline6 string
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(route, PolylineRouteMessageConverter.POLYLINE_ROUTE, message);
+        JsonNode json = objectMapper.readTree(message.getBodyAsString());
+        assertEquals(1.5, json.get("totalCost").asDouble());
+        assertEquals(3, json.get("totalMoves").asInt());
+        JsonNode delivery = json.get("dronePaths").get(0).get("deliveries").get(0);
+        assertEquals(4, json.get("dronePaths").get(0).get("droneId").asInt());
+        assertEquals(9, delivery.get("deliveryId").asInt());
+        assertEquals(path, Polyline.decode(delivery.get("flightPath").asText(), 6));
+        assertEquals(PolylineRouteMessageConverter.POLYLINE_ROUTE, message.getHeaders().getContentType());
+    }
+}
@@ -0,0 +1,183 @@
+package uk.ac.ed.acp.cw2.service.Astar;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.DistanceDto;
+import uk.ac.ed.acp.cw2.dtos.LimitsDto;
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.RestrictedRegionDto;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+import uk.ac.ed.acp.cw2.service.geometry.RestrictedRegionIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatticeAStarTest {
+
+    private static final double MOVE = 0.00015;
+
+    // Small no-fly box sitting directly between start and goal
+    private RestrictedRegionIndex wall() {
+        List<LocationDto> vertices = List.of(
+                new LocationDto(-3.1880, 55.9430, null),
+                new LocationDto(-3.1875, 55.9430, null),
+                new LocationDto(-3.1875, 55.9450, null),
+                new LocationDto(-3.1880, 55.9450, null),
+                new LocationDto(-3.1880, 55.9430, null));
+        return RestrictedRegionIndex.build(
+                List.of(new RestrictedRegionDto("wall", 1, new LimitsDto(0, 0), vertices)));
+    }
+
+    private void assertValidPath(AStarResult result, PositionDto start, PositionDto goal) {
+        List<PositionDto> path = result.getPath();
+        assertTrue(result.isReachedGoal());
+        assertEquals(result.getMovesUsed(), path.size() - 1);
+        assertEquals(start, path.getFirst());
+        assertEquals(goal, path.getLast());
+        // every move but the final snap onto the goal is exactly one step long
+        for (int i = 1; i < path.size() - 1; i++) {
+            double step = CalculatePositioning.calculateDistance(
+                    new DistanceDto(path.get(i - 1), path.get(i)));
+            assertEquals(MOVE, step, 1e-12);
+        }
+    }
+
+    @Test
+    void testOpenSpace() {
+        PositionDto start = new PositionDto(-3.1900, 55.9440);
+        PositionDto goal = new PositionDto(-3.1850, 55.9440);
+        AStarResult result = new LatticeAStar(RestrictedRegionIndex.build(List.of()), true)
+                .search(start, goal, 2000, 0.01);
+
+        assertValidPath(result, start, goal);
+        // a straight eastward leg needs ceil(distance / MOVE) moves at most
+        assertTrue(result.getMovesUsed() <= Math.ceil(0.005 / MOVE));
+        assertEquals(result.getMovesUsed() * 0.01, result.getTotalCost(), 1e-9);
+    }
+
+    @Test
+    void testRoutesAroundRestrictedRegion() {
+        RestrictedRegionIndex regions = wall();
+        PositionDto start = new PositionDto(-3.1900, 55.9440);
+        PositionDto goal = new PositionDto(-3.1850, 55.9440);
+        AStarResult result = new LatticeAStar(regions, true).search(start, goal, 2000, 0.01);
+
+        assertValidPath(result, start, goal);
+        List<PositionDto> path = result.getPath();
+        for (int i = 1; i < path.size(); i++) {
+            PositionDto a = path.get(i - 1);
+            PositionDto b = path.get(i);
+            assertFalse(regions.crossesSegment(a.getLng(), a.getLat(), b.getLng(), b.getLat()));
+        }
+    }
+
+    @Test
+    void testBidirectionalRoutesAroundRestrictedRegion() {
+        RestrictedRegionIndex regions = wall();
+        PositionDto start = new PositionDto(-3.1900, 55.9440);
+        PositionDto goal = new PositionDto(-3.1850, 55.9440);
+        AStarResult result = new LatticeAStar(regions, true)
+                .searchBidirectional(start, goal, 2000, 0.01);
+
+        assertValidPath(result, start, goal);
+        assertEquals(result.getMovesUsed() * 0.01, result.getTotalCost(), 1e-9);
+        List<PositionDto> path = result.getPath();
+        for (int i = 1; i < path.size(); i++) {
+            PositionDto a = path.get(i - 1);
+            PositionDto b = path.get(i);
+            assertFalse(regions.crossesSegment(a.getLng(), a.getLat(), b.getLng(), b.getLat()));
+        }
+
+        // Test: both modes respect the move budget in the same way
+        assertFalse(new LatticeAStar(regions, true)
+                .searchBidirectional(start, goal, 20, 0.01).isReachedGoal());
+    }
+
+    @Test
+    void testVisibilityHeuristic() {
+        RestrictedRegionIndex regions = wall();
+        PositionDto start = new PositionDto(-3.1900, 55.9440);
+        PositionDto goal = new PositionDto(-3.1850, 55.9440);
+        LatticeAStar euclidean = new LatticeAStar(regions, true, false);
+        LatticeAStar visibility = new LatticeAStar(regions, true, true);
+        AStarResult baseline = euclidean.search(start, goal, 2000, 0.01);
+        AStarResult result = visibility.search(start, goal, 2000, 0.01);
+
+        // Test 1: the path is still valid and avoids the wall
+        assertValidPath(result, start, goal);
+        List<PositionDto> path = result.getPath();
+        for (int i = 1; i < path.size(); i++) {
+            PositionDto a = path.get(i - 1);
+            PositionDto b = path.get(i);
+            assertFalse(regions.crossesSegment(a.getLng(), a.getLat(), b.getLng(), b.getLat()));
+        }
+
+        // Test 2: guided around the wall, the search expands fewer nodes for a path no longer
+        // than the straight-line search finds
+        assertTrue(visibility.expandedNodes() < euclidean.expandedNodes());
+        assertTrue(result.getMovesUsed() <= baseline.getMovesUsed());
+
+        // Test 3: bounds are only computed for nodes that reached the top of the open set, once
+        // each, so every one belongs to a node that was expanded or is still open
+        assertTrue(visibility.boundEvaluations() > 0);
+        assertTrue(visibility.boundEvaluations()
+                <= visibility.expandedNodes() + visibility.openSetPeak());
+        assertEquals(0, euclidean.boundEvaluations());
+
+        // Test 4: bidirectional search uses the bound towards both ends
+        assertValidPath(visibility.searchBidirectional(start, goal, 2000, 0.01), start, goal);
+    }
+
+    @Test
+    void testVisibilityHeuristicWithPointChecks() {
+        // A thin strip that the straight eastward path clips between two lattice points
+        List<LocationDto> vertices = List.of(
+                new LocationDto(-3.18848, 55.9390, null),
+                new LocationDto(-3.18837, 55.9390, null),
+                new LocationDto(-3.18837, 55.9408, null),
+                new LocationDto(-3.18848, 55.9408, null),
+                new LocationDto(-3.18848, 55.9390, null));
+        RestrictedRegionIndex regions = RestrictedRegionIndex.build(
+                List.of(new RestrictedRegionDto("strip", 1, new LimitsDto(0, 0), vertices)));
+        PositionDto start = new PositionDto(-3.1900, 55.9400);
+        PositionDto goal = new PositionDto(-3.1870, 55.9400);
+
+        // Test 1: with point-only checks the 20-move leg fits a budget of 21 by clipping the strip,
+        // although the path round the strip is longer than that
+        AStarResult result = new LatticeAStar(regions, false, true).search(start, goal, 21, 0.01);
+        assertValidPath(result, start, goal);
+        assertTrue(result.getMovesUsed() <= 21);
+
+        // Test 2: with segment checks the strip has to be flown round, which does not fit
+        assertFalse(new LatticeAStar(regions, true, true)
+                .search(start, goal, 21, 0.01).isReachedGoal());
+    }
+
+    @Test
+    void testSearchStatistics() {
+        PositionDto start = new PositionDto(-3.1900, 55.9440);
+        PositionDto goal = new PositionDto(-3.1850, 55.9440);
+        LatticeAStar search = new LatticeAStar(wall(), true);
+        search.search(start, goal, 2000, 0.01);
+
+        // Test 1: every expansion tests at most one move per direction against the regions
+        assertTrue(search.expandedNodes() > 0);
+        assertTrue(search.regionChecks() > 0);
+        assertTrue(search.regionChecks()
+                <= CalculatePositioning.DIRECTION_COUNT * search.expandedNodes());
+
+        // Test 2: the open set peaked above the single root entry it started with
+        assertTrue(search.openSetPeak() > 1);
+    }
+
+    @Test
+    void testMoveBudgetExhausted() {
+        PositionDto start = new PositionDto(-3.1900, 55.9440);
+        PositionDto goal = new PositionDto(-3.1850, 55.9440);
+        AStarResult result = new LatticeAStar(wall(), true).search(start, goal, 20, 0.01);
+
+        assertFalse(result.isReachedGoal());
+        assertTrue(result.getPath().isEmpty());
+    }
+}
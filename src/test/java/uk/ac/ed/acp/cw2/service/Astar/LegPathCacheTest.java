@@ -0,0 +1,58 @@
+package uk.ac.ed.acp.cw2.service.Astar;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.service.geometry.RestrictedRegionIndex;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegPathCacheTest {
+
+    private final PositionDto start = new PositionDto(-3.1900, 55.9440);
+    private final PositionDto goal = new PositionDto(-3.1850, 55.9440);
+
+    private AStarResult result() {
+        return new AStarResult(List.of(start, goal), 1, 0.01, true);
+    }
+
+    @Test
+    void testHitsAndInvalidation() {
+        LegPathCache cache = new LegPathCache(10, new SimpleMeterRegistry());
+        RestrictedRegionIndex regions = RestrictedRegionIndex.build(List.of());
+        AtomicInteger searches = new AtomicInteger();
+
+        // Test 1: the second identical leg is answered from the cache
+        AStarResult first = cache.get(regions, start, goal, 100, 0.01, SearchMode.UNIDIRECTIONAL,
+                () -> { searches.incrementAndGet(); return result(); });
+        AStarResult second = cache.get(regions, start, goal, 100, 0.01, SearchMode.UNIDIRECTIONAL,
+                () -> { searches.incrementAndGet(); return result(); });
+        assertSame(first, second);
+        assertEquals(1, searches.get());
+
+        // Test 2: a different move budget is a different leg
+        cache.get(regions, start, goal, 50, 0.01, SearchMode.UNIDIRECTIONAL,
+                () -> { searches.incrementAndGet(); return result(); });
+        assertEquals(2, searches.get());
+
+        // Test 3: new restricted regions invalidate everything
+        RestrictedRegionIndex newRegions = RestrictedRegionIndex.build(List.of());
+        cache.get(newRegions, start, goal, 100, 0.01, SearchMode.UNIDIRECTIONAL,
+                () -> { searches.incrementAndGet(); return result(); });
+        assertEquals(3, searches.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testEviction() {
+        LegPathCache cache = new LegPathCache(2, new SimpleMeterRegistry());
+        RestrictedRegionIndex regions = RestrictedRegionIndex.build(List.of());
+        for (int budget = 1; budget <= 5; budget++) {
+            cache.get(regions, start, goal, budget, 0.01, SearchMode.UNIDIRECTIONAL, this::result);
+        }
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,63 @@
+package uk.ac.ed.acp.cw2.service.Astar;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WaypointsTest {
+
+    // Appends moves in a compass direction (multiple of 22.5 degrees) the way the lattice does
+    private static void move(List<PositionDto> path, double angle, int moves) {
+        PositionDto last = path.get(path.size() - 1);
+        double x = last.getLng();
+        double y = last.getLat();
+        for (int i = 0; i < moves; i++) {
+            x += CalculatePositioning.MOVE_DISTANCE * Math.cos(Math.toRadians(angle));
+            y += CalculatePositioning.MOVE_DISTANCE * Math.sin(Math.toRadians(angle));
+            path.add(new PositionDto(x, y));
+        }
+    }
+
+    @Test
+    void testCollapsesStraightRuns() {
+        List<PositionDto> path = new ArrayList<>(List.of(new PositionDto(-3.18635807889864, 55.9446806670849)));
+        move(path, 22.5, 40);
+        move(path, 45, 25);
+        PositionDto delivery = path.get(path.size() - 1);
+        path.add(delivery); // hover
+        move(path, 225, 25);
+        move(path, 202.5, 40);
+
+        List<PositionDto> waypoints = Waypoints.compress(path);
+
+        // Test 1: start, each turn, both ends of the hover and the end survive
+        assertEquals(List.of(path.get(0), path.get(40), delivery, delivery, path.get(91), path.get(path.size() - 1)),
+                waypoints);
+
+        // Test 2: a U-turn without a hover is kept as a waypoint
+        List<PositionDto> uTurn = new ArrayList<>(List.of(new PositionDto(0.0, 0.0)));
+        move(uTurn, 90, 3);
+        move(uTurn, 270, 3);
+        assertEquals(List.of(uTurn.get(0), uTurn.get(3), uTurn.get(6)), Waypoints.compress(uTurn));
+
+        // Test 3: short paths are returned unchanged
+        assertEquals(path.subList(0, 2), Waypoints.compress(path.subList(0, 2)));
+    }
+
+    @Test
+    void testSnappedGoalIsKept() {
+        List<PositionDto> path = new ArrayList<>(List.of(new PositionDto(-3.19, 55.94)));
+        move(path, 0, 10);
+        // the final point snaps to a goal just off the lattice
+        PositionDto last = path.get(path.size() - 1);
+        path.add(new PositionDto(last.getLng() + 0.00005, last.getLat() + 0.00004));
+
+        // Test 4: the run is collapsed but the off-lattice step is its own segment
+        assertEquals(List.of(path.get(0), path.get(10), path.get(11)), Waypoints.compress(path));
+    }
+}
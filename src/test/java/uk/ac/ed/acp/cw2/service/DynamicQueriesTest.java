@@ -0,0 +1,291 @@
+package uk.ac.ed.acp.cw2.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import uk.ac.ed.acp.cw2.clients.FixtureIlpDataSource;
+import uk.ac.ed.acp.cw2.clients.IlpDataSource;
+import uk.ac.ed.acp.cw2.clients.ReferenceDataCache;
+import uk.ac.ed.acp.cw2.dtos.*;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DeliveryPathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.OverallRouteDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.StreamedDeliveryDto;
+import uk.ac.ed.acp.cw2.service.Astar.AStarService;
+import uk.ac.ed.acp.cw2.service.Astar.LegPathCache;
+import uk.ac.ed.acp.cw2.service.Astar.SearchMode;
+import uk.ac.ed.acp.cw2.service.query.CapabilityQueryCache;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DynamicQueriesTest {
+
+    private static final LocationDto BASE = new LocationDto(-3.19, 55.94, 50.0);
+    // A Monday, inside every drone's shift below
+    private static final LocalDate DATE = LocalDate.of(2025, 1, 6);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static DroneDto drone(String id, int maxMoves, double costPerMove) {
+        return new DroneDto("Drone " + id, id,
+                new CapabilityDto(false, false, 10.0, maxMoves, costPerMove, 0.0, 0.0));
+    }
+
+    // One service point with the given drones, all on shift every Monday, and a thin north-south
+    // wall halfway between the service point and a delivery 40 moves to the east
+    private static IlpDataSource walledSite(List<DroneDto> drones) {
+        List<LocationDto> wall = List.of(
+                new LocationDto(-3.1871, 55.934, null),
+                new LocationDto(-3.1869, 55.934, null),
+                new LocationDto(-3.1869, 55.946, null),
+                new LocationDto(-3.1871, 55.946, null),
+                new LocationDto(-3.1871, 55.934, null));
+        List<DroneAvailabilityDto> availability = drones.stream()
+                .map(drone -> new DroneAvailabilityDto(drone.getId(),
+                        List.of(new AvailabilityDto("MONDAY", "00:00:00", "23:59:59"))))
+                .toList();
+        return new IlpDataSource() {
+            public List<DroneDto> getAllDrones() {
+                return drones;
+            }
+
+            public List<ServicePointDronesDto> getDronesForServicePoints() {
+                return List.of(new ServicePointDronesDto(1, availability));
+            }
+
+            public List<ServicePointDto> getServicePoints() {
+                return List.of(new ServicePointDto("Base", 1, BASE));
+            }
+
+            public List<RestrictedRegionDto> getRestrictedRegions() {
+                return List.of(new RestrictedRegionDto("Wall", 1, new LimitsDto(0, 0), wall));
+            }
+        };
+    }
+
+    private DynamicQueries dynamicQueries(IlpDataSource source, boolean parallelPlanning) {
+        return dynamicQueries(source, parallelPlanning, new SimpleMeterRegistry());
+    }
+
+    private DynamicQueries dynamicQueries(IlpDataSource source, boolean parallelPlanning,
+                                          MeterRegistry registry) {
+        ReferenceDataCache referenceData =
+                new ReferenceDataCache(source, new SimpleMeterRegistry());
+        AStarService aStarService = new AStarService(referenceData,
+                new LegPathCache(0, new SimpleMeterRegistry()), new SimpleMeterRegistry(),
+                true, SearchMode.UNIDIRECTIONAL, true);
+        return new DynamicQueries(referenceData, new StaticQueries(referenceData), aStarService,
+                new CapabilityQueryCache(0, new SimpleMeterRegistry()), executor,
+                registry, parallelPlanning, 3);
+    }
+
+    private static MedDispatchRecDto behindWall(int id) {
+        return new MedDispatchRecDto(id, DATE, LocalTime.of(10, 0),
+                new RequirementsDto(1.0, false, false, null),
+                new PositionDto(-3.184, 55.94));
+    }
+
+    private static List<StreamedDeliveryDto> plan(DynamicQueries dynamicQueries,
+                                                  List<MedDispatchRecDto> records) {
+        List<StreamedDeliveryDto> flights = new ArrayList<>();
+        dynamicQueries.streamDeliveryPaths(records.iterator(), records.size(), flights::add);
+        return flights;
+    }
+
+    private static void assertWithinMaxMoves(List<DroneDto> drones,
+                                             List<StreamedDeliveryDto> flights) {
+        Map<String, DroneDto> byId = drones.stream()
+                .collect(Collectors.toMap(DroneDto::getId, Function.identity()));
+        for (StreamedDeliveryDto flight : flights) {
+            DroneDto drone = byId.get(String.valueOf(flight.getDroneId()));
+            assertTrue(flight.getMoves() <= drone.getCapability().getMaxMoves(),
+                    "drone " + drone.getId() + " flew " + flight.getMoves() + " moves");
+            // every flight ends back at the service point it left
+            assertEquals(flight.getFlightPath().getFirst(), flight.getFlightPath().getLast());
+        }
+    }
+
+    private static MedDispatchRecDto record(int id, LocalDate date, int hour, boolean cooling,
+                                            boolean heating, double lng, double lat) {
+        return new MedDispatchRecDto(id, date, LocalTime.of(hour, 0),
+                new RequirementsDto(1.0, cooling, heating, null), new PositionDto(lng, lat));
+    }
+
+    // Whether one of the drone's shifts covers the record's dispatch time
+    private static boolean onShift(IlpDataSource source, String droneId, MedDispatchRecDto record) {
+        return source.getDronesForServicePoints().stream()
+                .flatMap(entry -> entry.getDrones().stream())
+                .filter(drone -> drone.getId().equals(droneId))
+                .flatMap(drone -> drone.getAvailability().stream())
+                .anyMatch(shift -> shift.getDayOfWeek().equalsIgnoreCase(
+                        record.getDate().getDayOfWeek().name())
+                        && !record.getTime().isBefore(LocalTime.parse(shift.getFrom()))
+                        && !record.getTime().isAfter(LocalTime.parse(shift.getUntil())));
+    }
+
+    private static IlpDataSource fixtures() {
+        return new FixtureIlpDataSource(new ObjectMapper(), new DefaultResourceLoader(),
+                Validation.buildDefaultValidatorFactory().getValidator(), "classpath:ilp-fixtures");
+    }
+
+    @Test
+    void testFixtureBatch() {
+        IlpDataSource source = fixtures();
+        LocalDate monday = DATE;
+        LocalDate thursday = DATE.plusDays(3);
+        List<MedDispatchRecDto> deliverable = List.of(
+                record(1, monday, 10, false, false, -3.186, 55.946),
+                record(2, monday, 10, true, false, -3.183, 55.948),
+                record(3, monday, 10, false, true, -3.175, 55.978),
+                // cooling drone 3 is off on Thursdays, leaving 6 and 9
+                record(4, thursday, 10, true, false, -3.188, 55.941),
+                record(5, monday, 22, false, false, -3.192, 55.942));
+        // Both heating drones finish at 19:00
+        MedDispatchRecDto offShift = record(6, monday, 20, false, true, -3.184, 55.947);
+        List<MedDispatchRecDto> batch = new ArrayList<>(deliverable);
+        batch.add(offShift);
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        List<StreamedDeliveryDto> flights = plan(dynamicQueries(source, false, registry), batch);
+
+        // Test 1: every record some drone can serve is delivered, and the off-shift one is not and
+        // is counted as unserved
+        for (MedDispatchRecDto record : deliverable) {
+            assertTrue(flights.stream()
+                    .anyMatch(f -> f.getFlightPath().contains(record.getDelivery())),
+                    "record " + record.getId() + " was not delivered");
+        }
+        assertTrue(flights.stream()
+                .noneMatch(f -> f.getFlightPath().contains(offShift.getDelivery())));
+        assertEquals(5.0, registry.counter("planning.records", "outcome", "delivered").count());
+        assertEquals(1.0, registry.counter("planning.records", "outcome", "unserved").count());
+
+        // Test 2: every flight stays within its drone's maxMoves
+        assertWithinMaxMoves(source.getAllDrones(), flights);
+
+        // Test 3: each record is flown by a drone with the cooling or heating it needs, on shift
+        // at its dispatch time
+        Map<String, DroneDto> drones = source.getAllDrones().stream()
+                .collect(Collectors.toMap(DroneDto::getId, Function.identity()));
+        for (StreamedDeliveryDto flight : flights) {
+            String droneId = String.valueOf(flight.getDroneId());
+            CapabilityDto capability = drones.get(droneId).getCapability();
+            for (MedDispatchRecDto record : deliverable) {
+                if (!flight.getFlightPath().contains(record.getDelivery())) {
+                    continue;
+                }
+                assertTrue(!record.getRequirements().isCooling() || capability.getCooling());
+                assertTrue(!record.getRequirements().isHeating() || capability.getHeating());
+                assertTrue(onShift(source, droneId, record),
+                        "drone " + droneId + " is off shift for record " + record.getId());
+            }
+        }
+    }
+
+    @Test
+    void testParallelPlanningMatchesSequential() {
+        // Rings of Monday morning records around both fixture service points, clear of the
+        // restricted areas, so the batch spreads over several drones and baskets
+        List<MedDispatchRecDto> batch = new ArrayList<>();
+        double[][] centres = {{-3.18635807889864, 55.9446806670849}, {-3.17732, 55.981634}};
+        for (int i = 0; i < 16; i++) {
+            double angle = 2 * Math.PI * i / 8;
+            double[] centre = centres[i / 8];
+            // heavy enough that no drone can carry the batch in one flight
+            batch.add(new MedDispatchRecDto(i + 1, DATE, LocalTime.of(9 + i % 3, 0),
+                    new RequirementsDto(4.0, i % 5 == 0, false, null),
+                    new PositionDto(centre[0] + 0.006 * Math.cos(angle),
+                            centre[1] + 0.006 * Math.sin(angle))));
+        }
+
+        // Fresh instances, so both runs number their deliveries from the same id
+        OverallRouteDto sequential = dynamicQueries(fixtures(), false)
+                .calcDeliveryPath(new ArrayList<>(batch), false);
+        OverallRouteDto parallel = dynamicQueries(fixtures(), true)
+                .calcDeliveryPath(new ArrayList<>(batch), false);
+
+        // Test 4: the same deliveries, ids, totals and paths in the same order
+        assertTrue(deliveryIds(sequential).size() > 1);
+        assertEquals(sequential.getTotalCost(), parallel.getTotalCost());
+        assertEquals(sequential.getTotalMoves(), parallel.getTotalMoves());
+        assertEquals(deliveryIds(sequential), deliveryIds(parallel));
+        assertEquals(sequential, parallel);
+    }
+
+    private static List<Integer> deliveryIds(OverallRouteDto route) {
+        return route.getDronePaths().stream()
+                .flatMap(dronePath -> dronePath.getDeliveries().stream())
+                .map(DeliveryPathDto::getDeliveryId)
+                .toList();
+    }
+
+    @Test
+    void testDetourPastMaxMovesGoesToAnotherDrone() {
+        // The short drone is cheaper and covers the straight-line round trip of 80 moves, but the
+        // way around the wall is about 90 moves each way
+        List<DroneDto> drones = List.of(drone("1", 120, 0.01), drone("2", 2000, 1.0));
+        MedDispatchRecDto record = behindWall(1);
+
+        List<StreamedDeliveryDto> flights =
+                plan(dynamicQueries(walledSite(drones), false), new ArrayList<>(List.of(record)));
+
+        // Test 5: the record is re-planned onto the drone that can fly the detour
+        assertEquals(1, flights.size());
+        assertEquals(2, flights.getFirst().getDroneId());
+        assertTrue(flights.getFirst().getFlightPath().contains(record.getDelivery()));
+
+        // Test 6: no flight goes past its drone's maxMoves
+        assertWithinMaxMoves(drones, flights);
+    }
+
+    @Test
+    void testDetourNoDroneCanFlyIsNotFlown() {
+        List<DroneDto> drones = List.of(drone("1", 120, 0.01));
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        List<StreamedDeliveryDto> flights =
+                plan(dynamicQueries(walledSite(drones), false, registry),
+                        new ArrayList<>(List.of(behindWall(1))));
+
+        // Test 7: with only the short drone there is no flight, rather than one over its moves or
+        // one that never comes back, and the record is counted as unserved
+        assertTrue(flights.isEmpty());
+        assertEquals(1.0, registry.counter("planning.records", "outcome", "unserved").count());
+    }
+
+    @Test
+    void testDeliveredStopsKeepTheirFlightWhenOneDoesNot() {
+        // One stop on this side of the wall and one behind it, both for the short drone only
+        List<DroneDto> drones = List.of(drone("1", 120, 0.01));
+        MedDispatchRecDto near = new MedDispatchRecDto(2, DATE, LocalTime.of(9, 0),
+                new RequirementsDto(1.0, false, false, null), new PositionDto(-3.19, 55.942));
+
+        List<StreamedDeliveryDto> flights = plan(dynamicQueries(walledSite(drones), true),
+                new ArrayList<>(List.of(behindWall(1), near)));
+
+        // Test 8: the reachable stop is still flown, within maxMoves, without the other one
+        assertFalse(flights.isEmpty());
+        assertTrue(flights.stream().anyMatch(f -> f.getFlightPath().contains(near.getDelivery())));
+        assertTrue(flights.stream()
+                .noneMatch(f -> f.getFlightPath().contains(behindWall(1).getDelivery())));
+        assertWithinMaxMoves(drones, flights);
+    }
+}
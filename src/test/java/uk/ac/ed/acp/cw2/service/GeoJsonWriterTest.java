@@ -0,0 +1,67 @@
+package uk.ac.ed.acp.cw2.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DeliveryPathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.DronePathDto;
+import uk.ac.ed.acp.cw2.dtos.deliveries.OverallRouteDto;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeoJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final OverallRouteDto ROUTE = new OverallRouteDto(12.345, 96, List.of(
+            new DronePathDto(4, List.of(
+                    new DeliveryPathDto(0, List.of(
+                            new PositionDto(-3.186874, 55.944494),
+                            new PositionDto(-3.18672700000001, 55.94438900000001),
+                            new PositionDto(-3.1865799999, 55.9442841234567))),
+                    new DeliveryPathDto(1, List.of()))),
+            new DronePathDto(7, List.of(
+                    new DeliveryPathDto(2, List.of(new PositionDto(-3.17732, 55.98111)))))));
+
+    private String write(int precision) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            new GeoJsonWriter(precision).write(ROUTE, generator);
+        }
+        return out.toString();
+    }
+
+    @Test
+    void testMatchesTreeConverter() throws IOException {
+        // Test 1: at full precision the streamed document is byte-for-byte the converter's
+        String expected = objectMapper.writeValueAsString(new GeoJsonConverter().toGeoJson(ROUTE));
+        assertEquals(expected, write(GeoJsonWriter.FULL_PRECISION));
+    }
+
+    @Test
+    void testPrecision() throws IOException {
+        JsonNode rounded = objectMapper.readTree(write(6));
+        JsonNode line = rounded.get("features").get(0).get("geometry").get("coordinates");
+
+        // Test 2: coordinates are rounded to the requested decimal places, properties are not
+        assertEquals(-3.186727, line.get(1).get(0).asDouble());
+        assertEquals(55.944284, line.get(2).get(1).asDouble());
+        assertEquals(12.345, rounded.get("features").get(0).get("properties").get("totalCost").asDouble());
+
+        // Test 3: start/end points and empty paths keep the converter's feature layout
+        assertEquals(7, rounded.get("features").size());
+        assertEquals("end", rounded.get("features").get(2).get("properties").get("featureType").asText());
+        assertEquals(55.944284, rounded.get("features").get(2).get("geometry").get("coordinates").get(1).asDouble());
+
+        // Test 4: out of range precisions are rejected
+        assertThrows(ResponseStatusException.class, () -> new GeoJsonWriter(16));
+        assertThrows(ResponseStatusException.class, () -> new GeoJsonWriter(-2));
+    }
+}
@@ -0,0 +1,56 @@
+package uk.ac.ed.acp.cw2.service;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolylineTest {
+
+    @Test
+    void testReferenceEncoding() {
+        // Test 1: the example from Google's polyline algorithm documentation (precision 5)
+        List<PositionDto> path = List.of(
+                new PositionDto(-120.2, 38.5), new PositionDto(-120.95, 40.7), new PositionDto(-126.453, 43.252));
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", Polyline.encode(path, 5));
+        assertEquals(path, Polyline.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@", 5));
+
+        // Test 2: empty paths encode to the empty string
+        assertEquals("", Polyline.encode(List.of(), 6));
+        assertTrue(Polyline.decode("", 6).isEmpty());
+
+        // Test 3: truncated input is rejected
+        assertThrows(IllegalArgumentException.class, () -> Polyline.decode("_p~iF~ps|U_", 5));
+    }
+
+    @Test
+    void testDroneMovesRoundTrip() {
+        Random random = new Random(42);
+        List<PositionDto> path = new ArrayList<>();
+        double lng = -3.18635807889864;
+        double lat = 55.9446806670849;
+        for (int i = 0; i < 2000; i++) {
+            path.add(new PositionDto(lng, lat));
+            if (random.nextInt(10) == 0) continue; // hover
+            double angle = Math.toRadians(22.5 * random.nextInt(16));
+            lng += CalculatePositioning.MOVE_DISTANCE * Math.cos(angle);
+            lat += CalculatePositioning.MOVE_DISTANCE * Math.sin(angle);
+        }
+        String encoded = Polyline.encode(path, Polyline.DEFAULT_PRECISION);
+        List<PositionDto> decoded = Polyline.decode(encoded, Polyline.DEFAULT_PRECISION);
+
+        // Test 4: every point survives to within half a unit of the sixth decimal place
+        assertEquals(path.size(), decoded.size());
+        for (int i = 0; i < path.size(); i++) {
+            assertEquals(path.get(i).getLng(), decoded.get(i).getLng(), 0.5e-6 + 1e-12);
+            assertEquals(path.get(i).getLat(), decoded.get(i).getLat(), 0.5e-6 + 1e-12);
+        }
+
+        // Test 5: moves cost a few characters each
+        assertTrue(encoded.length() < 5 * path.size());
+    }
+}
@@ -35,4 +35,30 @@ public class NextPositionTest {
             assertTrue(Math.abs(d - MOVE) < 1e-1); // checks if actual distance from old to new point adds up
         }
     }
+
+    @Test
+    void testDirectionTable() {
+
+        PositionDto start = new PositionDto(-3.192473, 55.946233);
+
+        // Test 1: only compass angles in [0, 360) map to a table index
+        assertEquals(0, CalculatePositioning.directionIndex(0));
+        assertEquals(1, CalculatePositioning.directionIndex(22.5));
+        assertEquals(15, CalculatePositioning.directionIndex(337.5));
+        assertEquals(-1, CalculatePositioning.directionIndex(10));
+        assertEquals(-1, CalculatePositioning.directionIndex(360));
+
+        // Test 2: batch neighbours match the trigonometric computation exactly
+        double[] buffer = new double[2 * CalculatePositioning.DIRECTION_COUNT];
+        CalculatePositioning.neighbours(start.getLng(), start.getLat(), false, buffer);
+        for (int d = 0; d < CalculatePositioning.DIRECTION_COUNT; d++) {
+            double angle = Math.toRadians(d * 22.5);
+            assertEquals(start.getLng() + Math.cos(angle) * MOVE, buffer[2 * d]);
+            assertEquals(start.getLat() + Math.sin(angle) * MOVE, buffer[2 * d + 1]);
+
+            PositionDto p = CalculatePositioning.nextPosition(new NextPositionDto(start, d * 22.5));
+            assertEquals(buffer[2 * d], p.getLng());
+            assertEquals(buffer[2 * d + 1], p.getLat());
+        }
+    }
 }
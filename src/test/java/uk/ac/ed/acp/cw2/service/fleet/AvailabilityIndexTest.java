@@ -0,0 +1,110 @@
+package uk.ac.ed.acp.cw2.service.fleet;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvailabilityIndexTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 22);
+
+    private static DroneDto drone(String id) {
+        return new DroneDto("Drone " + id, id, new CapabilityDto(true, false, 4.0, 1000, 0.01, 1.0, 1.0));
+    }
+
+    private static MedDispatchRecDto record(LocalDate date, LocalTime time) {
+        return new MedDispatchRecDto(1, date, time,
+                new RequirementsDto(1.0, false, false, null), new PositionDto(-3.18, 55.94));
+    }
+
+    // The per-request check the index replaces
+    private static boolean oracle(List<AvailabilityDto> schedule, LocalDate date, LocalTime time) {
+        return schedule != null && schedule.stream().anyMatch(s ->
+                s.getDayOfWeek().equalsIgnoreCase(date.getDayOfWeek().toString())
+                        && !time.isBefore(LocalTime.parse(s.getFrom()))
+                        && !time.isAfter(LocalTime.parse(s.getUntil())));
+    }
+
+    @Test
+    void testBoundsAndEdgeCases() {
+        List<DroneDto> fleet = List.of(drone("1"), drone("2"), drone("3"), drone("1"));
+        DroneLookup lookup = DroneLookup.build(fleet, List.of(new ServicePointDronesDto(1, List.of(
+                new DroneAvailabilityDto("1", List.of(
+                        new AvailabilityDto("MONDAY", "09:00:00", "12:00:00"),
+                        new AvailabilityDto("monday", "11:00:00", "17:00:00"))),
+                new DroneAvailabilityDto("2", List.of(
+                        new AvailabilityDto("TUESDAY", "00:00:00", "23:59:59"),
+                        new AvailabilityDto("MONDAY", "18:00:00", "08:00:00"),
+                        new AvailabilityDto("MONDAY", "not a time", "10:00:00")))))), List.of());
+        AvailabilityIndex index = AvailabilityIndex.build(fleet, lookup);
+
+        // Test 1: bounds are inclusive and overlapping shifts merge; duplicate ids share a schedule
+        assertEquals(bits(0, 3), index.freeAt(MONDAY, LocalTime.of(9, 0)));
+        assertEquals(bits(0, 3), index.freeAt(MONDAY, LocalTime.of(17, 0)));
+        assertEquals(bits(), index.freeAt(MONDAY, LocalTime.of(17, 0, 0, 1)));
+
+        // Test 2: inverted and unparseable shifts never match
+        assertEquals(bits(), index.freeAt(MONDAY, LocalTime.of(20, 0)));
+        assertEquals(bits(1), index.freeAt(MONDAY.plusDays(1), LocalTime.of(23, 59, 59)));
+
+        // Test 3: batches need every record's slot; empty batches match stationed drones only
+        assertEquals(bits(0, 3), index.freeForAll(List.of(
+                record(MONDAY, LocalTime.of(10, 0)), record(MONDAY.plusWeeks(1), LocalTime.of(16, 0)))));
+        assertEquals(bits(), index.freeForAll(List.of(
+                record(MONDAY, LocalTime.of(10, 0)), record(MONDAY.plusDays(1), LocalTime.of(10, 0)))));
+        assertEquals(bits(0, 1, 3), index.freeForAll(List.of()));
+
+        // Test 4: records without a date or time match no drone
+        assertEquals(bits(), index.freeAt(null, LocalTime.NOON));
+        assertEquals(bits(), index.freeForAll(List.of(record(MONDAY, null))));
+    }
+
+    @Test
+    void testMatchesPerRequestParsing() {
+        Random random = new Random(42);
+        List<DroneDto> fleet = new ArrayList<>();
+        List<DroneAvailabilityDto> stationed = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            fleet.add(drone(String.valueOf(i)));
+            if (i % 7 == 0) continue; // not stationed anywhere
+            List<AvailabilityDto> schedule = new ArrayList<>();
+            for (int s = random.nextInt(6); s > 0; s--) {
+                LocalTime from = LocalTime.of(random.nextInt(24), 15 * random.nextInt(4));
+                LocalTime until = from.plusMinutes(random.nextInt(600));
+                schedule.add(new AvailabilityDto(DayOfWeek.of(1 + random.nextInt(7)).toString(),
+                        from.toString(), until.toString()));
+            }
+            stationed.add(new DroneAvailabilityDto(String.valueOf(i), schedule));
+        }
+        DroneLookup lookup = DroneLookup.build(fleet, List.of(new ServicePointDronesDto(1, stationed)), List.of());
+        AvailabilityIndex index = AvailabilityIndex.build(fleet, lookup);
+
+        // Test 5: every stabbing query agrees with parsing the schedules per request
+        for (int q = 0; q < 500; q++) {
+            LocalDate date = MONDAY.plusDays(random.nextInt(14));
+            LocalTime time = LocalTime.of(random.nextInt(24), 15 * random.nextInt(4));
+            BitSet free = index.freeAt(date, time);
+            for (int i = 0; i < fleet.size(); i++) {
+                assertEquals(oracle(lookup.availability(fleet.get(i).getId()), date, time), free.get(i),
+                        "drone " + i + " at " + date + " " + time);
+            }
+        }
+    }
+
+    private static BitSet bits(int... indices) {
+        BitSet bits = new BitSet();
+        for (int index : indices) {
+            bits.set(index);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,61 @@
+package uk.ac.ed.acp.cw2.service.fleet;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DroneLookupTest {
+
+    private static DroneDto drone(String id, String name) {
+        return new DroneDto(name, id, new CapabilityDto(true, false, 4.0, 1000, 0.01, 1.0, 1.0));
+    }
+
+    private static DroneAvailabilityDto stationed(String id, String day) {
+        return new DroneAvailabilityDto(id, List.of(new AvailabilityDto(day, "00:00:00", "23:59:59")));
+    }
+
+    @Test
+    void testLookups() {
+        DroneLookup lookup = DroneLookup.build(
+                List.of(drone("1", "first"), drone("2", "second"), drone("1", "duplicate"), drone("3", "idle")),
+                List.of(
+                        new ServicePointDronesDto(10, List.of(stationed("1", "MONDAY"))),
+                        new ServicePointDronesDto(20, List.of(stationed("2", "TUESDAY"), stationed("1", "FRIDAY"))),
+                        new ServicePointDronesDto(30, List.of(stationed("4", "SUNDAY")))),
+                List.of(
+                        new ServicePointDto("Appleton", 10, new LocationDto(-3.1863, 55.9445, 50.0)),
+                        new ServicePointDto("Ocean", 20, new LocationDto(-3.1774, 55.9811, 50.0)),
+                        new ServicePointDto("Shadow", 10, new LocationDto(0.0, 0.0, 0.0))));
+
+        // Test 1: the first occurrence of a drone id wins
+        assertEquals("first", lookup.drone("1").getName());
+        assertNull(lookup.drone("missing"));
+
+        // Test 2: a drone listed at two service points belongs to the first
+        assertEquals(10, lookup.servicePointId("1"));
+        assertEquals("MONDAY", lookup.availability("1").get(0).getDayOfWeek());
+        assertEquals(20, lookup.servicePointId("2"));
+
+        // Test 3: unstationed drones have no service point, availability or start position
+        assertEquals(-1, lookup.servicePointId("3"));
+        assertNull(lookup.availability("3"));
+        assertNull(lookup.startPosition("3"));
+
+        // Test 4: start positions come from the first service point with the id
+        assertEquals(new PositionDto(-3.1863, 55.9445), lookup.startPosition("1"));
+        assertEquals(new PositionDto(-3.1774, 55.9811), lookup.servicePointPosition(20));
+        assertEquals("Appleton", lookup.servicePoint(10).getName());
+
+        // Test 5: a drone stationed at an unknown service point has no start position
+        assertEquals(30, lookup.servicePointId("4"));
+        assertNull(lookup.startPosition("4"));
+
+        // Test 6: fleet indices are positions in the drone list, first occurrence again
+        assertEquals(0, lookup.fleetIndex("1"));
+        assertEquals(3, lookup.fleetIndex("3"));
+        assertEquals(-1, lookup.fleetIndex("4"));
+    }
+}
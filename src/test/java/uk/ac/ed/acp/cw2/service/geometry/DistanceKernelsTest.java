@@ -0,0 +1,75 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.DistanceDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistanceKernelsTest {
+
+    private static double[] around(Random random, double centre, int n) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = centre + (random.nextDouble() - 0.5) * 0.1;
+        }
+        return values;
+    }
+
+    // SCALAR, plus VECTOR when the tests run with -Pvector
+    private static List<DistanceKernels> implementations() {
+        return DistanceKernels.VECTOR != null
+                ? List.of(DistanceKernels.SCALAR, DistanceKernels.VECTOR)
+                : List.of(DistanceKernels.SCALAR);
+    }
+
+    @Test
+    void testBestPrefersVectorKernelsWhenBuilt() {
+        // Test 1: the vector kernels load exactly when the module is present (tests run with
+        // -Pvector), and best() prefers them
+        assertEquals(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                DistanceKernels.VECTOR != null);
+        assertSame(DistanceKernels.VECTOR != null ? DistanceKernels.VECTOR : DistanceKernels.SCALAR,
+                DistanceKernels.best());
+    }
+
+    @Test
+    void testImplementationsAgreeExactly() {
+        Random random = new Random(5);
+        // lengths around common lane counts, so both the vector body and the tail run
+        for (int n : new int[] {0, 1, 3, 4, 7, 8, 9, 17, 100}) {
+            double[] xs = around(random, -3.19, n);
+            double[] ys = around(random, 55.94, n);
+            double x = -3.1863, y = 55.9445;
+
+            double[] scalar = DistanceKernels.SCALAR.oneToMany(x, y, xs, ys);
+
+            // Test 2: every implementation is bit-for-bit equal to calculateDistance
+            for (DistanceKernels kernels : implementations()) {
+                double[] distances = kernels.oneToMany(x, y, xs, ys);
+                for (int i = 0; i < n; i++) {
+                    assertEquals(CalculatePositioning.calculateDistance(new DistanceDto(
+                            new PositionDto(x, y), new PositionDto(xs[i], ys[i]))), scalar[i]);
+                    assertEquals(Double.doubleToLongBits(scalar[i]),
+                            Double.doubleToLongBits(distances[i]));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testManyToMany() {
+        double[] axs = {0.0, 1.0}, ays = {0.0, 0.0};
+        double[] bxs = {3.0, 0.0, 1.0}, bys = {4.0, 1.0, 0.0};
+
+        // Test 3: the matrix is row-major over the first argument
+        for (DistanceKernels kernels : implementations()) {
+            assertArrayEquals(new double[] {5.0, 1.0, 1.0, Math.sqrt(20), Math.sqrt(2), 0.0},
+                    kernels.manyToMany(axs, ays, bxs, bys));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.LimitsDto;
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.RegionCheckDto;
+import uk.ac.ed.acp.cw2.dtos.RegionDto;
+import uk.ac.ed.acp.cw2.dtos.RestrictedRegionDto;
+import uk.ac.ed.acp.cw2.service.CalculatePositioning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RestrictedRegionIndexTest {
+
+    // Central Edinburgh rectangle and a second, smaller region further east
+    private static final double[][] CENTRAL = {
+            {-3.192473, 55.946233}, {-3.192473, 55.942617}, {-3.184319, 55.942617},
+            {-3.184319, 55.946233}, {-3.192473, 55.946233}};
+    private static final double[][] EAST = {
+            {-3.180000, 55.945000}, {-3.178000, 55.945000}, {-3.178000, 55.943000},
+            {-3.180000, 55.943000}, {-3.180000, 55.945000}};
+
+    private RestrictedRegionDto restricted(String name, double[][] vertices) {
+        List<LocationDto> locations = new ArrayList<>();
+        for (double[] v : vertices) {
+            locations.add(new LocationDto(v[0], v[1], null));
+        }
+        return new RestrictedRegionDto(name, 1, new LimitsDto(0, 0), locations);
+    }
+
+    private RegionDto region(String name, double[][] vertices) {
+        List<PositionDto> positions = new ArrayList<>();
+        for (double[] v : vertices) {
+            positions.add(new PositionDto(v[0], v[1]));
+        }
+        return new RegionDto(name, positions);
+    }
+
+    @Test
+    void testContains() {
+        RestrictedRegionIndex index = RestrictedRegionIndex.build(
+                List.of(restricted("central", CENTRAL), restricted("east", EAST)));
+
+        assertEquals(2, index.size());
+        // Test 1: inside each region
+        assertTrue(index.contains(-3.189000, 55.944500));
+        assertTrue(index.contains(-3.179000, 55.944000));
+        // Test 2: between the regions and far away
+        assertFalse(index.contains(-3.182000, 55.944000));
+        assertFalse(index.contains(-3.100000, 55.900000));
+        // Test 3: boundary points count as inside
+        assertTrue(index.contains(-3.192473, 55.944000));
+        assertTrue(index.contains(-3.184319, 55.942617));
+    }
+
+    @Test
+    void testMatchesIsInRegion() {
+        RestrictedRegionIndex index = RestrictedRegionIndex.build(
+                List.of(restricted("central", CENTRAL), restricted("east", EAST)));
+        RegionDto central = region("central", CENTRAL);
+        RegionDto east = region("east", EAST);
+
+        // Random points around both regions should agree with the Path2D based check
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            PositionDto p = new PositionDto(
+                    -3.195 + random.nextDouble() * 0.02, 55.940 + random.nextDouble() * 0.008);
+            boolean expected = CalculatePositioning.isInRegion(new RegionCheckDto(p, central))
+                    || CalculatePositioning.isInRegion(new RegionCheckDto(p, east));
+            assertEquals(expected, index.contains(p.getLng(), p.getLat()), p.toString());
+        }
+    }
+
+    @Test
+    void testCrossesSegment() {
+        RestrictedRegionIndex index = RestrictedRegionIndex.build(
+                List.of(restricted("central", CENTRAL), restricted("east", EAST)));
+
+        // Test 1: both endpoints outside but the move clips the south-east corner of central
+        assertFalse(index.contains(-3.184400, 55.942550));
+        assertFalse(index.contains(-3.184250, 55.942700));
+        assertTrue(index.crossesSegment(-3.184400, 55.942550, -3.184250, 55.942700));
+
+        // Test 2: a move ending inside is rejected, a move well clear of every region is not
+        assertTrue(index.crossesSegment(-3.192600, 55.944000, -3.192400, 55.944000));
+        assertFalse(index.crossesSegment(-3.182000, 55.944000, -3.181850, 55.944000));
+
+        // Test 3: leaving from a boundary point without entering the interior is allowed
+        assertFalse(index.crossesSegment(-3.192473, 55.944000, -3.192623, 55.944000));
+
+        // Test 4: a move that enters and leaves a thin region through two of its vertices crosses
+        // it, although it crosses no edge strictly and neither end is inside
+        double x = -3.170000, y = 55.944000, move = CalculatePositioning.MOVE_DISTANCE;
+        RestrictedRegionIndex diamond = RestrictedRegionIndex.build(List.of(restricted("diamond",
+                new double[][] {{x + move / 4, y}, {x + move / 2, y + 0.00001},
+                        {x + 3 * move / 4, y}, {x + move / 2, y - 0.00001}, {x + move / 4, y}})));
+        assertTrue(diamond.crossesSegment(x, y, x + move, y));
+        assertFalse(diamond.crossesSegment(x, y + 0.00002, x + move, y + 0.00002));
+    }
+
+    // The segment test as first written: endpoint or midpoint inside, or a strict edge crossing
+    private static boolean crossesByDefinition(CompiledPolygon polygon,
+                                               double ax, double ay, double bx, double by) {
+        if (polygon.contains(bx, by) || polygon.contains((ax + bx) / 2, (ay + by) / 2)) {
+            return true;
+        }
+        int n = polygon.xs.length;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            if (CompiledPolygon.properlyIntersect(ax, ay, bx, by,
+                    polygon.xs[j], polygon.ys[j], polygon.xs[i], polygon.ys[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void testCrossesSegmentMatchesDefinition() {
+        // Enough regions that the grid is finer than a move, so moves span several cells
+        List<RestrictedRegionDto> regions = new ArrayList<>();
+        List<CompiledPolygon> polygons = new ArrayList<>();
+        Random random = new Random(3);
+        for (int r = 0; r < 12; r++) {
+            double x = -3.192 + random.nextDouble() * 0.008;
+            double y = 55.942 + random.nextDouble() * 0.004;
+            double w = 0.0001 + random.nextDouble() * 0.0006;
+            double h = 0.0001 + random.nextDouble() * 0.0006;
+            double[][] triangle = {{x, y}, {x + w, y + h / 3}, {x + w / 4, y + h}, {x, y}};
+            regions.add(restricted("r" + r, triangle));
+            polygons.add(new CompiledPolygon("r" + r, new double[] {x, x + w, x + w / 4},
+                    new double[] {y, y + h / 3, y + h}));
+        }
+        RestrictedRegionIndex index = RestrictedRegionIndex.build(regions);
+
+        // Test 5: the one-pass, once-per-polygon test agrees with the definition on every move
+        for (int i = 0; i < 20000; i++) {
+            double ax = -3.1925 + random.nextDouble() * 0.009;
+            double ay = 55.9415 + random.nextDouble() * 0.005;
+            double angle = Math.toRadians(22.5 * random.nextInt(16));
+            double bx = ax + CalculatePositioning.MOVE_DISTANCE * Math.cos(angle);
+            double by = ay + CalculatePositioning.MOVE_DISTANCE * Math.sin(angle);
+            boolean expected = false;
+            for (CompiledPolygon polygon : polygons) {
+                expected |= crossesByDefinition(polygon, ax, ay, bx, by);
+            }
+            assertEquals(expected, index.crossesSegment(ax, ay, bx, by));
+        }
+    }
+
+    @Test
+    void testNear() {
+        RestrictedRegionIndex index = RestrictedRegionIndex.build(
+                List.of(restricted("central", CENTRAL), restricted("east", EAST)));
+        double move = CalculatePositioning.MOVE_DISTANCE;
+
+        // Test 6: within one move of a region's bounding box, or inside it, counts as near
+        assertTrue(index.near(-3.189000, 55.944500, move));
+        assertTrue(index.near(-3.184319 + 0.0001, 55.944000, move));
+        // Test 7: between the regions and outside the index nothing is near
+        assertFalse(index.near(-3.182000, 55.944000, move));
+        assertFalse(index.near(-3.100000, 55.900000, move));
+        assertFalse(RestrictedRegionIndex.build(List.of()).near(-3.189000, 55.944500, move));
+    }
+
+    @Test
+    void testEmptyIndex() {
+        RestrictedRegionIndex index = RestrictedRegionIndex.build(List.of());
+        assertEquals(0, index.size());
+        assertFalse(index.contains(-3.189000, 55.944500));
+    }
+}
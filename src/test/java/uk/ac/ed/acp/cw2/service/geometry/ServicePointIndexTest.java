@@ -0,0 +1,96 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServicePointIndexTest {
+
+    private static ServicePointDto servicePoint(int id, double lng, double lat) {
+        return new ServicePointDto("SP " + id, id, new LocationDto(lng, lat, 50.0));
+    }
+
+    private static double squared(ServicePointDto servicePoint, double x, double y) {
+        double dx = servicePoint.getLocation().getLng() - x;
+        double dy = servicePoint.getLocation().getLat() - y;
+        return dx * dx + dy * dy;
+    }
+
+    // The k closest ids by a scan over every service point, ties broken by id
+    private static int[] bruteForce(List<ServicePointDto> servicePoints, double x, double y, int k) {
+        return servicePoints.stream()
+                .sorted(Comparator.comparingDouble((ServicePointDto sp) -> squared(sp, x, y))
+                        .thenComparingInt(ServicePointDto::getId))
+                .limit(k)
+                .mapToInt(ServicePointDto::getId)
+                .toArray();
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(9);
+        for (int n : new int[] {1, 2, 3, 7, 50, 300}) {
+            List<ServicePointDto> servicePoints = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                servicePoints.add(servicePoint(i, -3.19 + (random.nextDouble() - 0.5) * 0.1,
+                        55.94 + (random.nextDouble() - 0.5) * 0.1));
+            }
+            ServicePointIndex index = ServicePointIndex.build(servicePoints);
+            assertEquals(n, index.size());
+
+            for (int query = 0; query < 200; query++) {
+                double x = -3.19 + (random.nextDouble() - 0.5) * 0.15;
+                double y = 55.94 + (random.nextDouble() - 0.5) * 0.15;
+
+                // Test 1: the nearest service point is the one a full scan finds
+                assertEquals(bruteForce(servicePoints, x, y, 1)[0], index.nearest(x, y));
+
+                // Test 2: k-nearest come back closest first, capped at the number indexed
+                for (int k : new int[] {2, 3, 5, n + 2}) {
+                    assertArrayEquals(bruteForce(servicePoints, x, y, k), index.nearest(x, y, k));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testEquallyDistantServicePointsComeOutById() {
+        // Four corners of a square around the origin, added out of id order
+        ServicePointIndex index = ServicePointIndex.build(List.of(
+                servicePoint(4, 1, 1), servicePoint(2, -1, 1),
+                servicePoint(3, 1, -1), servicePoint(1, -1, -1)));
+
+        // Test 3: ties are broken by id wherever the tree stored them
+        assertArrayEquals(new int[] {1, 2, 3, 4}, index.nearest(0, 0, 4));
+        assertArrayEquals(new int[] {1, 2}, index.nearest(0, 0, 2));
+    }
+
+    @Test
+    void testEmptyAndDegenerateInput() {
+        // Test 4: an empty index finds nothing
+        ServicePointIndex empty = ServicePointIndex.build(List.of());
+        assertEquals(0, empty.size());
+        assertEquals(-1, empty.nearest(0, 0));
+        assertEquals(0, empty.nearest(0, 0, 3).length);
+
+        // Test 5: repeated ids keep their first location and points without one are skipped
+        ServicePointIndex index = ServicePointIndex.build(List.of(
+                servicePoint(1, 0, 0),
+                servicePoint(1, 5, 5),
+                new ServicePointDto("Nowhere", 2, null),
+                servicePoint(3, 2, 2)));
+        assertEquals(2, index.size());
+        assertEquals(1, index.nearest(4.9, 4.9, 2)[1]);
+        assertEquals(3, index.nearest(4.9, 4.9));
+
+        // Test 6: k of zero asks for nothing
+        assertEquals(0, index.nearest(0, 0, 0).length);
+    }
+}
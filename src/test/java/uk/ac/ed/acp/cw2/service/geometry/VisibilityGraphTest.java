@@ -0,0 +1,131 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.LimitsDto;
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.RestrictedRegionDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VisibilityGraphTest {
+
+    // Tall wall between west and east, and an L-shaped region with one reflex corner
+    private static final double[][] WALL = {
+            {-3.1880, 55.9430}, {-3.1875, 55.9430}, {-3.1875, 55.9450},
+            {-3.1880, 55.9450}, {-3.1880, 55.9430}};
+    private static final double[][] ELL = {
+            {-3.1800, 55.9430}, {-3.1780, 55.9430}, {-3.1780, 55.9435}, {-3.1795, 55.9435},
+            {-3.1795, 55.9450}, {-3.1800, 55.9450}, {-3.1800, 55.9430}};
+
+    private RestrictedRegionDto restricted(String name, double[][] vertices) {
+        List<LocationDto> locations = new ArrayList<>();
+        for (double[] v : vertices) {
+            locations.add(new LocationDto(v[0], v[1], null));
+        }
+        return new RestrictedRegionDto(name, 1, new LimitsDto(0, 0), locations);
+    }
+
+    private VisibilityGraph graph() {
+        return RestrictedRegionIndex.build(
+                List.of(restricted("wall", WALL), restricted("ell", ELL))).visibilityGraph();
+    }
+
+    private static double distance(double x1, double y1, double x2, double y2) {
+        return Math.hypot(x1 - x2, y1 - y2);
+    }
+
+    @Test
+    void testCornersAndVisibility() {
+        VisibilityGraph graph = graph();
+
+        // Test 1: the ell's reflex corner is not a graph node
+        assertEquals(4 + 5, graph.corners());
+
+        // Test 2: segments through a region are blocked, ones along an edge or in the open are not
+        assertFalse(graph.visible(-3.1900, 55.9440, -3.1850, 55.9440));
+        assertFalse(graph.visible(-3.1880, 55.9430, -3.1875, 55.9450));
+        assertTrue(graph.visible(-3.1880, 55.9450, -3.1875, 55.9450));
+        assertTrue(graph.visible(-3.1900, 55.9460, -3.1850, 55.9460));
+    }
+
+    @Test
+    void testLowerBoundAroundWall() {
+        VisibilityGraph.DistanceField field = graph().distancesTo(-3.1850, 55.9440);
+        double x = -3.1900, y = 55.9440;
+        double direct = distance(x, y, -3.1850, 55.9440);
+        double bound = field.lowerBound(x, y);
+
+        // Test 3: behind the wall the bound is the exact detour over its top corners
+        double detour = distance(x, y, -3.1880, 55.9450) + 0.0005
+                + distance(-3.1875, 55.9450, -3.1850, 55.9440);
+        assertTrue(bound > direct);
+        assertEquals(detour, bound, 1e-12);
+
+        // Test 4: with a clear line of sight the bound is the straight-line distance
+        assertEquals(distance(-3.1860, 55.9460, -3.1850, 55.9440),
+                field.lowerBound(-3.1860, 55.9460), 1e-15);
+    }
+
+    // Shortest path from (x, y) to (tx, ty) through any region vertex, reflex ones included
+    private double shortestPath(VisibilityGraph graph, double x, double y, double tx, double ty) {
+        List<double[]> nodes = new ArrayList<>();
+        nodes.add(new double[] {x, y});
+        for (double[][] region : List.of(WALL, ELL)) {
+            for (int i = 0; i < region.length - 1; i++) {
+                nodes.add(region[i]);
+            }
+        }
+        nodes.add(new double[] {tx, ty});
+        int n = nodes.size();
+        double[] best = new double[n];
+        boolean[] done = new boolean[n];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        best[0] = 0;
+        for (int round = 0; round < n; round++) {
+            int u = -1;
+            for (int v = 0; v < n; v++) {
+                if (!done[v] && (u < 0 || best[v] < best[u])) {
+                    u = v;
+                }
+            }
+            done[u] = true;
+            double[] a = nodes.get(u);
+            for (int v = 0; v < n; v++) {
+                double[] b = nodes.get(v);
+                if (!done[v] && graph.visible(a[0], a[1], b[0], b[1])) {
+                    best[v] = Math.min(best[v], best[u] + distance(a[0], a[1], b[0], b[1]));
+                }
+            }
+        }
+        return best[n - 1];
+    }
+
+    @Test
+    void testLowerBoundAgainstShortestPaths() {
+        RestrictedRegionIndex index = RestrictedRegionIndex.build(
+                List.of(restricted("wall", WALL), restricted("ell", ELL)));
+        VisibilityGraph graph = index.visibilityGraph();
+        Random random = new Random(7);
+        int checked = 0;
+        while (checked < 300) {
+            double x = -3.1950 + random.nextDouble() * 0.02;
+            double y = 55.9400 + random.nextDouble() * 0.008;
+            double tx = -3.1950 + random.nextDouble() * 0.02;
+            double ty = 55.9400 + random.nextDouble() * 0.008;
+            if (index.contains(x, y) || index.contains(tx, ty)) {
+                continue;
+            }
+            checked++;
+            double bound = graph.distancesTo(tx, ty).lowerBound(x, y);
+
+            // Test 5: the bound lies between the straight line and the true shortest path
+            assertTrue(bound >= distance(x, y, tx, ty) - 1e-15);
+            assertTrue(bound <= shortestPath(graph, x, y, tx, ty) + 1e-12);
+        }
+    }
+}
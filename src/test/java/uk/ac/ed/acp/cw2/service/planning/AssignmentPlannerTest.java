@@ -0,0 +1,138 @@
+package uk.ac.ed.acp.cw2.service.planning;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.CapabilityDto;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.LocationDto;
+import uk.ac.ed.acp.cw2.dtos.MedDispatchRecDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.RequirementsDto;
+import uk.ac.ed.acp.cw2.dtos.ServicePointDto;
+import uk.ac.ed.acp.cw2.service.geometry.ServicePointIndex;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssignmentPlannerTest {
+
+    private static final PositionDto APPLETON = new PositionDto(-3.1863, 55.9445);
+    private static final PositionDto OCEAN = new PositionDto(-3.1774, 55.9811);
+
+    private static DroneDto drone(String id, boolean cooling, double capacity, int maxMoves) {
+        return new DroneDto("Drone " + id, id,
+                new CapabilityDto(cooling, false, capacity, maxMoves, 0.01, 1.0, 1.0));
+    }
+
+    private static MedDispatchRecDto record(int id, double capacity, boolean cooling, PositionDto delivery) {
+        return new MedDispatchRecDto(id, LocalDate.of(2025, 12, 22), LocalTime.of(9, 0),
+                new RequirementsDto(capacity, cooling, false, null), delivery);
+    }
+
+    private static AssignmentPlanner.Candidate candidate(DroneDto drone, PositionDto start, int records) {
+        BitSet onShift = new BitSet();
+        onShift.set(0, records);
+        return new AssignmentPlanner.Candidate(drone, start == OCEAN ? 2 : 1, start, onShift);
+    }
+
+    private static List<Integer> ids(AssignmentPlanner.Basket basket) {
+        return basket.stops().stream().map(MedDispatchRecDto::getId).toList();
+    }
+
+    @Test
+    void testRecordsGoToTheNearestDroneAndShareBaskets() {
+        List<MedDispatchRecDto> records = List.of(
+                record(1, 1.0, false, new PositionDto(-3.1870, 55.9450)),
+                record(2, 1.0, false, new PositionDto(-3.1780, 55.9800)),
+                record(3, 1.0, false, new PositionDto(-3.1855, 55.9440)));
+        List<AssignmentPlanner.Basket> baskets = AssignmentPlanner.plan(List.of(
+                candidate(drone("1", false, 4.0, 2000), APPLETON, 3),
+                candidate(drone("2", false, 4.0, 2000), OCEAN, 3)), records);
+
+        // Test 1: one flight per service point, each taking the records next to it
+        assertEquals(2, baskets.size());
+        assertEquals("1", baskets.get(0).drone().getId());
+        assertEquals(List.of(1, 3), ids(baskets.get(0)).stream().sorted().toList());
+        assertEquals("2", baskets.get(1).drone().getId());
+        assertEquals(List.of(2), ids(baskets.get(1)));
+        assertEquals(OCEAN, baskets.get(1).start());
+    }
+
+    @Test
+    void testFeasibility() {
+        List<MedDispatchRecDto> records = List.of(
+                record(1, 3.0, false, new PositionDto(-3.1870, 55.9450)),
+                record(2, 3.0, false, new PositionDto(-3.1860, 55.9450)),
+                record(3, 1.0, true, new PositionDto(-3.1865, 55.9440)),
+                record(4, 1.0, false, new PositionDto(-3.1700, 55.9900)),
+                record(5, 9.0, false, new PositionDto(-3.1866, 55.9446)));
+        BitSet offShiftForThree = new BitSet();
+        offShiftForThree.set(0, 5);
+        offShiftForThree.clear(2);
+        List<AssignmentPlanner.Basket> baskets = AssignmentPlanner.plan(List.of(
+                candidate(drone("1", false, 4.0, 200), APPLETON, 5),
+                new AssignmentPlanner.Candidate(drone("2", true, 4.0, 200), 1, APPLETON, offShiftForThree)),
+                records);
+
+        // Test 2: records over capacity, out of round-trip range or needing cooling from a drone
+        // that is off shift are left out
+        List<Integer> assigned = new ArrayList<>();
+        baskets.forEach(basket -> assigned.addAll(ids(basket)));
+        assertEquals(List.of(1, 2), assigned.stream().sorted().toList());
+
+        // Test 3: two 3.0 loads do not fit one 4.0 basket, so they fly separately
+        for (AssignmentPlanner.Basket basket : baskets) {
+            assertEquals(1, basket.stops().size());
+        }
+    }
+
+    @Test
+    void testStopsAreOrderedAlongTheTour() {
+        // Stops on a line running away from the service point, listed out of order
+        List<MedDispatchRecDto> records = new ArrayList<>();
+        int[] steps = {3, 1, 5, 2, 4};
+        for (int i = 0; i < steps.length; i++) {
+            records.add(record(steps[i], 0.5, false,
+                    new PositionDto(APPLETON.getLng() + steps[i] * 0.0010, APPLETON.getLat())));
+        }
+        List<AssignmentPlanner.Basket> baskets = AssignmentPlanner.plan(
+                List.of(candidate(drone("1", false, 4.0, 2000), APPLETON, records.size())), records);
+
+        // Test 4: a single flight visits the stops monotonically, out one way and straight back
+        assertEquals(1, baskets.size());
+        List<Integer> order = ids(baskets.get(0));
+        assertTrue(order.equals(List.of(1, 2, 3, 4, 5)) || order.equals(List.of(5, 4, 3, 2, 1)),
+                order.toString());
+    }
+
+    @Test
+    void testRecordsStayWithTheirNearestServicePoints() {
+        ServicePointIndex servicePoints = ServicePointIndex.build(List.of(
+                new ServicePointDto("Appleton Tower", 1, new LocationDto(APPLETON.getLng(), APPLETON.getLat(), 50.0)),
+                new ServicePointDto("Ocean Terminal", 2, new LocationDto(OCEAN.getLng(), OCEAN.getLat(), 50.0))));
+        // The drone at Ocean Terminal is so cheap per move that it undercuts the local one
+        DroneDto local = new DroneDto("Drone 1", "1",
+                new CapabilityDto(false, false, 4.0, 2000, 1.0, 1.0, 1.0));
+        DroneDto distant = new DroneDto("Drone 2", "2",
+                new CapabilityDto(true, false, 4.0, 2000, 0.0001, 1.0, 1.0));
+        List<AssignmentPlanner.Candidate> candidates = List.of(
+                candidate(local, APPLETON, 2), candidate(distant, OCEAN, 2));
+        List<MedDispatchRecDto> records = List.of(
+                record(1, 1.0, false, new PositionDto(-3.1870, 55.9450)));
+
+        // Test 5: without the index the cheapest drone wins; with it the record stays local
+        assertEquals("2", AssignmentPlanner.plan(candidates, records).get(0).drone().getId());
+        assertEquals("1",
+                AssignmentPlanner.plan(candidates, records, servicePoints, 1).get(0).drone().getId());
+
+        // Test 6: a record no drone at its nearest service point can serve goes further afield
+        List<MedDispatchRecDto> cooled = List.of(
+                record(2, 1.0, true, new PositionDto(-3.1870, 55.9450)));
+        assertEquals("2",
+                AssignmentPlanner.plan(candidates, cooled, servicePoints, 1).get(0).drone().getId());
+    }
+}
@@ -0,0 +1,121 @@
+package uk.ac.ed.acp.cw2.service.planning;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.CapabilityDto;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.MedDispatchRecDto;
+import uk.ac.ed.acp.cw2.dtos.PositionDto;
+import uk.ac.ed.acp.cw2.dtos.RequirementsDto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TourOrderingTest {
+
+    private static final PositionDto APPLETON = new PositionDto(-3.1863, 55.9445);
+
+    private static double length(double[] xs, double[] ys, int[] order) {
+        double length = 0;
+        double x = APPLETON.getLng(), y = APPLETON.getLat();
+        for (int stop : order) {
+            length += Math.hypot(xs[stop] - x, ys[stop] - y);
+            x = xs[stop];
+            y = ys[stop];
+        }
+        return length + Math.hypot(APPLETON.getLng() - x, APPLETON.getLat() - y);
+    }
+
+    // Shortest tour over every permutation of the stops
+    private static double optimum(double[] xs, double[] ys, int[] order, int fixed) {
+        if (fixed == order.length) {
+            return length(xs, ys, order);
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = fixed; i < order.length; i++) {
+            int[] next = order.clone();
+            next[fixed] = order[i];
+            next[i] = order[fixed];
+            best = Math.min(best, optimum(xs, ys, next, fixed + 1));
+        }
+        return best;
+    }
+
+    @Test
+    void testOrderIsAPermutationCloseToOptimal() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 40; trial++) {
+            int n = 3 + random.nextInt(5);
+            double[] xs = new double[n], ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = APPLETON.getLng() + (random.nextDouble() - 0.5) * 0.02;
+                ys[i] = APPLETON.getLat() + (random.nextDouble() - 0.5) * 0.02;
+            }
+            int[] order = TourOrdering.order(APPLETON, xs, ys, 100_000);
+
+            // Test 1: every stop is visited exactly once
+            int[] sorted = order.clone();
+            Arrays.sort(sorted);
+            for (int i = 0; i < n; i++) {
+                assertEquals(i, sorted[i]);
+            }
+
+            // Test 2: the tour is within 5% of the optimum and never longer than the input order
+            int[] identity = new int[n];
+            for (int i = 0; i < n; i++) {
+                identity[i] = i;
+            }
+            double length = length(xs, ys, order);
+            assertTrue(length <= length(xs, ys, identity) + 1e-12);
+            assertTrue(length <= 1.05 * optimum(xs, ys, identity, 0), "trial " + trial);
+        }
+    }
+
+    @Test
+    void testZigZagIsStraightened() {
+        // Stops alternate between the two ends of a line
+        double[] xs = new double[6], ys = new double[6];
+        int[] steps = {1, 6, 2, 5, 3, 4};
+        for (int i = 0; i < steps.length; i++) {
+            xs[i] = APPLETON.getLng() + steps[i] * 0.001;
+            ys[i] = APPLETON.getLat();
+        }
+        int[] order = TourOrdering.order(APPLETON, xs, ys, 100_000);
+
+        // Test 3: the tour runs out along the line and back instead of zig-zagging
+        assertEquals(2 * 6 * 0.001, length(xs, ys, order), 1e-12);
+        assertTrue(TourOrdering.moves(APPLETON, xs, ys, order)
+                < TourOrdering.moves(APPLETON, xs, ys, new int[] {0, 1, 2, 3, 4, 5}));
+    }
+
+    @Test
+    void testBasketsKeepTheirOrderWhenOverMaxMoves() {
+        List<MedDispatchRecDto> stops = new ArrayList<>();
+        int[] steps = {1, 6, 2, 5};
+        for (int i = 0; i < steps.length; i++) {
+            stops.add(new MedDispatchRecDto(i, LocalDate.of(2025, 12, 22), LocalTime.of(9, 0),
+                    new RequirementsDto(0.5, false, false, null),
+                    new PositionDto(APPLETON.getLng() + steps[i] * 0.001, APPLETON.getLat())));
+        }
+        DroneDto roomy = new DroneDto("roomy", "1",
+                new CapabilityDto(false, false, 4.0, 2000, 0.01, 1.0, 1.0));
+        DroneDto tight = new DroneDto("tight", "2",
+                new CapabilityDto(false, false, 4.0, 50, 0.01, 1.0, 1.0));
+
+        // Test 4: a drone with the range gets the reordered basket
+        List<MedDispatchRecDto> ordered =
+                TourOrdering.order(new AssignmentPlanner.Basket(roomy, APPLETON, stops)).stops();
+        double[] xs = ordered.stream().mapToDouble(stop -> stop.getDelivery().getLng()).toArray();
+        double[] ys = ordered.stream().mapToDouble(stop -> stop.getDelivery().getLat()).toArray();
+        assertEquals(2 * 6 * 0.001, length(xs, ys, new int[] {0, 1, 2, 3}), 1e-12);
+
+        // Test 5: if even the best tour is beyond maxMoves the basket is left as it was
+        assertEquals(stops,
+                TourOrdering.order(new AssignmentPlanner.Basket(tight, APPLETON, stops)).stops());
+    }
+}
@@ -0,0 +1,54 @@
+package uk.ac.ed.acp.cw2.service.query;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dtos.CapabilityDto;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.attributeQueryDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CapabilityQueryCacheTest {
+
+    private static DroneDto drone(String id, boolean cooling, double capacity) {
+        return new DroneDto("Drone " + id, id,
+                new CapabilityDto(cooling, false, capacity, 1000, 0.01, 1.0, 1.0));
+    }
+
+    @Test
+    void testHitsAndInvalidation() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CapabilityQueryCache cache = new CapabilityQueryCache(10, registry);
+        CapabilityIndex fleet = CapabilityIndex.build(
+                List.of(drone("1", true, 4.0), drone("2", false, 8.0), drone("3", true, 12.0)));
+
+        // Test 1: equivalent bodies share one cache entry
+        assertEquals(List.of("3"), cache.findDroneIds(fleet, List.of(
+                new attributeQueryDto("cooling", "=", "true"),
+                new attributeQueryDto("capacity", ">", "6"))));
+        assertEquals(List.of("3"), cache.findDroneIds(fleet, List.of(
+                new attributeQueryDto("capacity", ">", "6"),
+                new attributeQueryDto("capacity", ">", "5"),
+                new attributeQueryDto("cooling", "!=", "false"))));
+        assertEquals(1, cache.size());
+        assertEquals(1.0, registry.get("query.cache.requests").tag("result", "hit").counter().count());
+
+        // Test 2: contradictions are answered without touching the cache
+        assertTrue(cache.findDroneIds(fleet, List.of(
+                new attributeQueryDto("capacity", "<", "4"),
+                new attributeQueryDto("capacity", ">", "8"))).isEmpty());
+        assertEquals(1, cache.size());
+        assertEquals(1.0, registry.get("query.plan.contradictions").counter().count());
+
+        // Test 3: a new fleet index invalidates cached results
+        CapabilityIndex refreshed = CapabilityIndex.build(
+                List.of(drone("1", true, 4.0), drone("4", true, 16.0)));
+        assertEquals(List.of("4"), cache.findDroneIds(refreshed, List.of(
+                new attributeQueryDto("cooling", "=", "true"),
+                new attributeQueryDto("capacity", ">", "6"))));
+        assertEquals(1.0, registry.get("query.cache.invalidations").counter().count());
+        assertEquals(4, registry.get("query.plan.compile").timer().count());
+    }
+}
@@ -0,0 +1,173 @@
+package uk.ac.ed.acp.cw2.service.query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import uk.ac.ed.acp.cw2.dtos.CapabilityDto;
+import uk.ac.ed.acp.cw2.dtos.DroneDto;
+import uk.ac.ed.acp.cw2.dtos.attributeQueryDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CapabilityQueryTest {
+
+    private static final String[] ATTRIBUTES =
+            {"cooling", "heating", "capacity", "maxMoves", "costPerMove", "costInitial", "costFinal", "id"};
+    private static final String[] OPERATORS = {"=", "!=", "<", ">"};
+    private static final double[] VALUES = {0.0, 0.5, 1.0, 2.0, 4.0, 8.0, 12.0};
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static List<DroneDto> fleet(int size, Random random) {
+        List<DroneDto> drones = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            drones.add(new DroneDto("Drone " + i, String.valueOf(i), new CapabilityDto(
+                    random.nextBoolean(), random.nextBoolean(),
+                    VALUES[random.nextInt(VALUES.length)], 500 + 250 * random.nextInt(8),
+                    VALUES[random.nextInt(3)], VALUES[random.nextInt(VALUES.length)],
+                    VALUES[random.nextInt(VALUES.length)])));
+        }
+        return drones;
+    }
+
+    // Drone-at-a-time evaluation of /query, as DynamicQueries did before the index
+    private static List<String> reference(List<DroneDto> drones, List<attributeQueryDto> query) {
+        List<String> matched = new ArrayList<>();
+        for (DroneDto drone : drones) {
+            Map<?, ?> capability = MAPPER.convertValue(drone.getCapability(), Map.class);
+            boolean all = true;
+            for (attributeQueryDto condition : query) {
+                String operator = condition.getOperator();
+                if (condition.getAttribute().equals("cooling") || condition.getAttribute().equals("heating")) {
+                    boolean actual = (Boolean) capability.get(condition.getAttribute());
+                    boolean expected = Boolean.parseBoolean(condition.getValue());
+                    all &= operator.equals("=") ? actual == expected : actual != expected;
+                } else {
+                    double actual = condition.getAttribute().equals("id")
+                            ? Double.parseDouble(drone.getId())
+                            : ((Number) capability.get(condition.getAttribute())).doubleValue();
+                    double value = Double.parseDouble(condition.getValue());
+                    all &= switch (operator) {
+                        case "<" -> actual < value;
+                        case ">" -> actual > value;
+                        case "=" -> actual == value;
+                        default -> actual != value;
+                    };
+                }
+            }
+            if (all) {
+                matched.add(drone.getId());
+            }
+        }
+        return matched;
+    }
+
+    @Test
+    void testMatchesReference() {
+        Random random = new Random(12);
+        List<DroneDto> drones = fleet(400, random);
+        CapabilityIndex index = CapabilityIndex.build(drones);
+
+        // Test 1: random conjunctions agree with drone-at-a-time evaluation, in fleet order
+        for (int trial = 0; trial < 500; trial++) {
+            List<attributeQueryDto> query = new ArrayList<>();
+            int conditions = random.nextInt(4);
+            for (int c = 0; c < conditions; c++) {
+                String attribute = ATTRIBUTES[random.nextInt(ATTRIBUTES.length)];
+                boolean bool = attribute.equals("cooling") || attribute.equals("heating");
+                String operator = OPERATORS[random.nextInt(bool ? 2 : 4)];
+                String value = bool ? String.valueOf(random.nextBoolean())
+                        : attribute.equals("maxMoves") ? String.valueOf(250 * random.nextInt(20))
+                        : attribute.equals("id") ? String.valueOf(random.nextInt(500))
+                        : String.valueOf(VALUES[random.nextInt(VALUES.length)]);
+                query.add(new attributeQueryDto(attribute, operator, value));
+            }
+            assertEquals(reference(drones, query),
+                    index.droneIds(CapabilityQuery.compile(query).evaluate(index)), query.toString());
+        }
+    }
+
+    @Test
+    void testEdgeCases() {
+        List<DroneDto> drones = fleet(20, new Random(3));
+        drones.add(new DroneDto("Named", "alpha", new CapabilityDto(true, false, 4.0, 1000, 0.5, 1.0, 1.0)));
+        CapabilityIndex index = CapabilityIndex.build(drones);
+
+        // Test 1: an empty query matches every drone
+        assertEquals(21, CapabilityQuery.compile(List.of()).evaluate(index).cardinality());
+
+        // Test 2: an unknown attribute matches nothing
+        assertTrue(CapabilityQuery.compile(List.of(new attributeQueryDto("colour", "=", "red")))
+                .evaluate(index).isEmpty());
+
+        // Test 3: a non-numeric id only satisfies !=
+        List<String> notFive = index.droneIds(CapabilityQuery.compile(
+                List.of(new attributeQueryDto("id", "!=", "5"))).evaluate(index));
+        assertTrue(notFive.contains("alpha"));
+        assertFalse(index.droneIds(CapabilityQuery.compile(
+                List.of(new attributeQueryDto("id", "<", "1000"))).evaluate(index)).contains("alpha"));
+
+        // Test 4: ordering operators on boolean attributes are rejected
+        assertThrows(ResponseStatusException.class,
+                () -> CapabilityQuery.compile(List.of(new attributeQueryDto("cooling", "<", "true"))));
+    }
+
+    @Test
+    void testPathQuery() {
+        List<DroneDto> drones = fleet(100, new Random(5));
+        CapabilityIndex index = CapabilityIndex.build(drones);
+
+        // Test 1: exact matches per capability field
+        assertEquals(drones.stream().filter(d -> d.getCapability().getCapacity() == 4.0).toList(),
+                index.drones(CapabilityQuery.compilePath("capacity", "4.0").evaluate(index)));
+        assertEquals(drones.stream().filter(d -> d.getCapability().getMaxMoves() == 1000).toList(),
+                index.drones(CapabilityQuery.compilePath("maxMoves", "1000").evaluate(index)));
+        assertEquals(drones.stream().filter(d -> !d.getCapability().getCooling()).toList(),
+                index.drones(CapabilityQuery.compilePath("cooling", "FALSE").evaluate(index)));
+
+        // Test 2: maxMoves is an integer field, id is not a capability field, bad values match nothing
+        assertTrue(CapabilityQuery.compilePath("maxMoves", "1000.0").evaluate(index).isEmpty());
+        assertTrue(CapabilityQuery.compilePath("id", "1").evaluate(index).isEmpty());
+        assertTrue(CapabilityQuery.compilePath("cooling", "yes").evaluate(index).isEmpty());
+        assertTrue(CapabilityQuery.compilePath("capacity", "lots").evaluate(index).isEmpty());
+    }
+
+    private static String key(attributeQueryDto... conditions) {
+        return CapabilityQuery.compile(List.of(conditions)).key();
+    }
+
+    @Test
+    void testNormalisation() {
+        // Test 1: order, duplicates and redundant bounds do not change the plan
+        String plan = key(new attributeQueryDto("capacity", ">", "4"),
+                new attributeQueryDto("cooling", "=", "true"),
+                new attributeQueryDto("capacity", "<", "8"));
+        assertEquals(plan, key(new attributeQueryDto("cooling", "=", "TRUE"),
+                new attributeQueryDto("capacity", "<", "8.0"),
+                new attributeQueryDto("capacity", ">", "2"),
+                new attributeQueryDto("capacity", ">", "4"),
+                new attributeQueryDto("capacity", "<", "10"),
+                new attributeQueryDto("cooling", "!=", "false")));
+        assertEquals("cooling=true&capacity>4.0&capacity<8.0", plan);
+
+        // Test 2: exclusions outside the range are dropped, an equality absorbs the range
+        assertEquals("maxMoves>1000.0", key(new attributeQueryDto("maxMoves", ">", "1000"),
+                new attributeQueryDto("maxMoves", "!=", "500")));
+        assertEquals("maxMoves=2000.0", key(new attributeQueryDto("maxMoves", ">", "1000"),
+                new attributeQueryDto("maxMoves", "=", "2000")));
+
+        // Test 3: contradictions are detected
+        assertTrue(CapabilityQuery.compile(List.of(new attributeQueryDto("capacity", "<", "4"),
+                new attributeQueryDto("capacity", ">", "8"))).isContradiction());
+        assertTrue(CapabilityQuery.compile(List.of(new attributeQueryDto("heating", "=", "true"),
+                new attributeQueryDto("heating", "=", "false"))).isContradiction());
+        assertTrue(CapabilityQuery.compile(List.of(new attributeQueryDto("costFinal", "=", "1"),
+                new attributeQueryDto("costFinal", "!=", "1.0"))).isContradiction());
+        assertFalse(CapabilityQuery.compile(List.of(new attributeQueryDto("capacity", ">", "4"),
+                new attributeQueryDto("capacity", "<", "8"))).isContradiction());
+    }
+}
@@ -0,0 +1,28 @@
+package uk.ac.ed.acp.cw2.service.geometry;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// Built only with the vector profile and loaded only when jdk.incubator.vector is in the boot
+// layer, see DistanceKernels. Lanes use the same separate multiply, add and sqrt as the scalar
+// loop (no fused multiply-add), so results are identical.
+final class VectorDistanceKernels implements DistanceKernels {
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  @Override
+  public void oneToMany(double x, double y, double[] xs, double[] ys, double[] out, int offset) {
+    DoubleVector vx = DoubleVector.broadcast(SPECIES, x);
+    DoubleVector vy = DoubleVector.broadcast(SPECIES, y);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(xs.length); i < bound; i += SPECIES.length()) {
+      DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, i).sub(vx);
+      DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, i).sub(vy);
+      dx.mul(dx).add(dy.mul(dy)).sqrt().intoArray(out, offset + i);
+    }
+    for (; i < xs.length; i++) {
+      double dx = xs[i] - x;
+      double dy = ys[i] - y;
+      out[offset + i] = Math.sqrt(dx * dx + dy * dy);
+    }
+  }
+}